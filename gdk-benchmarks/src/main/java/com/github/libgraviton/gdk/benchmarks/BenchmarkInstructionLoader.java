@@ -0,0 +1,97 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.AbstractGrvProfileInstructionLoader;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Instruction loader serving the profiles of {@link BenchmarkSchemas} from memory, so the profile parsing of the
+ * Graviton instruction loaders can be measured without any I/O. The service document lists one endpoint per profile.
+ */
+public class BenchmarkInstructionLoader extends AbstractGrvProfileInstructionLoader {
+
+    private static final String BASE_URL = "http://benchmark/";
+
+    private static final String PROFILE_SUFFIX = "/collection";
+
+    private static final Endpoint ENDPOINT = new Endpoint("/benchmark/synthetic/{id}", "/benchmark/synthetic/");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The names of the profiles listed in the service document.
+     */
+    private final List<String> profiles;
+
+    /**
+     * Constructor
+     *
+     * @param profiles The names of the profiles listed in the service document, see {@link BenchmarkSchemas#load}.
+     */
+    public BenchmarkInstructionLoader(String... profiles) {
+        super(1);
+        this.profiles = Arrays.asList(profiles);
+    }
+
+    /**
+     * Parses a profile into a generator instruction, exactly as the instruction loaders do.
+     *
+     * @param profileJson The profile.
+     *
+     * @return The generator instruction.
+     */
+    public GeneratorInstruction parse(String profileJson) throws JsonProcessingException {
+        return createInstruction(ENDPOINT, profileJson);
+    }
+
+    /**
+     * Creates a service document listing an endpoint for every profile.
+     *
+     * @return The service document.
+     */
+    @Override
+    public String loadServiceDocument() {
+        ObjectNode service = objectMapper.createObjectNode();
+        ArrayNode services = service.putArray("services");
+        for (String profile : profiles) {
+            services.addObject()
+                    .put("$ref", BASE_URL + profile + "/")
+                    .put("profile", BASE_URL + "schema/" + profile + PROFILE_SUFFIX);
+        }
+        return service.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String loadProfile(String profileUrl) throws CommunicationException {
+        String prefix = BASE_URL + "schema/";
+        if (!profileUrl.startsWith(prefix) || !profileUrl.endsWith(PROFILE_SUFFIX)) {
+            throw new CommunicationException("Unknown profile '" + profileUrl + "'.");
+        }
+        String profile = profileUrl.substring(prefix.length(), profileUrl.length() - PROFILE_SUFFIX.length());
+        if (!profiles.contains(profile)) {
+            throw new CommunicationException("Unknown profile '" + profileUrl + "'.");
+        }
+        try {
+            return BenchmarkSchemas.load(profile);
+        } catch (IOException e) {
+            throw new CommunicationException("Unable to load profile '" + profileUrl + "'.", e);
+        }
+    }
+
+    @Override
+    protected String getSourceDescription() {
+        return "benchmark";
+    }
+}
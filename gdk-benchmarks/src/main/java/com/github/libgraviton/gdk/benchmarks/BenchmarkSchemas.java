@@ -0,0 +1,85 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the profiles used by the benchmarks: the fixtures of the plugin tests and synthetic profiles of a given
+ * size.
+ *
+ * Synthetic profiles are named 'synthetic-&lt;properties&gt;x&lt;depth&gt;'. Every object has the given number of
+ * properties; every third property is a nested object and every fourth an array of objects, until the given depth is
+ * reached.
+ */
+public final class BenchmarkSchemas {
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    private BenchmarkSchemas() {
+    }
+
+    /**
+     * Loads a profile.
+     *
+     * @param name The name of a fixture (e.g. 'someSchema') or of a synthetic profile (e.g. 'synthetic-20x3').
+     *
+     * @return The profile JSON.
+     */
+    public static String load(String name) throws IOException {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            String[] size = name.substring(SYNTHETIC_PREFIX.length()).split("x");
+            return synthetic(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        }
+
+        String resource = "serviceSchema/grvProfileInstructionLoaderTest." + name + ".json";
+        try (InputStream in = BenchmarkSchemas.class.getClassLoader().getResourceAsStream(resource)) {
+            if (null == in) {
+                throw new IOException("Fixture '" + resource + "' not found.");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Creates a synthetic collection profile.
+     *
+     * @param properties The number of properties per object.
+     * @param depth The nesting depth of objects.
+     *
+     * @return The profile JSON.
+     */
+    public static String synthetic(int properties, int depth) {
+        StringBuilder profile = new StringBuilder();
+        profile.append("{\"title\":\"Synthetic collection\",\"type\":\"array\",\"items\":");
+        appendObject(profile, properties, depth, "Synthetic\\\\Bundle\\\\Document\\\\Synthetic");
+        profile.append('}');
+        return profile.toString();
+    }
+
+    private static void appendObject(StringBuilder json, int properties, int depth, String documentClass) {
+        json.append("{\"type\":\"object\",\"title\":\"Synthetic object\",");
+        if (null != documentClass) {
+            json.append("\"x-documentClass\":\"").append(documentClass).append("\",");
+        }
+        json.append("\"properties\":{");
+        for (int i = 0; i < properties; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"field").append(i).append("\":");
+            if (depth > 1 && 2 == i % 3) {
+                appendObject(json, properties, depth - 1, null);
+            } else if (depth > 1 && 3 == i % 4) {
+                json.append("{\"type\":\"array\",\"items\":");
+                appendObject(json, properties, depth - 1, null);
+                json.append('}');
+            } else if (0 == i % 2) {
+                json.append("{\"type\":\"string\",\"description\":\"Field ").append(i).append("\"}");
+            } else {
+                json.append("{\"type\":[\"integer\",\"null\"]}");
+            }
+        }
+        json.append("}}");
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+
+/**
+ * Renders the sources of a code model without keeping them, so source formatting can be measured without I/O.
+ */
+public class DiscardingCodeWriter extends CodeWriter {
+
+    private final Blackhole blackhole;
+
+    public DiscardingCodeWriter(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(len);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.libgraviton.gdk.generator.rules.GravitonNameHelper;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the individual Graviton rules: the object rule on a complete item schema, the array rule on an array of
+ * objects and the class name lookup of the name helper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GravitonRulesBenchmark {
+
+    @Param({"someSchema", "anotherMoreSchema", "synthetic-20x3", "synthetic-40x4"})
+    public String profile;
+
+    private RuleFactory ruleFactory;
+
+    private JsonNode itemSchema;
+
+    private ObjectNode arraySchema;
+
+    private GravitonNameHelper nameHelper;
+
+    private JPackage namePackage;
+
+    @Setup
+    public void setup() throws Exception {
+        ruleFactory = SchemaMapperBenchmark.createRuleFactory();
+        itemSchema = new BenchmarkInstructionLoader().parse(BenchmarkSchemas.load(profile)).getSchema();
+        arraySchema = JsonNodeFactory.instance.objectNode();
+        arraySchema.put("type", "array");
+        arraySchema.set("items", itemSchema);
+        nameHelper = (GravitonNameHelper) ruleFactory.getNameHelper();
+        namePackage = new JCodeModel()._package("com.example.benchmark");
+    }
+
+    @Benchmark
+    public JType objectRule() {
+        return ruleFactory.getObjectRule().apply(
+                "BenchmarkItem",
+                itemSchema,
+                null,
+                new JCodeModel()._package("com.example.benchmark"),
+                new Schema(null, itemSchema, null)
+        );
+    }
+
+    @Benchmark
+    public JClass arrayRule() {
+        return ruleFactory.getArrayRule().apply(
+                "benchmarkItems",
+                arraySchema,
+                null,
+                new JCodeModel()._package("com.example.benchmark"),
+                new Schema(null, arraySchema, null)
+        );
+    }
+
+    @Benchmark
+    public String nameHelperClassName() {
+        return nameHelper.getClassName("benchmarkItem", itemSchema, namePackage);
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to turn a downloaded profile into a generator instruction (parsing, item schema
+ * extraction, enrichment).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileParsingBenchmark {
+
+    @Param({"someSchema", "anotherSchema", "anotherMoreSchema", "synthetic-20x3", "synthetic-40x4"})
+    public String profile;
+
+    private String profileJson;
+
+    private BenchmarkInstructionLoader loader;
+
+    @Setup
+    public void setup() throws Exception {
+        profileJson = BenchmarkSchemas.load(profile);
+        loader = new BenchmarkInstructionLoader();
+    }
+
+    @Benchmark
+    public GeneratorInstruction parseProfile() throws Exception {
+        return loader.parse(profileJson);
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.libgraviton.gdk.benchmarks;
+
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.GravitonSchemaMapper;
+import com.github.libgraviton.gdk.generator.rules.GravitonRuleFactory;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JType;
+import org.jsonschema2pojo.DefaultGenerationConfig;
+import org.jsonschema2pojo.GenerationConfig;
+import org.jsonschema2pojo.Jackson2Annotator;
+import org.jsonschema2pojo.SchemaGenerator;
+import org.jsonschema2pojo.SchemaMapper;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the classes of a single endpoint end to end through the GravitonRuleFactory, once from the parsed schema
+ * (as the generator does) and once from the serialized schema (as a plain SchemaMapper does).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaMapperBenchmark {
+
+    @Param({"someSchema", "anotherMoreSchema", "synthetic-20x3", "synthetic-40x4"})
+    public String profile;
+
+    private GeneratorInstruction instruction;
+
+    private String schemaJson;
+
+    private GravitonSchemaMapper schemaMapper;
+
+    @Setup
+    public void setup() throws Exception {
+        instruction = new BenchmarkInstructionLoader().parse(BenchmarkSchemas.load(profile));
+        schemaJson = instruction.getSchema().toString();
+        schemaMapper = new GravitonSchemaMapper(createRuleFactory(), new SchemaGenerator());
+    }
+
+    @Benchmark
+    public JType generateFromTree() throws Exception {
+        return schemaMapper.generate(new JCodeModel(), className(), "com.example.benchmark", instruction.getSchema());
+    }
+
+    @Benchmark
+    public JType generateFromString() throws Exception {
+        return ((SchemaMapper) schemaMapper).generate(new JCodeModel(), className(), "com.example.benchmark", schemaJson);
+    }
+
+    @Benchmark
+    public void generateAndBuild(Blackhole blackhole) throws Exception {
+        JCodeModel codeModel = new JCodeModel();
+        schemaMapper.generate(codeModel, className(), "com.example.benchmark", instruction.getSchema());
+        codeModel.build(new DiscardingCodeWriter(blackhole));
+    }
+
+    private String className() {
+        return instruction.getClassName().isEmpty() ? "Benchmark" : instruction.getClassName();
+    }
+
+    /**
+     * Creates a rule factory configured the same way the generator configures it.
+     *
+     * @return The rule factory.
+     */
+    static RuleFactory createRuleFactory() {
+        GenerationConfig config = new DefaultGenerationConfig();
+        RuleFactory ruleFactory = new GravitonRuleFactory();
+        ruleFactory.setGenerationConfig(config);
+        ruleFactory.setAnnotator(new Jackson2Annotator(config));
+        return ruleFactory;
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.libgraviton.gdk.generator;
+
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+
+/**
+ * Decides which endpoints are excluded from the POJO generation. Instruction loaders use it to skip endpoints before
+ * their profiles are loaded.
+ */
+@FunctionalInterface
+public interface EndpointFilter {
+
+    /**
+     * Filter which doesn't ignore any endpoint.
+     */
+    EndpointFilter NONE = endpoint -> false;
+
+    /**
+     * Checks whether a given endpoint should be ignored.
+     *
+     * @param endpoint The endpoint.
+     *
+     * @return true if the endpoint should be ignored, false otherwise.
+     */
+    boolean shouldIgnore(Endpoint endpoint);
+
+    /**
+     * Combines this filter with another one. An endpoint is ignored if any of the filters ignores it.
+     *
+     * @param other The other filter.
+     *
+     * @return The combined filter.
+     */
+    default EndpointFilter or(EndpointFilter other) {
+        return endpoint -> shouldIgnore(endpoint) || other.shouldIgnore(endpoint);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.github.libgraviton.gdk.generator;
+
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Filters endpoints by include and exclude patterns, which are matched against the collection and item path of an
+ * endpoint (e.g. '/core/app/' and '/core/app/{id}').
+ *
+ * Patterns are globs by default: '*' matches any characters except '/', '**' matches any characters and '?' matches a
+ * single character. Patterns prefixed with 'regex:' are used as regular expressions. All include patterns and all
+ * exclude patterns are compiled into one regular expression each, so an endpoint is checked with at most two matches
+ * per path, no matter how many patterns are configured.
+ */
+public class EndpointPatternFilter implements EndpointFilter {
+
+    private static final String REGEX_PREFIX = "regex:";
+
+    /**
+     * Matches all included endpoints. Null if all endpoints are included.
+     */
+    private final Pattern includePattern;
+
+    /**
+     * Matches all excluded endpoints. Null if no endpoint is excluded.
+     */
+    private final Pattern excludePattern;
+
+    /**
+     * Constructor
+     *
+     * @param includePatterns If not empty, only endpoints matching at least one of these patterns are included.
+     * @param excludePatterns Endpoints matching any of these patterns are excluded.
+     */
+    public EndpointPatternFilter(List<String> includePatterns, List<String> excludePatterns) {
+        this.includePattern = compile(null == includePatterns ? Collections.emptyList() : includePatterns);
+        this.excludePattern = compile(null == excludePatterns ? Collections.emptyList() : excludePatterns);
+    }
+
+    @Override
+    public boolean shouldIgnore(Endpoint endpoint) {
+        if (null != includePattern && !matches(includePattern, endpoint)) {
+            return true;
+        }
+        return null != excludePattern && matches(excludePattern, endpoint);
+    }
+
+    /**
+     * Checks whether the collection or the item path of an endpoint matches a pattern.
+     *
+     * @param pattern The pattern.
+     * @param endpoint The endpoint.
+     *
+     * @return true if one of the paths matches.
+     */
+    private boolean matches(Pattern pattern, Endpoint endpoint) {
+        return (null != endpoint.getUrl() && pattern.matcher(endpoint.getUrl()).matches())
+                || (null != endpoint.getItemUrl() && pattern.matcher(endpoint.getItemUrl()).matches());
+    }
+
+    /**
+     * Compiles a list of glob / regex patterns into a single regular expression.
+     *
+     * @param patterns The patterns.
+     *
+     * @return The compiled pattern or null if there are no patterns.
+     */
+    private static Pattern compile(List<String> patterns) {
+        StringBuilder regex = new StringBuilder();
+        for (String pattern : patterns) {
+            if (null == pattern || pattern.trim().isEmpty()) {
+                continue;
+            }
+            pattern = pattern.trim();
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:");
+            if (pattern.startsWith(REGEX_PREFIX)) {
+                regex.append(pattern.substring(REGEX_PREFIX.length()));
+            } else {
+                regex.append(globToRegex(pattern));
+            }
+            regex.append(')');
+        }
+        return regex.length() > 0 ? Pattern.compile(regex.toString()) : null;
+    }
+
+    /**
+     * Converts a glob pattern to a regular expression.
+     *
+     * @param glob The glob pattern.
+     *
+     * @return The regular expression.
+     */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if ('*' == c || '?' == c) {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                if ('?' == c) {
+                    regex.append("[^/]");
+                } else if (i + 1 < glob.length() && '*' == glob.charAt(i + 1)) {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+}
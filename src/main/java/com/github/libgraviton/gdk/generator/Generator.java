@@ -1,7 +1,24 @@
 package com.github.libgraviton.gdk.generator;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.libgraviton.gdk.generator.coretypes.CoreTypes;
 import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+import com.github.libgraviton.gdk.generator.incremental.FingerprintCalculator;
+import com.github.libgraviton.gdk.generator.incremental.GenerationManifest;
+import com.github.libgraviton.gdk.generator.output.ArchiveCodeWriter;
+import com.github.libgraviton.gdk.generator.output.ArchiveCompiler;
+import com.github.libgraviton.gdk.generator.output.BufferingCodeWriter;
+import com.github.libgraviton.gdk.generator.output.InMemoryCodeWriter;
+import com.github.libgraviton.gdk.generator.output.WriteIfChangedCodeWriter;
+import com.github.libgraviton.gdk.generator.registry.BinaryCodecsGenerator;
+import com.github.libgraviton.gdk.generator.registry.CodecModuleGenerator;
+import com.github.libgraviton.gdk.generator.registry.EndpointRegistryGenerator;
+import com.github.libgraviton.gdk.generator.report.GenerationReport;
+import com.github.libgraviton.gdk.generator.report.Phase;
+import com.github.libgraviton.gdk.generator.rules.GravitonRuleFactory;
+import com.github.libgraviton.gdk.generator.views.Views;
 import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.EndpointManager;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.exception.UnableToPersistEndpointAssociationsException;
@@ -13,7 +30,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This is the POJO generator. It generates POJOs for all endpoints of a given GravitonApi instance.
@@ -22,6 +52,12 @@ public class Generator {
 
     private final Logger LOG = LoggerFactory.getLogger(Generator.class);
 
+    /**
+     * Rough number of heap bytes needed per schema node while an endpoint is in flight: the schema itself, the code
+     * model built from it and the generated sources waiting to be written.
+     */
+    private static final long ESTIMATED_HEAP_BYTES_PER_SCHEMA_NODE = 2048;
+
     /**
      * The schema mapper which creates POJOs by given schemas
      */
@@ -33,15 +69,55 @@ public class Generator {
     private final GenerationConfig config;
 
     /**
-     * The GravitonApi instance to generator POJOs for
+     * The endpoint manager the generated classes are registered with
+     */
+    private final EndpointManager endpointManager;
+
+    /**
+     * The base url of the Graviton instance to generate POJOs for. Null if the instructions come from elsewhere.
      */
-    private final GravitonApi gravitonApi;
+    private final String gravitonUrl;
 
     /**
      * The generator instruction loader providing all endpoints
      */
     private final GeneratorInstructionLoader instructionLoader;
 
+    /**
+     * Controls how the instructions are processed
+     */
+    private final GeneratorOptions options;
+
+    /**
+     * Calculates the fingerprints recorded in the generation manifest
+     */
+    private final FingerprintCalculator fingerprintCalculator;
+
+    /**
+     * Whether the schema mapper was created by the generator itself, which allows to create one per generation task
+     */
+    private final boolean schemaMapperPerTask;
+
+    /**
+     * Maps the Graviton core types to the provided classes. Null if core types are not used.
+     */
+    private final CoreTypes coreTypes;
+
+    /**
+     * Generates the Jackson module registering the generated codecs. Null if no codecs are generated.
+     */
+    private final CodecModuleGenerator codecModule;
+
+    /**
+     * Generates the helper encoding the POJOs with their binary codecs. Null if no binary codecs are generated.
+     */
+    private final BinaryCodecsGenerator binaryCodecs;
+
+    /**
+     * Provides the runtime support of the flyweight views. Null if no views are generated.
+     */
+    private final Views views;
+
     /**
      * Constructor
      *
@@ -55,15 +131,56 @@ public class Generator {
             GenerationConfig config,
             GravitonApi gravitonApi,
             GeneratorInstructionLoader instructionLoader
+    ) throws GeneratorException {
+        this(config, new GeneratorOptions(), gravitonApi, instructionLoader);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config The generator config
+     * @param options The generator options
+     * @param gravitonApi The gravitonApi instance to generate POJOs for
+     * @param instructionLoader The generator instruction loader which should be used
+     *
+     * @throws GeneratorException When the POJO generation fails
+     */
+    public Generator(
+            GenerationConfig config,
+            GeneratorOptions options,
+            GravitonApi gravitonApi,
+            GeneratorInstructionLoader instructionLoader
     ) throws GeneratorException {
         this(
                 config,
-                gravitonApi,
+                options,
+                gravitonApi.getEndpointManager(),
+                gravitonApi.getBaseUrl(),
                 instructionLoader,
-                new SchemaMapper(instantiateRuleFactory(config), new SchemaGenerator())
+                instantiateSchemaMapper(config, options),
+                true
         );
     }
 
+    /**
+     * Constructor for instructions which are not loaded from a Graviton instance, e.g. the ones of a snapshot.
+     *
+     * @param config The generator config
+     * @param options The generator options
+     * @param endpointManager The endpoint manager the generated classes are registered with
+     * @param instructionLoader The generator instruction loader which should be used
+     *
+     * @throws GeneratorException When the POJO generation fails
+     */
+    public Generator(
+            GenerationConfig config,
+            GeneratorOptions options,
+            EndpointManager endpointManager,
+            GeneratorInstructionLoader instructionLoader
+    ) throws GeneratorException {
+        this(config, options, endpointManager, null, instructionLoader, instantiateSchemaMapper(config, options), true);
+    }
+
     /**
      * Constructor
      *
@@ -77,11 +194,64 @@ public class Generator {
             GravitonApi gravitonApi,
             GeneratorInstructionLoader instructionLoader,
             SchemaMapper schemaMapper
+    ) {
+        this(config, new GeneratorOptions(), gravitonApi, instructionLoader, schemaMapper);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config The generator config
+     * @param options The generator options
+     * @param gravitonApi The gravitonApi instance to generate POJOs for
+     * @param instructionLoader The generator instruction loader which should be used
+     * @param schemaMapper The schema mapper to use for generating the POJOs
+     */
+    public Generator(
+            GenerationConfig config,
+            GeneratorOptions options,
+            GravitonApi gravitonApi,
+            GeneratorInstructionLoader instructionLoader,
+            SchemaMapper schemaMapper
+    ) {
+        this(
+                config,
+                options,
+                gravitonApi.getEndpointManager(),
+                gravitonApi.getBaseUrl(),
+                instructionLoader,
+                schemaMapper,
+                false
+        );
+    }
+
+    private Generator(
+            GenerationConfig config,
+            GeneratorOptions options,
+            EndpointManager endpointManager,
+            String gravitonUrl,
+            GeneratorInstructionLoader instructionLoader,
+            SchemaMapper schemaMapper,
+            boolean schemaMapperPerTask
     ) {
         this.config = config;
-        this.gravitonApi = gravitonApi;
+        this.options = options;
+        this.endpointManager = endpointManager;
+        this.gravitonUrl = gravitonUrl;
         this.instructionLoader = instructionLoader;
         this.schemaMapper = schemaMapper;
+        this.schemaMapperPerTask = schemaMapperPerTask;
+        this.fingerprintCalculator = new FingerprintCalculator(config, options);
+        this.coreTypes = options.isUseCoreTypes()
+                ? new CoreTypes(generatePackageName(config.getTargetPackage(), "core"))
+                : null;
+        this.codecModule = options.isGenerateCodecs() || options.isLazyProperties()
+                ? new CodecModuleGenerator(generatePackageName(config.getTargetPackage(), ""))
+                : null;
+        this.binaryCodecs = options.isGenerateBinaryCodecs()
+                ? new BinaryCodecsGenerator(generatePackageName(config.getTargetPackage(), ""))
+                : null;
+        this.views = createViews(config, options);
     }
 
     /**
@@ -90,64 +260,580 @@ public class Generator {
      * @throws GeneratorException If the POJO generation failed
      */
     public void generate() throws GeneratorException, CommunicationException {
-        List<GeneratorInstruction> generatorInstructions = instructionLoader.loadInstructions();
-        EndpointManager endpointManager = gravitonApi.getEndpointManager();
+        if (null != gravitonUrl) {
+            LOG.info("Generating POJO classes for Graviton '{}'.", gravitonUrl);
+        } else {
+            LOG.info("Generating POJO classes.");
+        }
 
-        LOG.info("Generating POJO classes for Graviton '{}'.", gravitonApi.getBaseUrl());
+        File resourceDirectory = new File(config.getTargetDirectory().getAbsolutePath() + "/gdk-resources");
+        File manifestFile = new File(resourceDirectory, "manifest.json");
+        GenerationRun run = new GenerationRun(
+                endpointManager,
+                GenerationManifest.load(manifestFile),
+                createCodeWriter(),
+                options.isGenerateEndpointRegistry()
+                        ? new EndpointRegistryGenerator(generatePackageName(config.getTargetPackage(), ""))
+                        : null
+        );
+        instructionLoader.setReport(run.report);
 
-        for (GeneratorInstruction definition : generatorInstructions) {
-            String className = definition.getClassName();
-            if (0 == className.length()) {
-                LOG.info(
-                        "Ignoring endpoint '{}' because it does not define any class.",
-                        definition.getEndpoint().getItemUrl()
-                );
-                continue;
-            }
+        int generationThreads = options.getGenerationThreads();
+        if (generationThreads > 1 && !schemaMapperPerTask) {
+            LOG.warn("A given schema mapper can't be shared between threads. Generating POJOs sequentially.");
+            generationThreads = 1;
+        }
+        if (options.getHeapBudget() > 0 && generationThreads <= 1) {
+            LOG.warn("The heap budget only applies to a concurrent generation. Ignoring it for a sequential one.");
+        }
 
-            if (endpointManager.shouldIgnoreEndpoint(definition.getEndpoint())) {
-                LOG.info(
-                        "Ignoring endpoint '{}' because of white- / blacklist configuration.",
-                        definition.getEndpoint().getItemUrl()
-                );
-                continue;
+        try {
+            if (null != coreTypes) {
+                writeCoreTypes(run);
             }
-
-            String packageName = generatePackageName(config.getTargetPackage(), definition.getPackageName());
-            JCodeModel codeModel = new JCodeModel();
+            if (null != views) {
+                writeViews(run);
+            }
+            // classes are generated while the remaining instructions are still being loaded
+            if (generationThreads > 1) {
+                generateConcurrently(run, generationThreads);
+            } else {
+                instructionLoader.streamInstructions(definition -> {
+                    GenerationTask task = prepare(definition, run);
+                    if (null != task) {
+                        Map<String, byte[]> sources = task.isUpToDate() ? null : generateSources(task, schemaMapper, run);
+                        complete(task, sources, run);
+                    }
+                });
+            }
+            keepFailedEndpoints(run);
+            if (null != run.endpointRegistry) {
+                writeEndpointRegistry(run, resourceDirectory);
+            }
+            if (null != codecModule) {
+                writeCodecModule(run, resourceDirectory);
+            }
+            if (null != binaryCodecs) {
+                writeBinaryCodecs(run);
+            }
+            deleteStaleFiles(run);
+        } finally {
             try {
-                schemaMapper.generate(codeModel, className, packageName, definition.getJsonSchema().toString());
-                codeModel.build(config.getTargetDirectory());
-            } catch (Throwable t) {
-                LOG.error(
-                        "Error on generating POJO based on '{}', class name '{}.{}'",
-                        definition.getEndpoint().getItemPath(),
-                        packageName,
-                        className,
-                        t
-                );
-               throw new GeneratorException("Unable to generate POJO.", t);
+                run.codeWriter.close();
+            } catch (IOException e) {
+                LOG.error("Unable to finish writing the generated POJOs.", e);
             }
+        }
 
-            endpointManager.addEndpoint(
-                    packageName + (packageName.length() > 0 ? '.' : "")  + definition.getClassName(),
-                    definition.getEndpoint()
+        if (null != options.getOutputArchive() && null != options.getClassesArchive()) {
+            new ArchiveCompiler(options.getCompileClasspath()).compile(
+                    options.getOutputArchive(),
+                    options.getClassesArchive()
             );
         }
+
+        try {
+            run.manifest.save(manifestFile);
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to persist generation manifest.", e);
+        }
+
         try {
             if (endpointManager instanceof GeneratedEndpointManager) {
-                String targetDirectory = config.getTargetDirectory().getAbsolutePath() + "/gdk-resources";
-                File targetFile = new File(targetDirectory);
-                if (!targetFile.isDirectory()) {
-                    targetFile.mkdir();
+                String targetDirectory = resourceDirectory.getAbsolutePath();
+                if (!resourceDirectory.isDirectory()) {
+                    resourceDirectory.mkdirs();
                 }
+                long start = System.nanoTime();
                 ((GeneratedEndpointManager) endpointManager).persist(
                         targetDirectory + "/assoc"
                 );
+                run.report.recordPhase(Phase.PERSIST, System.nanoTime() - start);
             }
         } catch (UnableToPersistEndpointAssociationsException e) {
             throw new GeneratorException("Unable to persist endpoint -> POJO association.", e);
         }
+
+        try {
+            run.report.write(new File(resourceDirectory, "report.json"));
+        } catch (IOException e) {
+            // the report is informational only, so the generation doesn't fail because of it
+            LOG.warn("Unable to write generation report.", e);
+        }
+    }
+
+    /**
+     * Creates the CodeWriter the generated files are written to.
+     *
+     * @return A CodeWriter writing into the output archive if one is configured, into the target directory otherwise.
+     *
+     * @throws GeneratorException If the output archive cannot be opened
+     */
+    private BufferingCodeWriter createCodeWriter() throws GeneratorException {
+        if (null == options.getOutputArchive()) {
+            return new WriteIfChangedCodeWriter(config.getTargetDirectory());
+        }
+        try {
+            return new ArchiveCodeWriter(options.getOutputArchive());
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to open output archive '" + options.getOutputArchive() + "'.", e);
+        }
+    }
+
+    /**
+     * Writes the sources of the core type classes and records them in the manifest.
+     *
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If the sources cannot be written
+     */
+    private void writeCoreTypes(GenerationRun run) throws GeneratorException {
+        try {
+            Map<String, byte[]> sources = coreTypes.getSources();
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                run.codeWriter.write(source.getKey(), source.getValue());
+            }
+            run.manifest.put(CoreTypes.MANIFEST_KEY, fingerprintCalculator.getConfigHash(), sources.keySet());
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write core type classes.", e);
+        }
+    }
+
+    /**
+     * Writes the sources of the view support classes and records them in the manifest.
+     *
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If the sources cannot be written
+     */
+    private void writeViews(GenerationRun run) throws GeneratorException {
+        try {
+            Map<String, byte[]> sources = views.getSources();
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                run.codeWriter.write(source.getKey(), source.getValue());
+            }
+            run.manifest.put(Views.MANIFEST_KEY, fingerprintCalculator.getConfigHash(), sources.keySet());
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write view support classes.", e);
+        }
+    }
+
+    /**
+     * Writes the source of the endpoint registry, records it in the manifest and registers the registry class as
+     * EndpointManager service in the resource directory.
+     *
+     * @param run The state of the current run.
+     * @param resourceDirectory The directory the assoc file is written to.
+     *
+     * @throws GeneratorException If the registry cannot be written
+     */
+    private void writeEndpointRegistry(GenerationRun run, File resourceDirectory) throws GeneratorException {
+        try {
+            Map<String, byte[]> sources = run.endpointRegistry.generateSources();
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                run.codeWriter.write(source.getKey(), source.getValue());
+            }
+            run.manifest.put(
+                    EndpointRegistryGenerator.MANIFEST_KEY,
+                    fingerprintCalculator.getConfigHash(),
+                    sources.keySet()
+            );
+
+            writeServiceFile(
+                    resourceDirectory,
+                    run.endpointRegistry.getServiceFilePath(),
+                    run.endpointRegistry.getFullClassName()
+            );
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write endpoint registry.", e);
+        }
+    }
+
+    /**
+     * Writes the source of the Jackson module registering the generated codecs of all endpoints, records it in the
+     * manifest and registers the module as Jackson Module service in the resource directory.
+     *
+     * @param run The state of the current run.
+     * @param resourceDirectory The directory the assoc file is written to.
+     *
+     * @throws GeneratorException If the module cannot be written
+     */
+    private void writeCodecModule(GenerationRun run, File resourceDirectory) throws GeneratorException {
+        try {
+            Map<String, byte[]> sources = codecModule.generateSources(run.manifest.getFiles());
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                run.codeWriter.write(source.getKey(), source.getValue());
+            }
+            run.manifest.put(
+                    CodecModuleGenerator.MANIFEST_KEY,
+                    fingerprintCalculator.getConfigHash(),
+                    sources.keySet()
+            );
+            writeServiceFile(resourceDirectory, codecModule.getServiceFilePath(), codecModule.getFullClassName());
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write codec module.", e);
+        }
+    }
+
+    /**
+     * Writes the source of the helper round-tripping the POJOs of all endpoints through their binary codecs and
+     * records it in the manifest.
+     *
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If the helper cannot be written
+     */
+    private void writeBinaryCodecs(GenerationRun run) throws GeneratorException {
+        try {
+            Map<String, byte[]> sources = binaryCodecs.generateSources(run.manifest.getFiles());
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                run.codeWriter.write(source.getKey(), source.getValue());
+            }
+            run.manifest.put(
+                    BinaryCodecsGenerator.MANIFEST_KEY,
+                    fingerprintCalculator.getConfigHash(),
+                    sources.keySet()
+            );
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write binary codecs helper.", e);
+        }
+    }
+
+    /**
+     * Writes a ServiceLoader provider configuration file.
+     *
+     * @param resourceDirectory The resource root.
+     * @param path The path of the service file, relative to the resource root.
+     * @param className The fully qualified name of the provider class.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    private void writeServiceFile(File resourceDirectory, String path, String className) throws IOException {
+        File serviceFile = new File(resourceDirectory, path);
+        Files.createDirectories(serviceFile.getParentFile().toPath());
+        Files.write(serviceFile.toPath(), (className + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generates the sources of multiple endpoints in parallel. Every task uses its own schema mapper, since the rule
+     * factory, its name helper and its schema store are not thread safe. The generated sources are written and
+     * registered in instruction order on the calling thread, so the output is identical to a sequential run.
+     *
+     * If a heap budget is configured, no further endpoint is submitted while the estimated heap usage of the endpoints
+     * in flight would exceed it. A single endpoint is always generated, even if it exceeds the budget on its own.
+     *
+     * @param run The state of the current run.
+     * @param generationThreads The number of generation threads.
+     *
+     * @throws GeneratorException If the POJO generation failed
+     */
+    private void generateConcurrently(GenerationRun run, int generationThreads)
+            throws GeneratorException, CommunicationException {
+        ExecutorService executor = Executors.newFixedThreadPool(generationThreads);
+        Deque<GenerationTask> pendingTasks = new ArrayDeque<>();
+        // limits the number of generated sources waiting to be written
+        int maxPendingTasks = 2 * generationThreads;
+        long heapBudget = options.getHeapBudget();
+        long[] pendingHeapUsage = {0};
+        try {
+            instructionLoader.streamInstructions(definition -> {
+                GenerationTask task = prepare(definition, run);
+                if (null == task) {
+                    return;
+                }
+                if (heapBudget > 0 && !task.isUpToDate()) {
+                    task.estimatedHeapUsage = estimateHeapUsage(task.schema);
+                }
+                while (heapBudget > 0
+                        && !pendingTasks.isEmpty()
+                        && pendingHeapUsage[0] + task.estimatedHeapUsage > heapBudget) {
+                    GenerationTask completedTask = pendingTasks.poll();
+                    complete(completedTask, run);
+                    pendingHeapUsage[0] -= completedTask.estimatedHeapUsage;
+                }
+                if (!task.isUpToDate()) {
+                    task.sources = executor.submit(
+                            () -> generateSources(task, instantiateSchemaMapper(config, options), run)
+                    );
+                }
+                pendingTasks.add(task);
+                pendingHeapUsage[0] += task.estimatedHeapUsage;
+                while (pendingTasks.size() > maxPendingTasks) {
+                    GenerationTask completedTask = pendingTasks.poll();
+                    complete(completedTask, run);
+                    pendingHeapUsage[0] -= completedTask.estimatedHeapUsage;
+                }
+            });
+            while (!pendingTasks.isEmpty()) {
+                complete(pendingTasks.poll(), run);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether a generator instruction needs to be processed at all and determines the class location and
+     * fingerprint.
+     *
+     * @param definition The generator instruction.
+     * @param run The state of the current run.
+     *
+     * @return The generation task or null if the instruction is ignored.
+     */
+    private GenerationTask prepare(GeneratorInstruction definition, GenerationRun run) {
+        if (0 == definition.getClassName().length()) {
+            LOG.info(
+                    "Ignoring endpoint '{}' because it does not define any class.",
+                    definition.getEndpoint().getItemUrl()
+            );
+            return null;
+        }
+
+        if (run.endpointManager.shouldIgnoreEndpoint(definition.getEndpoint())) {
+            LOG.info(
+                    "Ignoring endpoint '{}' because of white- / blacklist configuration.",
+                    definition.getEndpoint().getItemUrl()
+            );
+            return null;
+        }
+
+        if (null != coreTypes) {
+            // before the fingerprint is calculated, so it covers the mapping
+            coreTypes.apply(definition.getSchema());
+        }
+
+        String packageName = generatePackageName(config.getTargetPackage(), definition.getPackageName());
+        GenerationTask task = new GenerationTask(
+                definition,
+                packageName,
+                fingerprintCalculator.fingerprint(definition, packageName)
+        );
+        GenerationManifest.Entry previousEntry = run.previousManifest.get(task.endpointKey);
+        if (options.isIncremental() && isUpToDate(previousEntry, task.fingerprint, run)) {
+            LOG.debug("Endpoint '{}' did not change since the last run. Skipping...", task.endpointKey);
+            task.previousFiles = previousEntry.getFiles();
+            task.schema = null;
+        }
+        return task;
+    }
+
+    /**
+     * Generates the sources of a generation task in memory. The schema of the task is released afterwards, so only
+     * the generated sources stay reachable until they are written.
+     *
+     * @param task The generation task.
+     * @param schemaMapper The schema mapper to use. Must not be used by another thread at the same time.
+     * @param run The state of the current run.
+     *
+     * @return The content of the generated files by their path.
+     *
+     * @throws GeneratorException If the POJO generation failed
+     */
+    private Map<String, byte[]> generateSources(GenerationTask task, SchemaMapper schemaMapper, GenerationRun run)
+            throws GeneratorException {
+        JCodeModel codeModel = new JCodeModel();
+        if (schemaMapper.getRuleFactory() instanceof GravitonRuleFactory) {
+            ((GravitonRuleFactory) schemaMapper.getRuleFactory()).setSharedClassShapes(run.sharedClassShapes);
+        }
+        try {
+            long start = System.nanoTime();
+            if (schemaMapper instanceof GravitonSchemaMapper) {
+                ((GravitonSchemaMapper) schemaMapper).generate(
+                        codeModel,
+                        task.className,
+                        task.packageName,
+                        task.schema
+                );
+            } else {
+                schemaMapper.generate(
+                        codeModel,
+                        task.className,
+                        task.packageName,
+                        task.schema.toString()
+                );
+            }
+            run.report.recordPhase(task.endpointKey, Phase.SCHEMA_MAPPER_GENERATE, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+            codeModel.build(codeWriter);
+            Map<String, byte[]> sources = codeWriter.getFiles();
+            run.report.recordPhase(task.endpointKey, Phase.CODE_MODEL_BUILD, System.nanoTime() - start);
+
+            long bytes = 0;
+            for (byte[] source : sources.values()) {
+                bytes += source.length;
+            }
+            run.report.recordOutput(task.endpointKey, task.getFullClassName(), sources.size(), bytes);
+            return sources;
+        } catch (Throwable t) {
+            LOG.error(
+                    "Error on generating POJO based on '{}', class name '{}.{}'",
+                    task.endpoint.getItemPath(),
+                    task.packageName,
+                    task.className,
+                    t
+            );
+           throw new GeneratorException("Unable to generate POJO.", t);
+        } finally {
+            task.schema = null;
+        }
+    }
+
+    /**
+     * Waits for the sources of a concurrently generated task and completes it.
+     *
+     * @param task The generation task.
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If the POJO generation failed
+     */
+    private void complete(GenerationTask task, GenerationRun run) throws GeneratorException {
+        Map<String, byte[]> sources = null;
+        if (!task.isUpToDate()) {
+            try {
+                sources = task.sources.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GeneratorException("Interrupted while generating POJOs.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof GeneratorException) {
+                    throw (GeneratorException) e.getCause();
+                }
+                throw new GeneratorException("Unable to generate POJO.", e.getCause());
+            }
+        }
+        complete(task, sources, run);
+    }
+
+    /**
+     * Writes the generated sources of a task, records them in the manifest and registers the class at the endpoint
+     * manager.
+     *
+     * @param task The generation task.
+     * @param sources The generated sources or null if the endpoint is up to date.
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If the sources cannot be written
+     */
+    private void complete(GenerationTask task, Map<String, byte[]> sources, GenerationRun run)
+            throws GeneratorException {
+        if (null == sources) {
+            run.manifest.put(task.endpointKey, task.getFullClassName(), task.fingerprint, task.previousFiles);
+        } else {
+            long start = System.nanoTime();
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                try {
+                    run.codeWriter.write(source.getKey(), source.getValue());
+                } catch (IOException e) {
+                    throw new GeneratorException("Unable to write generated POJO '" + source.getKey() + "'.", e);
+                }
+            }
+            run.manifest.put(task.endpointKey, task.getFullClassName(), task.fingerprint, sources.keySet());
+            run.report.recordPhase(task.endpointKey, Phase.WRITE, System.nanoTime() - start);
+        }
+
+        run.endpointManager.addEndpoint(task.getFullClassName(), task.endpoint);
+        if (null != run.endpointRegistry) {
+            run.endpointRegistry.addEndpoint(task.getFullClassName(), task.endpoint);
+        }
+    }
+
+    /**
+     * Checks whether the files of an endpoint were generated from an instruction with the given fingerprint and all
+     * of them still exist.
+     *
+     * @param previousEntry The manifest entry of the endpoint from the previous run. May be null.
+     * @param fingerprint The fingerprint of the current instruction.
+     * @param run The state of the current run.
+     *
+     * @return true if the endpoint does not need to be generated again.
+     */
+    private boolean isUpToDate(GenerationManifest.Entry previousEntry, String fingerprint, GenerationRun run) {
+        if (null == previousEntry || !fingerprint.equals(previousEntry.getFingerprint())) {
+            return false;
+        }
+        for (String file : previousEntry.getFiles()) {
+            if (!run.codeWriter.exists(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carries the manifest entries of the endpoints whose instructions couldn't be loaded over from the previous run
+     * and registers their classes again, so a temporarily unreachable profile doesn't remove the classes of its
+     * endpoint.
+     *
+     * @param run The state of the current run.
+     */
+    private void keepFailedEndpoints(GenerationRun run) {
+        for (Endpoint endpoint : instructionLoader.getFailedEndpoints()) {
+            String endpointKey = endpoint.getItemUrl();
+            GenerationManifest.Entry previousEntry = run.previousManifest.get(endpointKey);
+            if (null == previousEntry || null != run.manifest.get(endpointKey)) {
+                continue;
+            }
+            LOG.warn("Unable to load endpoint '{}'. Keeping the classes of the previous run.", endpointKey);
+            run.manifest.put(
+                    endpointKey,
+                    previousEntry.getClassName(),
+                    previousEntry.getFingerprint(),
+                    previousEntry.getFiles()
+            );
+            if (null != previousEntry.getClassName()) {
+                run.endpointManager.addEndpoint(previousEntry.getClassName(), endpoint);
+                if (null != run.endpointRegistry) {
+                    run.endpointRegistry.addEndpoint(previousEntry.getClassName(), endpoint);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all files which were generated by the previous run but not by this one, e.g. because an endpoint was
+     * removed or a property does no longer define a sub class. The files of endpoints which failed to load are kept
+     * (see {@link #keepFailedEndpoints(GenerationRun)}).
+     *
+     * @param run The state of the current run.
+     *
+     * @throws GeneratorException If a file cannot be deleted
+     */
+    private void deleteStaleFiles(GenerationRun run) throws GeneratorException {
+        Set<String> staleFiles = run.previousManifest.getFiles();
+        staleFiles.removeAll(run.manifest.getFiles());
+        for (String staleFile : staleFiles) {
+            try {
+                if (run.codeWriter.delete(staleFile)) {
+                    LOG.info("Deleted '{}' since it is no longer generated.", staleFile);
+                }
+            } catch (IOException e) {
+                throw new GeneratorException("Unable to delete stale file '" + staleFile + "'.", e);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap needed while the classes of a schema are generated, based on the number of schema nodes.
+     *
+     * @param schema The schema.
+     *
+     * @return The estimated number of bytes.
+     */
+    private static long estimateHeapUsage(JsonNode schema) {
+        long nodes = 0;
+        Deque<JsonNode> pendingNodes = new ArrayDeque<>();
+        pendingNodes.push(schema);
+        while (!pendingNodes.isEmpty()) {
+            JsonNode node = pendingNodes.pop();
+            nodes++;
+            for (Iterator<JsonNode> children = node.elements(); children.hasNext();) {
+                pendingNodes.push(children.next());
+            }
+        }
+        return nodes * ESTIMATED_HEAP_BYTES_PER_SCHEMA_NODE;
     }
 
     /**
@@ -158,7 +844,7 @@ public class Generator {
      *
      * @return The generated package name.
      */
-    private String generatePackageName(String rootPackage, String subPackage) {
+    private static String generatePackageName(String rootPackage, String subPackage) {
         String packageName = "";
         if (null != rootPackage && rootPackage.length() > 1) {
             packageName += rootPackage;
@@ -169,16 +855,45 @@ public class Generator {
         return packageName;
     }
 
+    /**
+     * Creates the runtime support of the flyweight views, in the 'view' sub-package of the target package.
+     *
+     * @param config The generation config
+     * @param options The generator options
+     *
+     * @return The view support or null if no views are generated.
+     */
+    private static Views createViews(GenerationConfig config, GeneratorOptions options) {
+        return options.isGenerateViews() ? new Views(generatePackageName(config.getTargetPackage(), "view")) : null;
+    }
+
+    /**
+     * Instantiates a schema mapper corresponding to a given generation config.
+     *
+     * @param config The generation config
+     * @param options The generator options
+     *
+     * @return The schema mapper
+     *
+     * @throws GeneratorException If the rule factory cannot be created.
+     */
+    private static SchemaMapper instantiateSchemaMapper(GenerationConfig config, GeneratorOptions options)
+            throws GeneratorException {
+        return new GravitonSchemaMapper(instantiateRuleFactory(config, options), new SchemaGenerator());
+    }
+
     /**
      * Instantiates a rule factory corresponding to a given generation config.
      *
      * @param config The generation config
+     * @param options The generator options
      *
      * @return The rule factory
      *
      * @throws GeneratorException If the rule factory cannot be created.
      */
-    private static RuleFactory instantiateRuleFactory(GenerationConfig config) throws GeneratorException {
+    private static RuleFactory instantiateRuleFactory(GenerationConfig config, GeneratorOptions options)
+            throws GeneratorException {
         AnnotatorFactory annotatorFactory = new AnnotatorFactory(config);
         Annotator annotator = annotatorFactory.getAnnotator(
                 annotatorFactory.getAnnotator(config.getAnnotationStyle()),
@@ -192,7 +907,124 @@ public class Generator {
         }
         ruleFactory.setAnnotator(annotator);
         ruleFactory.setGenerationConfig(config);
+        if (ruleFactory instanceof GravitonRuleFactory) {
+            GravitonRuleFactory gravitonRuleFactory = (GravitonRuleFactory) ruleFactory;
+            gravitonRuleFactory.setDeduplicateTypes(options.isDeduplicateTypes());
+            gravitonRuleFactory.setSharedPackageName(generatePackageName(config.getTargetPackage(), "shared"));
+            gravitonRuleFactory.setGenerateCodecs(options.isGenerateCodecs() || options.isLazyProperties());
+            gravitonRuleFactory.setLazyProperties(options.isLazyProperties());
+            gravitonRuleFactory.setLazyCollections(options.isLazyCollections());
+            gravitonRuleFactory.setPrimitiveProperties(options.isPrimitiveProperties());
+            gravitonRuleFactory.setGenerateBinaryCodecs(options.isGenerateBinaryCodecs());
+            Views views = createViews(config, options);
+            gravitonRuleFactory.setViewIndexClassName(null == views ? null : views.getIndexClassName());
+        }
         return ruleFactory;
     }
 
+    /**
+     * The state of a single generate() call.
+     */
+    private static class GenerationRun {
+
+        private final EndpointManager endpointManager;
+
+        /**
+         * The manifest of the previous run.
+         */
+        private final GenerationManifest previousManifest;
+
+        /**
+         * The manifest of this run, the generated files are recorded there.
+         */
+        private final GenerationManifest manifest = new GenerationManifest();
+
+        /**
+         * Writes the generated files to their destination.
+         */
+        private final BufferingCodeWriter codeWriter;
+
+        /**
+         * Collects durations and sizes of this run.
+         */
+        private final GenerationReport report = new GenerationReport();
+
+        /**
+         * Collects the endpoints of the registry class. Null if no registry is generated.
+         */
+        private final EndpointRegistryGenerator endpointRegistry;
+
+        /**
+         * The canonical forms of the schemas of the shared classes by their structural hash, shared by the rule
+         * factories of all generation tasks.
+         */
+        private final Map<String, String> sharedClassShapes = new ConcurrentHashMap<>();
+
+        private GenerationRun(
+                EndpointManager endpointManager,
+                GenerationManifest previousManifest,
+                BufferingCodeWriter codeWriter,
+                EndpointRegistryGenerator endpointRegistry
+        ) {
+            this.endpointManager = endpointManager;
+            this.previousManifest = previousManifest;
+            this.codeWriter = codeWriter;
+            this.endpointRegistry = endpointRegistry;
+        }
+    }
+
+    /**
+     * A generator instruction which is going to be generated.
+     */
+    private static class GenerationTask {
+
+        private final String className;
+
+        private final Endpoint endpoint;
+
+        /**
+         * The schema of the endpoint. Released as soon as the classes are built or if the endpoint is up to date.
+         */
+        private volatile JsonNode schema;
+
+        private final String packageName;
+
+        private final String endpointKey;
+
+        private final String fingerprint;
+
+        /**
+         * The files of the previous run if the endpoint is up to date, null otherwise.
+         */
+        private Collection<String> previousFiles;
+
+        /**
+         * The sources while they are generated concurrently.
+         */
+        private Future<Map<String, byte[]>> sources;
+
+        /**
+         * The estimated heap usage while the task is in flight. Only determined for a concurrent generation with a
+         * heap budget.
+         */
+        private long estimatedHeapUsage;
+
+        private GenerationTask(GeneratorInstruction definition, String packageName, String fingerprint) {
+            this.className = definition.getClassName();
+            this.endpoint = definition.getEndpoint();
+            this.schema = definition.getSchema();
+            this.packageName = packageName;
+            this.endpointKey = definition.getEndpoint().getItemUrl();
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isUpToDate() {
+            return null != previousFiles;
+        }
+
+        private String getFullClassName() {
+            return packageName + (packageName.length() > 0 ? '.' : "")  + className;
+        }
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.github.libgraviton.gdk.generator;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
 import org.json.JSONObject;
 
@@ -8,6 +11,8 @@ import org.json.JSONObject;
  */
 public class GeneratorInstruction {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     /**
      * The name of the generated class.
      */
@@ -21,7 +26,7 @@ public class GeneratorInstruction {
     /**
      * The jsonschema of the endpoint. Will be passed to the generator to create the class.
      */
-    private final JSONObject jsonSchema;
+    private final JsonNode schema;
 
     /**
      * The endpoint for which classes will be generated.
@@ -33,16 +38,28 @@ public class GeneratorInstruction {
      *
      * @param className The name of the generated class.
      * @param packageName The sub-package name of the generated class.
-     * @param jsonSchema The jsonschema of the endpoint.
+     * @param schema The jsonschema of the endpoint.
      * @param endpoint The endpoint itself
      */
-    public GeneratorInstruction(String className, String packageName, JSONObject jsonSchema, Endpoint endpoint) {
+    public GeneratorInstruction(String className, String packageName, JsonNode schema, Endpoint endpoint) {
         this.className = className;
         this.packageName = packageName;
-        this.jsonSchema = jsonSchema;
+        this.schema = schema;
         this.endpoint = endpoint;
     }
 
+    /**
+     * Constructor. Initializes all the things.
+     *
+     * @param className The name of the generated class.
+     * @param packageName The sub-package name of the generated class.
+     * @param schema The jsonschema of the endpoint.
+     * @param endpoint The endpoint itself
+     */
+    public GeneratorInstruction(String className, String packageName, JSONObject schema, Endpoint endpoint) {
+        this(className, packageName, toJsonNode(schema), endpoint);
+    }
+
     /**
      * Gets the name of the generated class.
      *
@@ -66,8 +83,20 @@ public class GeneratorInstruction {
      *
      * @return The jsonschema of the endpoint.
      */
+    public JsonNode getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets a copy of the jsonschema of the endpoint as JSONObject.
+     *
+     * @return The jsonschema of the endpoint.
+     *
+     * @deprecated Converts the schema on every call. Use {@link #getSchema()} instead.
+     */
+    @Deprecated
     public JSONObject getJsonSchema() {
-        return jsonSchema;
+        return new JSONObject(schema.toString());
     }
 
     /**
@@ -78,4 +107,19 @@ public class GeneratorInstruction {
     public Endpoint getEndpoint() {
         return endpoint;
     }
+
+    /**
+     * Converts a JSONObject to a JsonNode.
+     *
+     * @param schema The JSONObject.
+     *
+     * @return The JsonNode.
+     */
+    private static JsonNode toJsonNode(JSONObject schema) {
+        try {
+            return OBJECT_MAPPER.readTree(schema.toString());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid json schema.", e);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.github.libgraviton.gdk.generator;
+
+import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+
+/**
+ * Receives generator instructions one by one while they are being loaded.
+ */
+@FunctionalInterface
+public interface GeneratorInstructionConsumer {
+
+    /**
+     * Processes a single generator instruction.
+     *
+     * @param instruction The generator instruction.
+     *
+     * @throws GeneratorException If the instruction cannot be processed. Loading of further instructions is stopped.
+     */
+    void accept(GeneratorInstruction instruction) throws GeneratorException;
+
+}
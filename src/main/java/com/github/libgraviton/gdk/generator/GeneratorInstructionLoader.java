@@ -1,7 +1,11 @@
 package com.github.libgraviton.gdk.generator;
 
+import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+import com.github.libgraviton.gdk.generator.report.GenerationReport;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
 import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -28,4 +32,44 @@ public interface GeneratorInstructionLoader {
      */
     List<GeneratorInstruction> loadInstructions(boolean reload) throws CommunicationException;
 
+    /**
+     * Loads all generator instructions and passes them one by one to the given consumer, in the same order as
+     * {@link #loadInstructions()} returns them. Implementations may hand over instructions while further instructions
+     * are still being loaded and should only keep a bounded number of instructions in memory.
+     *
+     * The default implementation loads the complete instruction set first.
+     *
+     * @param consumer The consumer receiving the instructions.
+     *
+     * @throws GeneratorException If the consumer fails to process an instruction.
+     */
+    default void streamInstructions(GeneratorInstructionConsumer consumer)
+            throws CommunicationException, GeneratorException {
+        for (GeneratorInstruction instruction : loadInstructions()) {
+            consumer.accept(instruction);
+        }
+    }
+
+    /**
+     * Sets the report where the loader records how long loading took and how much was downloaded. Loaders which
+     * don't measure anything may ignore it, which is what the default implementation does.
+     *
+     * @param report The generation report.
+     */
+    default void setReport(GenerationReport report) {
+    }
+
+    /**
+     * Gets the endpoints which are listed by the source, but whose instructions couldn't be loaded by the last call of
+     * {@link #loadInstructions(boolean)} or {@link #streamInstructions(GeneratorInstructionConsumer)}, e.g. because
+     * their profile couldn't be fetched. The generator keeps the classes of these endpoints from its previous run.
+     *
+     * The default implementation reports no such endpoints.
+     *
+     * @return The endpoints which failed to load.
+     */
+    default List<Endpoint> getFailedEndpoints() {
+        return Collections.emptyList();
+    }
+
 }
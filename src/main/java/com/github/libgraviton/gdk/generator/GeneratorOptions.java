@@ -0,0 +1,289 @@
+package com.github.libgraviton.gdk.generator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of the generator which jsonschema2pojo's GenerationConfig doesn't cover. Some of them only control how the
+ * instructions are processed (e.g. incremental, generationThreads, heapBudget, the archives). Others change what is
+ * generated: the type deduplication, the core types, the endpoint registry, the codecs, the lazy and primitive
+ * properties and the views.
+ */
+public class GeneratorOptions {
+
+    /**
+     * Whether endpoints whose fingerprint did not change since the last run are skipped.
+     */
+    private boolean incremental = false;
+
+    /**
+     * The number of endpoints generated in parallel.
+     */
+    private int generationThreads = 1;
+
+    /**
+     * The zip / jar archive the sources are written to. Null to write them into the target directory.
+     */
+    private File outputArchive;
+
+    /**
+     * The jar the sources of the output archive are compiled into. Null to skip compilation.
+     */
+    private File classesArchive;
+
+    /**
+     * The class path used to compile the generated sources.
+     */
+    private List<File> compileClasspath = new ArrayList<>();
+
+    /**
+     * The heap in bytes the endpoints in flight may use at most. 0 for no limit. Only applies when generationThreads
+     * is greater than 1.
+     */
+    private long heapBudget = 0;
+
+    /**
+     * Whether structurally identical nested objects share a single class.
+     */
+    private boolean deduplicateTypes = false;
+
+    /**
+     * Whether the well-known Graviton core types are mapped to the provided core type classes.
+     */
+    private boolean useCoreTypes = false;
+
+    /**
+     * Whether a registry class holding the class to endpoint associations is generated.
+     */
+    private boolean generateEndpointRegistry = false;
+
+    /**
+     * Whether a Jackson serializer and deserializer is generated for every class.
+     */
+    private boolean generateCodecs = false;
+
+    /**
+     * Whether integer, number and boolean properties are stored in primitive fields.
+     */
+    private boolean primitiveProperties = false;
+
+    /**
+     * Whether the collections and the additional properties map are allocated on first write.
+     */
+    private boolean lazyCollections = false;
+
+    /**
+     * Whether the classes keep the raw JSON and decode their properties on first access.
+     */
+    private boolean lazyProperties = false;
+
+    /**
+     * Whether a binary codec is generated for every class.
+     */
+    private boolean generateBinaryCodecs = false;
+
+    /**
+     * Whether a flyweight view is generated for every class.
+     */
+    private boolean generateViews = false;
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public int getGenerationThreads() {
+        return generationThreads;
+    }
+
+    /**
+     * Sets the number of endpoints generated in parallel. Values below 2 generate one endpoint after another.
+     *
+     * @param generationThreads The number of generation threads.
+     */
+    public void setGenerationThreads(int generationThreads) {
+        this.generationThreads = generationThreads;
+    }
+
+    public File getOutputArchive() {
+        return outputArchive;
+    }
+
+    public void setOutputArchive(File outputArchive) {
+        this.outputArchive = outputArchive;
+    }
+
+    public File getClassesArchive() {
+        return classesArchive;
+    }
+
+    /**
+     * Sets the jar the generated sources are compiled into. Only used together with an output archive.
+     *
+     * @param classesArchive The classes jar.
+     */
+    public void setClassesArchive(File classesArchive) {
+        this.classesArchive = classesArchive;
+    }
+
+    public List<File> getCompileClasspath() {
+        return compileClasspath;
+    }
+
+    public void setCompileClasspath(List<File> compileClasspath) {
+        this.compileClasspath = compileClasspath;
+    }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Sets the heap the endpoints in flight may use at most. The heap usage of an endpoint is estimated from the size
+     * of its schema. Only applies when generationThreads is greater than 1: a sequential generation keeps a single
+     * endpoint in flight anyway, so there is nothing to defer and the budget is ignored.
+     *
+     * @param heapBudget The heap budget in bytes. 0 for no limit.
+     */
+    public void setHeapBudget(long heapBudget) {
+        this.heapBudget = heapBudget;
+    }
+
+    public boolean isDeduplicateTypes() {
+        return deduplicateTypes;
+    }
+
+    /**
+     * Sets whether structurally identical nested objects of all endpoints share a single class in the 'shared'
+     * sub-package of the target package. Only has an effect with the GravitonRuleFactory.
+     *
+     * @param deduplicateTypes Whether nested types are deduplicated.
+     */
+    public void setDeduplicateTypes(boolean deduplicateTypes) {
+        this.deduplicateTypes = deduplicateTypes;
+    }
+
+    public boolean isUseCoreTypes() {
+        return useCoreTypes;
+    }
+
+    /**
+     * Sets whether sub-schemas having the shape of a Graviton core type (translatable, extref) are mapped to the
+     * provided core type classes instead of generating a class for every one of them. The core type classes are
+     * written into the 'core' sub-package of the target package.
+     *
+     * @param useCoreTypes Whether the core types are used.
+     */
+    public void setUseCoreTypes(boolean useCoreTypes) {
+        this.useCoreTypes = useCoreTypes;
+    }
+
+    public boolean isGenerateEndpointRegistry() {
+        return generateEndpointRegistry;
+    }
+
+    /**
+     * Sets whether the class to endpoint associations are also generated as registry class in the target package,
+     * registered as EndpointManager service. The assoc file is written in any case.
+     *
+     * @param generateEndpointRegistry Whether the endpoint registry is generated.
+     */
+    public void setGenerateEndpointRegistry(boolean generateEndpointRegistry) {
+        this.generateEndpointRegistry = generateEndpointRegistry;
+    }
+
+    public boolean isGenerateCodecs() {
+        return generateCodecs;
+    }
+
+    /**
+     * Sets whether a reflection-free Jackson serializer and deserializer is generated for every class, together with
+     * the module 'GeneratedCodecModule' in the target package which registers all of them. Only has an effect with
+     * the GravitonRuleFactory and a Jackson annotation style.
+     *
+     * @param generateCodecs Whether the codecs are generated.
+     */
+    public void setGenerateCodecs(boolean generateCodecs) {
+        this.generateCodecs = generateCodecs;
+    }
+
+    public boolean isPrimitiveProperties() {
+        return primitiveProperties;
+    }
+
+    /**
+     * Sets whether the integer, number and boolean properties of the classes are stored in primitive fields instead
+     * of boxed ones, with a long bitset per class tracking which of them are set. Getters and setters keep the boxed
+     * types and null. Only has an effect with the GravitonRuleFactory.
+     *
+     * @param primitiveProperties Whether primitive fields are generated.
+     */
+    public void setPrimitiveProperties(boolean primitiveProperties) {
+        this.primitiveProperties = primitiveProperties;
+    }
+
+    public boolean isLazyCollections() {
+        return lazyCollections;
+    }
+
+    /**
+     * Sets whether the collections and the map of the additional properties of the classes are only allocated when
+     * they are written, their getters return shared immutable empty ones meanwhile. The generated codecs allocate
+     * the collections read from JSON for the number of their items. Only has an effect with the GravitonRuleFactory.
+     *
+     * @param lazyCollections Whether the collections are allocated lazily.
+     */
+    public void setLazyCollections(boolean lazyCollections) {
+        this.lazyCollections = lazyCollections;
+    }
+
+    public boolean isLazyProperties() {
+        return lazyProperties;
+    }
+
+    /**
+     * Sets whether the classes keep the raw JSON of a document read by their generated deserializer and decode a
+     * property only on the first access of its getter. Unchanged documents are written by copying the raw JSON.
+     * Implies the generation of the codecs (see {@link #setGenerateCodecs(boolean)}).
+     *
+     * @param lazyProperties Whether the properties are decoded lazily.
+     */
+    public void setLazyProperties(boolean lazyProperties) {
+        this.lazyProperties = lazyProperties;
+    }
+
+    public boolean isGenerateBinaryCodecs() {
+        return generateBinaryCodecs;
+    }
+
+    /**
+     * Sets whether a binary codec, writing the properties by field id instead of by name, is generated for every
+     * class, together with the helper 'GeneratedBinaryCodecs' in the target package which encodes and decodes the
+     * POJOs with a given binary ObjectMapper (e.g. Smile or CBOR). Only has an effect with the GravitonRuleFactory
+     * and a Jackson annotation style.
+     *
+     * @param generateBinaryCodecs Whether the binary codecs are generated.
+     */
+    public void setGenerateBinaryCodecs(boolean generateBinaryCodecs) {
+        this.generateBinaryCodecs = generateBinaryCodecs;
+    }
+
+    public boolean isGenerateViews() {
+        return generateViews;
+    }
+
+    /**
+     * Sets whether a read-only flyweight view is generated for every class, which reads the properties of a JSON
+     * document lazily from a byte buffer. The DocumentIndex class the views depend on is written into the 'view'
+     * sub-package of the target package. Only has an effect with the GravitonRuleFactory.
+     *
+     * @param generateViews Whether the views are generated.
+     */
+    public void setGenerateViews(boolean generateViews) {
+        this.generateViews = generateViews;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.libgraviton.gdk.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.libgraviton.gdk.generator.rules.DocumentScopedSchemaStore;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JType;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.SchemaGenerator;
+import org.jsonschema2pojo.SchemaMapper;
+import org.jsonschema2pojo.SourceType;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+import java.io.IOException;
+
+/**
+ * Schema mapper which accepts an already parsed schema, so the schema doesn't have to be serialized and parsed again.
+ */
+public class GravitonSchemaMapper extends SchemaMapper {
+
+    private final RuleFactory ruleFactory;
+
+    /**
+     * Constructor
+     *
+     * @param ruleFactory The rule factory used to generate the classes
+     * @param schemaGenerator The schema generator used for example based source types
+     */
+    public GravitonSchemaMapper(RuleFactory ruleFactory, SchemaGenerator schemaGenerator) {
+        super(ruleFactory, schemaGenerator);
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Generates the classes of a given schema.
+     *
+     * @param codeModel The code model the classes are added to
+     * @param className The name of the root class
+     * @param packageName The package of the root class
+     * @param schemaNode The parsed schema
+     *
+     * @return The type of the root class
+     */
+    public JType generate(JCodeModel codeModel, String className, String packageName, JsonNode schemaNode)
+            throws IOException {
+        if (SourceType.JSONSCHEMA != ruleFactory.getGenerationConfig().getSourceType()) {
+            // example based and yaml sources need the conversion done by the default implementation
+            return generate(codeModel, className, packageName, schemaNode.toString());
+        }
+
+        openDocument(className, packageName);
+        try {
+            return ruleFactory.getSchemaRule().apply(
+                    className,
+                    schemaNode,
+                    null,
+                    codeModel._package(packageName),
+                    new Schema(null, schemaNode, null)
+            );
+        } finally {
+            closeDocument();
+        }
+    }
+
+    @Override
+    public JType generate(JCodeModel codeModel, String className, String packageName, String schemaContent)
+            throws IOException {
+        openDocument(className, packageName);
+        try {
+            return super.generate(codeModel, className, packageName, schemaContent);
+        } finally {
+            closeDocument();
+        }
+    }
+
+    /**
+     * Starts a new document in the schema store, so the fragments of this schema are cached separately.
+     *
+     * @param className The name of the root class
+     * @param packageName The package of the root class
+     */
+    private void openDocument(String className, String packageName) {
+        if (ruleFactory.getSchemaStore() instanceof DocumentScopedSchemaStore) {
+            ((DocumentScopedSchemaStore) ruleFactory.getSchemaStore()).openDocument(
+                    packageName.isEmpty() ? className : packageName + '.' + className
+            );
+        }
+    }
+
+    private void closeDocument() {
+        if (ruleFactory.getSchemaStore() instanceof DocumentScopedSchemaStore) {
+            ((DocumentScopedSchemaStore) ruleFactory.getSchemaStore()).closeDocument();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.libgraviton.gdk.generator.coretypes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The Graviton core types for which a hand written class is provided. Every core type detects the sub-schemas it
+ * replaces by their shape.
+ */
+public enum CoreType {
+
+    /**
+     * A translatable string: an object whose properties are all language codes of type string. Since short field
+     * names like "id" look like language codes as well, an object which isn't marked as translatable by Graviton has
+     * to contain the default language "en" and must not contain such a field name.
+     */
+    TRANSLATABLE("Translatable") {
+        @Override
+        public boolean matches(JsonNode schema) {
+            JsonNode properties = schema.get("properties");
+            if (!isObject(schema) || null == properties || 0 == properties.size()) {
+                return false;
+            }
+            boolean marked = schema.path(TRANSLATABLE_MARKER).asBoolean();
+            if (!marked && !properties.has(DEFAULT_LANGUAGE)) {
+                return false;
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> it = properties.fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> property = it.next();
+                if (!LANGUAGE_CODE.matcher(property.getKey()).matches()
+                        || (!marked && FIELD_NAMES.contains(property.getKey()))
+                        || !isString(property.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    },
+
+    /**
+     * An extref: an object with the single string property "$ref".
+     */
+    EXTREF("ExtReference") {
+        @Override
+        public boolean matches(JsonNode schema) {
+            JsonNode properties = schema.get("properties");
+            return isObject(schema)
+                    && null != properties
+                    && 1 == properties.size()
+                    && properties.has("$ref")
+                    // Graviton declares the reference with "format": "extref"
+                    && hasType(properties.get("$ref"), "string");
+        }
+    };
+
+    private static final Pattern LANGUAGE_CODE = Pattern.compile("[a-z]{2}(_[A-Za-z]{2})?");
+
+    /**
+     * The keyword Graviton marks the schema of a translatable field with.
+     */
+    private static final String TRANSLATABLE_MARKER = "translatable";
+
+    /**
+     * The default language of Graviton, every translatable holds it.
+     */
+    private static final String DEFAULT_LANGUAGE = "en";
+
+    /**
+     * Common field names which look like language codes.
+     */
+    private static final Set<String> FIELD_NAMES = new HashSet<>(Arrays.asList("id", "no", "ok", "to", "at", "by"));
+
+    private final String className;
+
+    CoreType(String className) {
+        this.className = className;
+    }
+
+    /**
+     * Gets the simple name of the class provided for this core type.
+     *
+     * @return The class name.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Checks whether a sub-schema has the shape of this core type.
+     *
+     * @param schema The sub-schema.
+     *
+     * @return true if the sub-schema can be replaced by the core type.
+     */
+    public abstract boolean matches(JsonNode schema);
+
+    private static boolean isObject(JsonNode schema) {
+        return hasType(schema, "object") && !schema.has("javaType") && !schema.has("existingJavaType");
+    }
+
+    private static boolean isString(JsonNode schema) {
+        return hasType(schema, "string") && !schema.has("enum") && !schema.has("format");
+    }
+
+    /**
+     * Checks whether the type of a schema is the given type, optionally combined with "null".
+     */
+    private static boolean hasType(JsonNode schema, String type) {
+        JsonNode typeNode = schema.get("type");
+        if (null == typeNode) {
+            return false;
+        }
+        if (typeNode.isTextual()) {
+            return type.equals(typeNode.asText());
+        }
+        boolean found = false;
+        for (JsonNode element : typeNode) {
+            if (type.equals(element.asText())) {
+                found = true;
+            } else if (!"null".equals(element.asText())) {
+                return false;
+            }
+        }
+        return found;
+    }
+}
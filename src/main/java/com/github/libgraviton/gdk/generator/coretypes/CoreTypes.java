@@ -0,0 +1,131 @@
+package com.github.libgraviton.gdk.generator.coretypes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps the well-known shapes of Graviton core types to hand written classes. Matching sub-schemas get an
+ * "existingJavaType" pointing to the core type class, so the schema mapper references the class instead of generating
+ * one per field. The sources of the core type classes are provided by {@link #getSources()} and need to be written
+ * along with the generated classes.
+ */
+public class CoreTypes {
+
+    /**
+     * The key under which the core type sources are recorded in the generation manifest.
+     */
+    public static final String MANIFEST_KEY = "gdk:core-types";
+
+    private static final String PACKAGE_PLACEHOLDER = "${package}";
+
+    /**
+     * The package of the core type classes.
+     */
+    private final String packageName;
+
+    /**
+     * Constructor
+     *
+     * @param packageName The package of the core type classes.
+     */
+    public CoreTypes(String packageName) {
+        this.packageName = packageName;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Sets the "existingJavaType" of all sub-schemas of a schema which have the shape of a core type. The root schema
+     * itself is never replaced. The schema is modified in place.
+     *
+     * @param schema The schema.
+     *
+     * @return The number of replaced sub-schemas.
+     */
+    public int apply(JsonNode schema) {
+        int replaced = 0;
+        Deque<JsonNode> pendingNodes = new ArrayDeque<>();
+        addChildren(schema, pendingNodes);
+        while (!pendingNodes.isEmpty()) {
+            JsonNode node = pendingNodes.pop();
+            CoreType coreType = node.isObject() ? determineCoreType(node) : null;
+            if (null != coreType) {
+                ((ObjectNode) node).put("existingJavaType", getFullClassName(coreType));
+                replaced++;
+            } else {
+                addChildren(node, pendingNodes);
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Gets the sources of all core type classes.
+     *
+     * @return The content of the source files by their path, relative to the output root and separated by '/'.
+     *
+     * @throws IOException If a source template cannot be read.
+     */
+    public Map<String, byte[]> getSources() throws IOException {
+        Map<String, byte[]> sources = new LinkedHashMap<>();
+        String directory = packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/';
+        for (CoreType coreType : CoreType.values()) {
+            String source = readTemplate(coreType.getClassName() + ".java.template");
+            if (packageName.isEmpty()) {
+                source = source.replace("package " + PACKAGE_PLACEHOLDER + ";\n\n", "");
+            }
+            source = source.replace(PACKAGE_PLACEHOLDER, packageName);
+            sources.put(directory + coreType.getClassName() + ".java", source.getBytes(StandardCharsets.UTF_8));
+        }
+        return sources;
+    }
+
+    /**
+     * Gets the fully qualified name of the class of a core type.
+     *
+     * @param coreType The core type.
+     *
+     * @return The class name.
+     */
+    public String getFullClassName(CoreType coreType) {
+        return packageName.isEmpty() ? coreType.getClassName() : packageName + '.' + coreType.getClassName();
+    }
+
+    private CoreType determineCoreType(JsonNode node) {
+        for (CoreType coreType : CoreType.values()) {
+            if (coreType.matches(node)) {
+                return coreType;
+            }
+        }
+        return null;
+    }
+
+    private void addChildren(JsonNode node, Deque<JsonNode> pendingNodes) {
+        for (Iterator<JsonNode> children = node.elements(); children.hasNext();) {
+            JsonNode child = children.next();
+            if (child.isContainerNode()) {
+                pendingNodes.push(child);
+            }
+        }
+    }
+
+    private String readTemplate(String name) throws IOException {
+        try (InputStream in = CoreTypes.class.getResourceAsStream(name)) {
+            if (null == in) {
+                throw new IOException("Core type template '" + name + "' not found.");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.libgraviton.gdk.generator.incremental;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.GeneratorOptions;
+import org.jsonschema2pojo.GenerationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Calculates fingerprints of generator instructions. A fingerprint covers everything the generated classes depend on:
+ * the schema, the class and package name, the generation config and the version of the generator itself.
+ */
+public class FingerprintCalculator {
+
+    private final Logger LOG = LoggerFactory.getLogger(FingerprintCalculator.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Holds the version of the generator, written by the build.
+     */
+    private static final String VERSION_RESOURCE = "generator.properties";
+
+    /**
+     * Hash of all generation config values, calculated once per generator.
+     */
+    private final String configHash;
+
+    /**
+     * Constructor
+     *
+     * @param config The generation config the classes are generated with.
+     */
+    public FingerprintCalculator(GenerationConfig config) {
+        this(config, new GeneratorOptions());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config The generation config the classes are generated with.
+     * @param options The generator options. Only the options influencing the content of the classes are covered.
+     */
+    public FingerprintCalculator(GenerationConfig config, GeneratorOptions options) {
+        this.configHash = hash(describeConfig(config, options));
+    }
+
+    /**
+     * Gets the hash of the generation config.
+     *
+     * @return The hex encoded SHA-256 hash.
+     */
+    public String getConfigHash() {
+        return configHash;
+    }
+
+    /**
+     * Calculates the fingerprint of a generator instruction.
+     *
+     * The schema is serialized without any formatting, so whitespace changes in a profile do not trigger a
+     * regeneration. The order of the properties is kept, since it determines the order of the generated fields.
+     *
+     * @param instruction The generator instruction.
+     * @param packageName The full package name the classes are generated in.
+     *
+     * @return The hex encoded SHA-256 fingerprint.
+     */
+    public String fingerprint(GeneratorInstruction instruction, String packageName) {
+        String schema;
+        try {
+            schema = OBJECT_MAPPER.writeValueAsString(instruction.getSchema());
+        } catch (JsonProcessingException e) {
+            // can't happen for a JsonNode, fall back to its own serialization anyway
+            schema = instruction.getSchema().toString();
+        }
+        return hash(configHash + '\n' + packageName + '\n' + instruction.getClassName() + '\n' + schema);
+    }
+
+    /**
+     * Describes all simple valued settings of a generation config and the generator options influencing the
+     * generated classes in a stable order.
+     *
+     * @param config The generation config.
+     * @param options The generator options.
+     *
+     * @return The description.
+     */
+    private String describeConfig(GenerationConfig config, GeneratorOptions options) {
+        Map<String, String> values = new TreeMap<>();
+        Method[] methods = GenerationConfig.class.getMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        for (Method method : methods) {
+            if (0 != method.getParameterCount() || !isDescribable(method.getReturnType())) {
+                continue;
+            }
+            try {
+                values.put(method.getName(), describeValue(method.invoke(config)));
+            } catch (Exception e) {
+                LOG.debug("Unable to read generation config value '{}'.", method.getName(), e);
+            }
+        }
+        values.put("deduplicateTypes", String.valueOf(options.isDeduplicateTypes()));
+        values.put("generateCodecs", String.valueOf(options.isGenerateCodecs()));
+        values.put("primitiveProperties", String.valueOf(options.isPrimitiveProperties()));
+        values.put("lazyCollections", String.valueOf(options.isLazyCollections()));
+        values.put("lazyProperties", String.valueOf(options.isLazyProperties()));
+        values.put("generateBinaryCodecs", String.valueOf(options.isGenerateBinaryCodecs()));
+        values.put("generateViews", String.valueOf(options.isGenerateViews()));
+        values.put("generatorVersion", determineGeneratorVersion());
+        return values.toString();
+    }
+
+    /**
+     * Determines the version of the generator, so classes are regenerated once the generator is updated.
+     *
+     * @return The version of the generator.
+     *
+     * @throws IllegalStateException If the version resource is missing or wasn't filtered by the build.
+     */
+    private static String determineGeneratorVersion() {
+        Properties properties = new Properties();
+        try (InputStream in = FingerprintCalculator.class.getResourceAsStream(VERSION_RESOURCE)) {
+            if (null == in) {
+                throw new IllegalStateException(
+                        "The generator version resource '" + VERSION_RESOURCE + "' is missing."
+                );
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Unable to read the generator version resource '" + VERSION_RESOURCE + "'.",
+                    e
+            );
+        }
+        String version = properties.getProperty("version");
+        if (null == version || version.trim().isEmpty() || version.startsWith("${")) {
+            throw new IllegalStateException(
+                    "The generator version resource '" + VERSION_RESOURCE + "' holds no version. Resource filtering "
+                            + "must be enabled for it when building the generator."
+            );
+        }
+        return version.trim();
+    }
+
+    private boolean isDescribable(Class<?> type) {
+        return type.isPrimitive()
+                || type.isEnum()
+                || String.class == type
+                || Class.class == type
+                || Map.class.isAssignableFrom(type)
+                || (type.isArray() && (type.getComponentType().isPrimitive() || String.class == type.getComponentType()));
+    }
+
+    private String describeValue(Object value) {
+        if (value instanceof Class) {
+            return ((Class<?>) value).getName();
+        }
+        if (value instanceof char[]) {
+            return new String((char[]) value);
+        }
+        if (value instanceof Object[]) {
+            return Arrays.toString((Object[]) value);
+        }
+        if (value instanceof Map) {
+            return new TreeMap<>((Map<?, ?>) value).toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.libgraviton.gdk.generator.incremental;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Records which files were generated for which endpoint and the fingerprint of the generator instruction they were
+ * generated from. Is persisted next to the endpoint associations, so the next run can skip unchanged endpoints and
+ * delete files which are no longer generated.
+ */
+public class GenerationManifest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GenerationManifest.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Manifest entries by endpoint.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty manifest.
+     */
+    public GenerationManifest() {
+        this(new TreeMap<>());
+    }
+
+    private GenerationManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Loads a persisted manifest.
+     *
+     * @param file The manifest file.
+     *
+     * @return The loaded manifest or an empty one if the file does not exist or cannot be read.
+     */
+    public static GenerationManifest load(File file) {
+        if (!file.isFile()) {
+            return new GenerationManifest();
+        }
+        try {
+            Map<String, Entry> entries = OBJECT_MAPPER.readValue(file, new TypeReference<TreeMap<String, Entry>>() {});
+            return new GenerationManifest(entries);
+        } catch (IOException e) {
+            LOG.warn("Unable to read generation manifest '{}'. Regenerating all endpoints.", file, e);
+            return new GenerationManifest();
+        }
+    }
+
+    /**
+     * Persists the manifest. The file is written through a temporary file, so an aborted run never leaves a truncated
+     * manifest behind.
+     *
+     * @param file The manifest file.
+     *
+     * @throws IOException If the manifest cannot be written.
+     */
+    public void save(File file) throws IOException {
+        Path target = file.toPath();
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), entries);
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the entry of an endpoint.
+     *
+     * @param endpoint The endpoint key.
+     *
+     * @return The entry or null if the endpoint is not part of this manifest.
+     */
+    public Entry get(String endpoint) {
+        return entries.get(endpoint);
+    }
+
+    /**
+     * Adds or replaces the entry of an endpoint.
+     *
+     * @param endpoint The endpoint key.
+     * @param fingerprint The fingerprint of the generator instruction.
+     * @param files The generated files, relative to the target directory.
+     */
+    public void put(String endpoint, String fingerprint, Collection<String> files) {
+        put(endpoint, null, fingerprint, files);
+    }
+
+    /**
+     * Adds or replaces the entry of an endpoint together with the class generated for it.
+     *
+     * @param endpoint The endpoint key.
+     * @param className The fully qualified name of the class generated for the endpoint. May be null.
+     * @param fingerprint The fingerprint of the generator instruction.
+     * @param files The generated files, relative to the target directory.
+     */
+    public synchronized void put(String endpoint, String className, String fingerprint, Collection<String> files) {
+        Entry entry = new Entry();
+        entry.setClassName(className);
+        entry.setFingerprint(fingerprint);
+        entry.setFiles(new TreeSet<>(files));
+        entries.put(endpoint, entry);
+    }
+
+    /**
+     * Gets all files recorded in this manifest.
+     *
+     * @return The files, relative to the target directory.
+     */
+    public Set<String> getFiles() {
+        Set<String> files = new TreeSet<>();
+        for (Entry entry : entries.values()) {
+            files.addAll(entry.getFiles());
+        }
+        return files;
+    }
+
+    /**
+     * The fingerprint and the generated files of a single endpoint.
+     */
+    public static class Entry {
+
+        /**
+         * The class generated for the endpoint. Null for entries which aren't endpoints, e.g. the core types.
+         */
+        private String className;
+
+        private String fingerprint;
+
+        private Set<String> files = new TreeSet<>();
+
+        public String getClassName() {
+            return className;
+        }
+
+        public void setClassName(String className) {
+            this.className = className;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        public Set<String> getFiles() {
+            return files;
+        }
+
+        public void setFiles(Set<String> files) {
+            this.files = files;
+        }
+    }
+}
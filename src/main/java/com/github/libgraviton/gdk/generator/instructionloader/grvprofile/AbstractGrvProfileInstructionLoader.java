@@ -0,0 +1,570 @@
+package com.github.libgraviton.gdk.generator.instructionloader.grvprofile;
+
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+import com.github.libgraviton.gdk.generator.EndpointFilter;
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.report.GenerationReport;
+import com.github.libgraviton.gdk.generator.report.Phase;
+import com.github.libgraviton.gdk.generator.GeneratorInstructionConsumer;
+import com.github.libgraviton.gdk.generator.GeneratorInstructionLoader;
+import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Base class of instruction loaders which provide generator instructions based on a Graviton service document and the
+ * profiles (schemas) of the endpoints listed in it. Subclasses only define where these documents come from.
+ */
+public abstract class AbstractGrvProfileInstructionLoader implements GeneratorInstructionLoader {
+
+    private final Logger LOG = LoggerFactory.getLogger(AbstractGrvProfileInstructionLoader.class);
+
+    /**
+     * Parses the profiles. Graviton profiles are not always strict JSON (e.g. trailing commas), so the parser is as
+     * lenient as the org.json parser used before.
+     */
+    private static final ObjectMapper PROFILE_MAPPER = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .build();
+
+    /**
+     * Reads the service document, which lists more than the endpoints used by the generator.
+     */
+    private static final ObjectMapper SERVICE_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The maximum number of profiles which are loaded at the same time.
+     */
+    private final int fetchConcurrency;
+
+    /**
+     * Decides which endpoints are skipped before their profile is loaded.
+     */
+    private EndpointFilter endpointFilter = EndpointFilter.NONE;
+
+    /**
+     * Records the duration of the loading phases.
+     */
+    private GenerationReport report = new GenerationReport();
+
+    /**
+     * Whether the instructions returned by {@link #loadInstructions(boolean)} are kept for subsequent calls.
+     */
+    private boolean cacheInstructions = true;
+
+    /**
+     * Holds all loaded generator instructions.
+     */
+    private List<GeneratorInstruction> loadedInstructions;
+
+    /**
+     * The endpoints whose profile couldn't be fetched or parsed by the last load.
+     */
+    private final Queue<Endpoint> failedEndpoints = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor
+     *
+     * @param fetchConcurrency The maximum number of profiles loaded at the same time. Values below 2 disable
+     *                         parallel loading.
+     */
+    protected AbstractGrvProfileInstructionLoader(int fetchConcurrency) {
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+    }
+
+    /**
+     * Gets the maximum number of profiles which are loaded at the same time.
+     *
+     * @return The fetch concurrency, at least 1.
+     */
+    public int getFetchConcurrency() {
+        return fetchConcurrency;
+    }
+
+    /**
+     * Sets the filter deciding which endpoints are skipped. The profiles of skipped endpoints are never loaded.
+     *
+     * @param endpointFilter The endpoint filter.
+     */
+    public void setEndpointFilter(EndpointFilter endpointFilter) {
+        this.endpointFilter = null == endpointFilter ? EndpointFilter.NONE : endpointFilter;
+    }
+
+    /**
+     * Sets whether the loaded instructions are kept for subsequent calls of {@link #loadInstructions(boolean)}. Without
+     * the cache, the loader holds no reference to any schema once the caller dropped the returned instructions, which
+     * keeps the heap usage of very large deployments bounded. Every call then loads the instructions again.
+     *
+     * @param cacheInstructions Whether the loaded instructions are cached.
+     */
+    public void setCacheInstructions(boolean cacheInstructions) {
+        this.cacheInstructions = cacheInstructions;
+        if (!cacheInstructions) {
+            loadedInstructions = null;
+        }
+    }
+
+    /**
+     * Gets whether the loaded instructions are cached.
+     *
+     * @return true if the instructions are cached.
+     */
+    protected boolean isCacheInstructions() {
+        return cacheInstructions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setReport(GenerationReport report) {
+        this.report = null == report ? new GenerationReport() : report;
+    }
+
+    /**
+     * Gets the report where the loading phases are recorded.
+     *
+     * @return The generation report.
+     */
+    protected GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Endpoint> getFailedEndpoints() {
+        return new ArrayList<>(failedEndpoints);
+    }
+
+    /**
+     * Loads the Graviton service.
+     *
+     * @return The Graviton service.
+     */
+    public Service loadService() throws CommunicationException {
+        return parseService(loadServiceDocument());
+    }
+
+    /**
+     * Loads the raw service document, as listed by Graviton's main page.
+     *
+     * @return The service document.
+     */
+    public abstract String loadServiceDocument() throws CommunicationException;
+
+    /**
+     * Parses a service document. Entries the generator doesn't use are ignored.
+     *
+     * @param serviceDocument The raw service document.
+     *
+     * @return The Graviton service.
+     */
+    public Service parseService(String serviceDocument) throws CommunicationException {
+        try {
+            return SERVICE_MAPPER.readValue(serviceDocument, Service.class);
+        } catch (IOException e) {
+            throw new CommunicationException("Unable to parse service from '" + getSourceDescription() + "'.", e);
+        }
+    }
+
+    /**
+     * Loads the raw profile (schema) document of an endpoint.
+     *
+     * @param profileUrl The url of the profile, as listed in the service document.
+     *
+     * @return The profile document.
+     */
+    public abstract String loadProfile(String profileUrl) throws CommunicationException;
+
+    /**
+     * Describes where the documents are loaded from. Used for logging.
+     *
+     * @return The source description.
+     */
+    protected abstract String getSourceDescription();
+
+    /**
+     * Loads the generator instructions from Graviton's main page.
+     *
+     * @return All generator instructions.
+     */
+    public List<GeneratorInstruction> loadInstructions() throws CommunicationException {
+        return loadInstructions(false);
+    }
+
+    /**
+     * Loads generator instructions according to Graviton's main page.
+     *
+     * @param reload If the instructions are already loaded and this addParam is set to false, a cached instruction set
+     *               should be returned. Otherwise the instruction list should be (re-) loaded.
+     *
+     * @return All generator instructions.
+     */
+    public List<GeneratorInstruction> loadInstructions(boolean reload) throws CommunicationException {
+        List<GeneratorInstruction> loadedInstructions = this.loadedInstructions;
+        if (reload || null == loadedInstructions) {
+            LOG.info("Loading endpoint definitions and schema from '" + getSourceDescription() + "'.");
+            loadedInstructions = new ArrayList<>();
+            failedEndpoints.clear();
+            List<EndpointDefinition> endpointDefinitions;
+            try {
+                endpointDefinitions = loadMeasuredService().getEndpointDefinitions();
+            } catch (CommunicationException e) {
+                LOG.error("Unable to load service. No instructions loaded.", e);
+                throw e;
+            }
+
+            if (fetchConcurrency > 1 && endpointDefinitions.size() > 1) {
+                loadedInstructions = loadInstructionsConcurrently(endpointDefinitions);
+            } else {
+                for (EndpointDefinition endpointDefinition : endpointDefinitions) {
+                    GeneratorInstruction instruction = loadInstruction(endpointDefinition);
+                    if (null != instruction) {
+                        loadedInstructions.add(instruction);
+                    }
+                }
+            }
+            LOG.info("Loaded " + loadedInstructions.size() + " endpoint definitions.");
+            if (cacheInstructions) {
+                this.loadedInstructions = loadedInstructions;
+            }
+        }
+        return loadedInstructions;
+    }
+
+    /**
+     * Loads the generator instructions and hands them over to the consumer as soon as they are available, while the
+     * remaining profiles are still being loaded in the background. At most twice fetchConcurrency instructions are
+     * loaded ahead of the consumer, so memory usage does not grow with the number of endpoints. The instructions are
+     * passed to the consumer in the order of the service document.
+     *
+     * Streamed instructions are not cached. If the instructions were already loaded by
+     * {@link #loadInstructions(boolean)}, the cached instructions are streamed instead.
+     *
+     * @param consumer The consumer receiving the instructions.
+     */
+    @Override
+    public void streamInstructions(GeneratorInstructionConsumer consumer)
+            throws CommunicationException, GeneratorException {
+        if (null != loadedInstructions) {
+            for (GeneratorInstruction instruction : loadedInstructions) {
+                consumer.accept(instruction);
+            }
+            return;
+        }
+
+        LOG.info("Streaming endpoint definitions and schema from '" + getSourceDescription() + "'.");
+        failedEndpoints.clear();
+        List<EndpointDefinition> endpointDefinitions;
+        try {
+            endpointDefinitions = loadMeasuredService().getEndpointDefinitions();
+        } catch (CommunicationException e) {
+            LOG.error("Unable to load service. No instructions loaded.", e);
+            throw e;
+        }
+        if (endpointDefinitions.isEmpty()) {
+            return;
+        }
+
+        int loadAhead = 2 * fetchConcurrency;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(fetchConcurrency, endpointDefinitions.size()));
+        try {
+            Iterator<EndpointDefinition> pending = endpointDefinitions.iterator();
+            Deque<Future<GeneratorInstruction>> inFlight = new ArrayDeque<>(loadAhead);
+            int instructionCount = 0;
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < loadAhead) {
+                    EndpointDefinition endpointDefinition = pending.next();
+                    inFlight.add(executor.submit(() -> loadInstruction(endpointDefinition)));
+                }
+
+                GeneratorInstruction instruction = inFlight.poll().get();
+                if (null != instruction) {
+                    consumer.accept(instruction);
+                    instructionCount++;
+                }
+            }
+            LOG.info("Streamed " + instructionCount + " endpoint definitions.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommunicationException("Interrupted while loading profiles.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CommunicationException("Unable to load profiles.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches and parses the profiles of all given endpoint definitions using up to fetchConcurrency threads. The
+     * returned instructions are in the same order as the endpoint definitions, regardless of the order in which the
+     * profiles arrive.
+     *
+     * @param endpointDefinitions The endpoint definitions to load.
+     *
+     * @return All successfully loaded generator instructions.
+     */
+    private List<GeneratorInstruction> loadInstructionsConcurrently(List<EndpointDefinition> endpointDefinitions)
+            throws CommunicationException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(fetchConcurrency, endpointDefinitions.size()));
+        try {
+            List<Future<GeneratorInstruction>> futures = new ArrayList<>(endpointDefinitions.size());
+            for (EndpointDefinition endpointDefinition : endpointDefinitions) {
+                futures.add(executor.submit(() -> loadInstruction(endpointDefinition)));
+            }
+
+            List<GeneratorInstruction> instructions = new ArrayList<>(futures.size());
+            for (Future<GeneratorInstruction> future : futures) {
+                GeneratorInstruction instruction = future.get();
+                if (null != instruction) {
+                    instructions.add(instruction);
+                }
+            }
+            return instructions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommunicationException("Interrupted while loading profiles.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CommunicationException("Unable to load profiles.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether the profile of an endpoint definition is loaded, i.e. whether the endpoint has a valid url and
+     * passes the endpoint filter.
+     *
+     * @param endpointDefinition The endpoint definition.
+     *
+     * @return true if the profile is loaded, false if the endpoint is skipped.
+     */
+    public boolean isIncluded(EndpointDefinition endpointDefinition) {
+        return null != determineIncludedEndpoint(endpointDefinition);
+    }
+
+    /**
+     * Determines the endpoint of an endpoint definition, unless it is skipped.
+     *
+     * @param endpointDefinition The endpoint definition.
+     *
+     * @return The endpoint or null if the endpoint should be skipped.
+     */
+    private Endpoint determineIncludedEndpoint(EndpointDefinition endpointDefinition) {
+        Endpoint endpoint;
+        try {
+            endpoint = generateEndpoint(endpointDefinition);
+        } catch (MalformedURLException e) {
+            LOG.warn("Skipping endpoint '" + endpointDefinition.getRef() + "' since it's a malformed Url.");
+            return null;
+        }
+        if (endpointFilter.shouldIgnore(endpoint)) {
+            LOG.info(
+                    "Ignoring endpoint '{}' because of white- / blacklist configuration.",
+                    endpoint.getItemUrl()
+            );
+            return null;
+        }
+        return endpoint;
+    }
+
+    /**
+     * Fetches and parses the profile of a single endpoint definition.
+     *
+     * @param endpointDefinition The endpoint definition to load.
+     *
+     * @return The generator instruction or null if the endpoint should be skipped.
+     */
+    private GeneratorInstruction loadInstruction(EndpointDefinition endpointDefinition) {
+        Endpoint endpoint = determineIncludedEndpoint(endpointDefinition);
+        if (null == endpoint) {
+            return null;
+        }
+
+        String profileJson;
+        long start = System.nanoTime();
+        try {
+            profileJson = loadProfile(endpointDefinition.getProfile());
+            report.recordPhase(endpoint.getItemUrl(), Phase.PROFILE_FETCH, System.nanoTime() - start);
+        } catch (CommunicationException e) {
+            LOG.warn("Unable to fetch profile from '" + endpointDefinition.getProfile() + "'. Skipping...");
+            failedEndpoints.add(endpoint);
+            return null;
+        }
+        try {
+            return createInstruction(endpoint, profileJson);
+        } catch (Throwable t) {
+            LOG.error("Error while parsing schema on endpoint '{}', skipping...", endpointDefinition.getProfile(), t);
+            failedEndpoints.add(endpoint);
+        }
+        return null;
+    }
+
+    /**
+     * Creates the generator instruction of an endpoint and its profile.
+     *
+     * @param endpoint The endpoint.
+     * @param profileJson The profile of the endpoint.
+     *
+     * @return The generator instruction.
+     *
+     * @throws JsonProcessingException If the profile cannot be parsed.
+     */
+    protected GeneratorInstruction createInstruction(Endpoint endpoint, String profileJson)
+            throws JsonProcessingException {
+        long start = System.nanoTime();
+        ObjectNode itemSchema = determineItemSchema(profileJson);
+        report.recordPhase(endpoint.getItemUrl(), Phase.PARSE, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        enrichSchema(itemSchema);
+        report.recordPhase(endpoint.getItemUrl(), Phase.ENRICH_SCHEMA, System.nanoTime() - start);
+
+        return new GeneratorInstruction(
+                determineClassName(itemSchema),
+                determinePackageName(itemSchema),
+                itemSchema,
+                endpoint
+        );
+    }
+
+    /**
+     * Loads the Graviton service and records how long it took.
+     *
+     * @return The Graviton service.
+     */
+    private Service loadMeasuredService() throws CommunicationException {
+        long start = System.nanoTime();
+        try {
+            return loadService();
+        } finally {
+            report.recordPhase(Phase.SERVICE_FETCH, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Every class that matches an endpoint, should by definition always implement the com.github.libgraviton.workerbase.gdk.data.GravitonBase interface.
+     * With that approach we know for sure, that all those classes implement the getId() method.
+     * To achieve this, the following needs to be added to the root of the schema.
+     *
+     * <pre>
+     *     "javaInterfaces" : ["com.github.libgraviton.workerbase.gdk.data.GravitonBase"]
+     * </pre>
+     *
+     * @param itemSchema schema to enrich
+     * @return enriched schema
+     */
+    private ObjectNode enrichSchema(ObjectNode itemSchema) {
+        itemSchema.putArray("javaInterfaces").add("com.github.libgraviton.workerbase.gdk.data.GravitonBase");
+        return itemSchema;
+    }
+
+    /**
+     * Determines the classname for a given GravitonApi schema.
+     *
+     * @param itemSchema The GravitonApi item schema.
+     *
+     * @return The determined class name. May be empty if no class name could be determined.
+     */
+    private String determineClassName(ObjectNode itemSchema) {
+        if (!itemSchema.has("x-documentClass")) {
+            return "";
+        }
+        String className = itemSchema.get("x-documentClass").asText();
+        return className.substring(className.lastIndexOf('\\') + 1);
+    }
+
+    /**
+     * Determines the item schema of a given Graviton schema.
+     *
+     * @param schema The Graviton endpoint schema, which can already be an item schema but also a collection schema.
+     *
+     * @return The item schema
+     */
+    private ObjectNode determineItemSchema(String schema) throws JsonProcessingException {
+        JsonNode schemaNode = PROFILE_MAPPER.readTree(schema);
+        // If the schema contains an "items" field, we got an array and therefore a collection schema.
+        if (schemaNode.has("items")) {
+            schemaNode = schemaNode.get("items");
+        }
+        if (!schemaNode.isObject()) {
+            throw new IllegalArgumentException("The item schema is not an object.");
+        }
+        return (ObjectNode) schemaNode;
+    }
+
+    /**
+     * Determines the package name for generated classes for a given Graviton schema.
+     *
+     * @param itemSchema The Graviton item schema.
+     *
+     * @return The determined package name. May be empty if no package name could be determined.
+     */
+    private String determinePackageName(ObjectNode itemSchema) {
+        if (!itemSchema.has("x-documentClass")) {
+            return "";
+        }
+        String packageName = itemSchema.get("x-documentClass").asText();
+        try {
+            packageName = packageName.substring(0, packageName.lastIndexOf('\\'));
+        } catch (Exception e) {
+            return "";
+        }
+        packageName = packageName.replaceAll("Bundle", "");
+        packageName = packageName.replaceAll("\\\\", ".");
+        packageName = packageName.toLowerCase();
+        return packageName;
+    }
+
+    /**
+     * Generates the endpoint by a given endpointDefinition and instruction schema.
+     *
+     * @param endpointDefinition The endpoint definition.
+     *
+     * @return The generated endpoint.
+     */
+    private Endpoint generateEndpoint(EndpointDefinition endpointDefinition) throws MalformedURLException {
+        String url = endpointDefinition.getRef();
+        String path = new URL(url).getPath();
+
+        if (path.length() > 0 && '/' == path.charAt(path.length() - 1)) {
+            return new Endpoint(path + "{id}", path);
+        }
+        return new Endpoint(path);
+    }
+}
@@ -1,25 +1,22 @@
 package com.github.libgraviton.gdk.generator.instructionloader.grvprofile;
 
 import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.Request;
 import com.github.libgraviton.workerbase.gdk.api.Response;
-import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.github.libgraviton.workerbase.gdk.api.header.Header;
 import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
-import com.github.libgraviton.gdk.generator.GeneratorInstruction;
-import com.github.libgraviton.gdk.generator.GeneratorInstructionLoader;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.github.libgraviton.workerbase.gdk.exception.UnsuccessfulResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * Instruction loader providing generator instructions based on Graviton's main page / service overview.
  */
-public class GrvProfileInstructionLoader implements GeneratorInstructionLoader {
+public class GrvProfileInstructionLoader extends AbstractGrvProfileInstructionLoader {
 
     private final Logger LOG = LoggerFactory.getLogger(GrvProfileInstructionLoader.class);
 
@@ -29,173 +26,146 @@ public class GrvProfileInstructionLoader implements GeneratorInstructionLoader {
     private final GravitonApi gravitonApi;
 
     /**
-     * Holds all loaded generator instructions.
+     * The on-disk cache of fetched documents. May be null, in which case every document is downloaded.
      */
-    private List<GeneratorInstruction> loadedInstructions;
+    private final ProfileCache profileCache;
 
     /**
-     * Constructor. Sets the GravitonApi instance which will be used.
+     * Constructor. Sets the GravitonApi instance which will be used. Profiles are fetched one after another.
      *
      * @param gravitonApi The GravitonApi instance which will be used.
      */
     public GrvProfileInstructionLoader(GravitonApi gravitonApi) {
-        this.gravitonApi = gravitonApi;
+        this(gravitonApi, 1);
     }
 
     /**
-     * Loads the generator instructions from Graviton's main page.
+     * Constructor. Sets the GravitonApi instance which will be used and how many profiles may be fetched in parallel.
      *
-     * @return All generator instructions.
+     * @param gravitonApi The GravitonApi instance which will be used.
+     * @param fetchConcurrency The maximum number of profiles fetched at the same time. Values below 2 disable
+     *                         parallel fetching.
      */
-    public List<GeneratorInstruction> loadInstructions() throws CommunicationException {
-        return loadInstructions(false);
+    public GrvProfileInstructionLoader(GravitonApi gravitonApi, int fetchConcurrency) {
+        this(gravitonApi, fetchConcurrency, null);
     }
 
     /**
-     * Loads generator instructions according to Graviton's main page.
+     * Constructor. Sets the GravitonApi instance which will be used, how many profiles may be fetched in parallel and
+     * the cache which is used to avoid downloading unchanged documents.
      *
-     * @param reload If the instructions are already loaded and this addParam is set to false, a cached instruction set
-     *               should be returned. Otherwise the instruction list should be (re-) loaded.
-     *
-     * @return All generator instructions.
+     * @param gravitonApi The GravitonApi instance which will be used.
+     * @param fetchConcurrency The maximum number of profiles fetched at the same time. Values below 2 disable
+     *                         parallel fetching.
+     * @param profileCache The cache for the service document and the profiles. May be null to disable caching.
      */
-    public List<GeneratorInstruction> loadInstructions(boolean reload) throws CommunicationException {
-        if (reload || null == this.loadedInstructions) {
-            LOG.info("Loading endpoint definitions and schema from '" + gravitonApi.getBaseUrl() + "'.");
-            loadedInstructions = new ArrayList<>();
-            List<EndpointDefinition> endpointDefinitions;
-            try {
-                endpointDefinitions = loadService().getEndpointDefinitions();
-            } catch (CommunicationException e) {
-                LOG.error("Unable to load service. No instructions loaded.", e);
-                throw e;
-            }
-
-            for (EndpointDefinition endpointDefinition : endpointDefinitions) {
-                String profileJson = null;
-                try {
-                    Response response = gravitonApi.get(endpointDefinition.getProfile()).execute();
-                    profileJson = response.getBody();
-                } catch (CommunicationException e) {
-                    LOG.warn("Unable to fetch profile from '" + endpointDefinition.getProfile() + "'. Skipping...");
-                }
-                try {
-                    JSONObject itemSchema = determineItemSchema(profileJson);
-
-                    loadedInstructions.add(new GeneratorInstruction(
-                            determineClassName(itemSchema),
-                            determinePackageName(itemSchema),
-                            enrichSchema(itemSchema),
-                            generateEndpoint(endpointDefinition)
-                    ));
-                } catch (MalformedURLException e) {
-                    LOG.warn("Skipping endpoint '" + endpointDefinition.getRef() + "' since it's a malformed Url.");
-                } catch (Throwable t) {
-                    LOG.error("Error while parsing schema on endpoint '{}', skipping...", endpointDefinition.getProfile(), t);
-                }
-            }
-            LOG.info("Loaded " + loadedInstructions.size() + " endpoint definitions.");
-        }
-        return loadedInstructions;
+    public GrvProfileInstructionLoader(GravitonApi gravitonApi, int fetchConcurrency, ProfileCache profileCache) {
+        super(fetchConcurrency);
+        this.gravitonApi = gravitonApi;
+        this.profileCache = profileCache;
     }
 
     /**
-     * Every class that matches an endpoint, should by definition always implement the com.github.libgraviton.workerbase.gdk.data.GravitonBase interface.
-     * With that approach we know for sure, that all those classes implement the getId() method.
-     * To achieve this, the following needs to be added to the root of the schema.
-     *
-     * <pre>
-     *     "javaInterfaces" : ["com.github.libgraviton.workerbase.gdk.data.GravitonBase"]
-     * </pre>
-     *
-     * @param itemSchema schema to enrich
-     * @return enriched schema
+     * {@inheritDoc}
      */
-    private JSONObject enrichSchema(JSONObject itemSchema) {
-        JSONArray interfaces = new JSONArray();
-        interfaces.put("com.github.libgraviton.workerbase.gdk.data.GravitonBase");
-        itemSchema.put("javaInterfaces", interfaces);
-        return itemSchema;
+    @Override
+    protected String getSourceDescription() {
+        return gravitonApi.getBaseUrl();
     }
 
     /**
-     * Loads the Graviton service.
+     * Loads the service document from Graviton's main page.
      *
-     * @return The Graviton service.
+     * @return The service document.
      */
-    private Service loadService() throws CommunicationException {
-        Response response = gravitonApi.get(gravitonApi.getBaseUrl()).execute();
-        return response.getBodyItem(Service.class);
+    @Override
+    public String loadServiceDocument() throws CommunicationException {
+        return fetch(gravitonApi.getBaseUrl());
     }
 
     /**
-     * Determines the classname for a given GravitonApi schema.
-     *
-     * @param itemSchema The GravitonApi item schema.
-     *
-     * @return The determined class name. May be empty if no class name could be determined.
+     * {@inheritDoc}
      */
-    private String determineClassName(JSONObject itemSchema) {
-        if (!itemSchema.has("x-documentClass")) {
-            return "";
-        }
-        String className = itemSchema.getString("x-documentClass");
-        return className.substring(className.lastIndexOf('\\') + 1);
+    @Override
+    public String loadProfile(String profileUrl) throws CommunicationException {
+        return fetch(profileUrl);
     }
 
     /**
-     * Determines the item schema of a given Graviton schema.
+     * Fetches the body of a given url. If a profile cache is configured, a cached document is revalidated with
+     * If-None-Match / If-Modified-Since and only downloaded again if it changed.
      *
-     * @param schema The Graviton endpoint schema, which can already be an item schema but also a collection schema.
+     * @param url The url to fetch.
      *
-     * @return The item schema
+     * @return The body of the document.
      */
-    private JSONObject determineItemSchema(String schema) {
-        JSONObject schemaObject = new JSONObject(schema);
-        // If the schema contains an "items" field, we got an array and therefore a collection schema.
-        if (schemaObject.has("items")) {
-            schemaObject = schemaObject.getJSONObject("items");
+    private String fetch(String url) throws CommunicationException {
+        if (null == profileCache) {
+            String body = gravitonApi.get(url).execute().getBody();
+            recordDownload(body);
+            return body;
         }
-        return schemaObject;
+
+        ProfileCache.Entry cached = profileCache.get(url);
+        Request.Builder request = gravitonApi.get(url);
+        if (null != cached) {
+            if (null != cached.getETag()) {
+                request.addHeader("If-None-Match", cached.getETag());
+            }
+            if (null != cached.getLastModified()) {
+                request.addHeader("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        Response response;
+        try {
+            response = request.execute();
+        } catch (UnsuccessfulResponseException e) {
+            if (null != cached && HttpURLConnection.HTTP_NOT_MODIFIED == e.getResponse().getCode()) {
+                LOG.debug("Document '{}' not modified, using cached version.", url);
+                getReport().recordCacheHit();
+                return cached.getBody();
+            }
+            throw e;
+        }
+        if (null != cached && HttpURLConnection.HTTP_NOT_MODIFIED == response.getCode()) {
+            LOG.debug("Document '{}' not modified, using cached version.", url);
+            getReport().recordCacheHit();
+            return cached.getBody();
+        }
+
+        String body = response.getBody();
+        recordDownload(body);
+        profileCache.put(url, body, determineHeader(response, "ETag"), determineHeader(response, "Last-Modified"));
+        return body;
     }
 
     /**
-     * Determines the package name for generated classes for a given Graviton schema.
+     * Records the size of a downloaded document in the generation report.
      *
-     * @param itemSchema The Graviton item schema.
-     *
-     * @return The determined package name. May be empty if no package name could be determined.
+     * @param body The body of the document. May be null.
      */
-    private String determinePackageName(JSONObject itemSchema) {
-        if (!itemSchema.has("x-documentClass")) {
-            return "";
-        }
-        String packageName = itemSchema.getString("x-documentClass");
-        try {
-            packageName = packageName.substring(0, packageName.lastIndexOf('\\'));
-        } catch (Exception e) {
-            return "";
-        }
-        packageName = packageName.replaceAll("Bundle", "");
-        packageName = packageName.replaceAll("\\\\", ".");
-        packageName = packageName.toLowerCase();
-        return packageName;
+    private void recordDownload(String body) {
+        getReport().recordDownload(null == body ? 0 : body.getBytes(StandardCharsets.UTF_8).length);
     }
 
     /**
-     * Generates the endpoint by a given endpointDefinition and instruction schema.
+     * Determines the first value of a response header, ignoring the case of the header name.
      *
-     * @param endpointDefinition The endpoint definition.
+     * @param response The response.
+     * @param headerName The name of the header.
      *
-     * @return The generated endpoint.
+     * @return The header value or null if the response has no such header.
      */
-    private Endpoint generateEndpoint(EndpointDefinition endpointDefinition) throws MalformedURLException {
-        String url = endpointDefinition.getRef();
-        String path = new URL(url).getPath();
-
-        if (path.length() > 0 && '/' == path.charAt(path.length() - 1)) {
-            return new Endpoint(path + "{id}", path);
+    private String determineHeader(Response response, String headerName) {
+        if (null == response.getHeaders()) {
+            return null;
+        }
+        for (Map.Entry<String, Header> header : response.getHeaders().all().entrySet()) {
+            if (headerName.equalsIgnoreCase(header.getKey()) && !header.getValue().all().isEmpty()) {
+                return header.getValue().get(0);
+            }
         }
-        return new Endpoint(path);
+        return null;
     }
 }
@@ -0,0 +1,226 @@
+package com.github.libgraviton.gdk.generator.instructionloader.grvprofile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * On-disk cache for documents fetched from Graviton. Every entry holds the response body together with the ETag and
+ * Last-Modified headers of the response, which allows to revalidate the entry with a conditional request.
+ *
+ * Each entry is stored as two files named after the SHA-256 hash of the url: '.body' contains the body and '.meta' the
+ * url, the validators and the SHA-256 hash of the body. A body which doesn't match the hash of its meta file, e.g.
+ * because a concurrent run replaced only one of the files, is treated as a cache miss.
+ */
+public class ProfileCache {
+
+    private final Logger LOG = LoggerFactory.getLogger(ProfileCache.class);
+
+    private static final String URL = "url";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static final String BODY_HASH = "bodyHash";
+
+    /**
+     * The directory where the cache entries are stored.
+     */
+    private final File directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory The directory where the cache entries are stored. Will be created if it doesn't exist.
+     */
+    public ProfileCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the cache entry of a given url.
+     *
+     * @param url The url of the cached document.
+     *
+     * @return The cache entry or null if there is no (readable) entry for this url.
+     */
+    public Entry get(String url) {
+        String key = determineKey(url);
+        File metaFile = new File(directory, key + ".meta");
+        File bodyFile = new File(directory, key + ".body");
+        if (!metaFile.isFile() || !bodyFile.isFile()) {
+            return null;
+        }
+
+        try {
+            Properties meta = new Properties();
+            try (InputStream in = Files.newInputStream(metaFile.toPath())) {
+                meta.load(in);
+            }
+            if (!url.equals(meta.getProperty(URL))) {
+                return null;
+            }
+            byte[] body = Files.readAllBytes(bodyFile.toPath());
+            if (!hash(body).equals(meta.getProperty(BODY_HASH))) {
+                LOG.debug("Body of cache entry '{}' doesn't match its meta data. Ignoring it.", url);
+                return null;
+            }
+            return new Entry(
+                    new String(body, StandardCharsets.UTF_8),
+                    meta.getProperty(ETAG),
+                    meta.getProperty(LAST_MODIFIED)
+            );
+        } catch (IOException e) {
+            LOG.warn("Unable to read cache entry of '{}'. Ignoring it.", url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a document in the cache. Documents without any validator are not stored, since they could not be
+     * revalidated anyway. Both files are written to temporary files before either of them replaces the previous entry.
+     *
+     * @param url The url of the document.
+     * @param body The body of the document.
+     * @param etag The ETag header of the response. May be null.
+     * @param lastModified The Last-Modified header of the response. May be null.
+     */
+    public void put(String url, String body, String etag, String lastModified) {
+        if (null == body || (null == etag && null == lastModified)) {
+            return;
+        }
+
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        Properties meta = new Properties();
+        meta.setProperty(URL, url);
+        meta.setProperty(BODY_HASH, hash(content));
+        if (null != etag) {
+            meta.setProperty(ETAG, etag);
+        }
+        if (null != lastModified) {
+            meta.setProperty(LAST_MODIFIED, lastModified);
+        }
+
+        String key = determineKey(url);
+        Path bodyTempFile = null;
+        Path metaTempFile = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            bodyTempFile = Files.createTempFile(directory.toPath(), key, ".tmp");
+            Files.write(bodyTempFile, content);
+            metaTempFile = Files.createTempFile(directory.toPath(), key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(metaTempFile)) {
+                meta.store(out, null);
+            }
+
+            // readers in between see the new body with the old meta data, which is a miss because of the body hash
+            moveAtomically(bodyTempFile, new File(directory, key + ".body").toPath());
+            moveAtomically(metaTempFile, new File(directory, key + ".meta").toPath());
+        } catch (IOException e) {
+            // the temporary files of a moved file are gone already
+            deleteTempFile(bodyTempFile);
+            deleteTempFile(metaTempFile);
+            LOG.warn("Unable to write cache entry of '{}'.", url, e);
+        }
+    }
+
+    /**
+     * Deletes a temporary file of a cache entry which couldn't be written.
+     *
+     * @param tempFile The temporary file. May be null if it wasn't created.
+     */
+    private void deleteTempFile(Path tempFile) {
+        if (null == tempFile) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            LOG.debug("Unable to delete temporary file '{}'.", tempFile, e);
+        }
+    }
+
+    /**
+     * Replaces a file with a completely written temporary file, so concurrent readers never see a partially written
+     * file.
+     *
+     * @param tempFile The temporary file.
+     * @param target The file to replace.
+     */
+    private void moveAtomically(Path tempFile, Path target) throws IOException {
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Determines the file name of the cache entry of a given url.
+     *
+     * @param url The url.
+     *
+     * @return The hex encoded SHA-256 hash of the url.
+     */
+    private String determineKey(String url) {
+        return hash(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hashes the given bytes.
+     *
+     * @param content The bytes to hash.
+     *
+     * @return The hex encoded SHA-256 hash.
+     */
+    private String hash(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * A cached document.
+     */
+    public static class Entry {
+
+        private final String body;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        public Entry(String body, String etag, String lastModified) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+}
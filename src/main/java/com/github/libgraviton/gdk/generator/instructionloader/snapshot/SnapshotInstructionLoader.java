@@ -0,0 +1,138 @@
+package com.github.libgraviton.gdk.generator.instructionloader.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.AbstractGrvProfileInstructionLoader;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instruction loader providing generator instructions based on a snapshot file written by {@link SnapshotWriter}.
+ * No Graviton instance is needed to load the instructions.
+ *
+ * The snapshot is a JSON lines file. Every line is a document of the form {"url": "...", "body": "..."}, where the
+ * first line holds the service document and all subsequent lines hold the profiles.
+ */
+public class SnapshotInstructionLoader extends AbstractGrvProfileInstructionLoader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The snapshot file.
+     */
+    private final File snapshotFile;
+
+    /**
+     * The url of the service document contained in the snapshot.
+     */
+    private String serviceUrl;
+
+    /**
+     * All documents of the snapshot by url. The service document is included.
+     */
+    private Map<String, String> documents;
+
+    /**
+     * Constructor. Profiles are parsed one after another.
+     *
+     * @param snapshotFile The snapshot file.
+     */
+    public SnapshotInstructionLoader(File snapshotFile) {
+        this(snapshotFile, 1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param snapshotFile The snapshot file.
+     * @param fetchConcurrency The maximum number of profiles parsed at the same time. Values below 2 disable
+     *                         parallel parsing.
+     */
+    public SnapshotInstructionLoader(File snapshotFile, int fetchConcurrency) {
+        super(fetchConcurrency);
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getSourceDescription() {
+        return snapshotFile.getAbsolutePath();
+    }
+
+    /**
+     * Loads the service document from the first document of the snapshot.
+     *
+     * @return The service document.
+     */
+    @Override
+    public String loadServiceDocument() throws CommunicationException {
+        if (!isCacheInstructions()) {
+            // the profiles are released once they are loaded, so the snapshot needs to be read again
+            resetSnapshot();
+        }
+        readSnapshot();
+        return documents.get(serviceUrl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String loadProfile(String profileUrl) throws CommunicationException {
+        readSnapshot();
+        // without instruction cache, a loaded profile is not needed anymore
+        String profile = isCacheInstructions() ? documents.get(profileUrl) : documents.remove(profileUrl);
+        if (null == profile) {
+            throw new CommunicationException("Snapshot '" + snapshotFile + "' contains no profile '" + profileUrl + "'.");
+        }
+        return profile;
+    }
+
+    /**
+     * Forgets the documents read from the snapshot file.
+     */
+    private synchronized void resetSnapshot() {
+        documents = null;
+        serviceUrl = null;
+    }
+
+    /**
+     * Reads all documents of the snapshot file, if not already done.
+     */
+    private synchronized void readSnapshot() throws CommunicationException {
+        if (null != documents) {
+            return;
+        }
+
+        Map<String, String> snapshotDocuments = new ConcurrentHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonNode document = objectMapper.readTree(line);
+                String url = document.path("url").asText();
+                if (null == serviceUrl) {
+                    serviceUrl = url;
+                }
+                snapshotDocuments.put(url, document.path("body").asText());
+            }
+        } catch (IOException e) {
+            throw new CommunicationException("Unable to read snapshot '" + snapshotFile + "'.", e);
+        }
+        if (null == serviceUrl) {
+            throw new CommunicationException("Snapshot '" + snapshotFile + "' is empty.");
+        }
+        documents = snapshotDocuments;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.libgraviton.gdk.generator.instructionloader.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.AbstractGrvProfileInstructionLoader;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.EndpointDefinition;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes snapshot files which can be read by {@link SnapshotInstructionLoader}.
+ */
+public class SnapshotWriter {
+
+    private final Logger LOG = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Loads the service document and all profiles from a given source and writes them to a snapshot file. The
+     * service document is written as loaded. Profiles of endpoints skipped by the endpoint filter of the source and
+     * profiles which cannot be loaded are left out, just like the instruction loaders skip them. Up to the fetch
+     * concurrency of the source profiles are loaded at the same time, they are written in the order of the service
+     * document.
+     *
+     * @param source The loader providing the documents.
+     * @param serviceUrl The url of the service document.
+     * @param snapshotFile The snapshot file to write. An existing file is replaced once the snapshot is complete.
+     *
+     * @return The number of profiles written.
+     *
+     * @throws CommunicationException If the service document cannot be loaded.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public int write(AbstractGrvProfileInstructionLoader source, String serviceUrl, File snapshotFile)
+            throws CommunicationException, IOException {
+        // the raw document is written, so the snapshot keeps the entries the generator doesn't use
+        String serviceDocument = source.loadServiceDocument();
+        List<EndpointDefinition> endpointDefinitions = new ArrayList<>();
+        for (EndpointDefinition endpointDefinition : source.parseService(serviceDocument).getEndpointDefinitions()) {
+            if (source.isIncluded(endpointDefinition)) {
+                endpointDefinitions.add(endpointDefinition);
+            }
+        }
+
+        Path target = snapshotFile.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        int fetchConcurrency = Math.max(1, source.getFetchConcurrency());
+        int loadAhead = 2 * fetchConcurrency;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(fetchConcurrency, endpointDefinitions.size()))
+        );
+        int profileCount = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writeDocument(writer, serviceUrl, serviceDocument);
+            Iterator<EndpointDefinition> pending = endpointDefinitions.iterator();
+            Deque<EndpointDefinition> inFlightDefinitions = new ArrayDeque<>(loadAhead);
+            Deque<Future<String>> inFlight = new ArrayDeque<>(loadAhead);
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < loadAhead) {
+                    EndpointDefinition endpointDefinition = pending.next();
+                    inFlightDefinitions.add(endpointDefinition);
+                    inFlight.add(executor.submit(() -> loadProfile(source, endpointDefinition)));
+                }
+
+                EndpointDefinition endpointDefinition = inFlightDefinitions.poll();
+                String profile = inFlight.poll().get();
+                if (null != profile) {
+                    writeDocument(writer, endpointDefinition.getProfile(), profile);
+                    profileCount++;
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Files.deleteIfExists(tempFile);
+            throw new IOException("Interrupted while loading profiles.", e);
+        } catch (ExecutionException e) {
+            Files.deleteIfExists(tempFile);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Unable to load profiles.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        return profileCount;
+    }
+
+    /**
+     * Loads the profile of an endpoint.
+     *
+     * @param source The loader providing the documents.
+     * @param endpointDefinition The endpoint definition.
+     *
+     * @return The profile or null if it cannot be loaded.
+     */
+    private String loadProfile(AbstractGrvProfileInstructionLoader source, EndpointDefinition endpointDefinition) {
+        try {
+            return source.loadProfile(endpointDefinition.getProfile());
+        } catch (CommunicationException e) {
+            LOG.warn("Unable to fetch profile from '" + endpointDefinition.getProfile() + "'. Skipping...");
+            return null;
+        }
+    }
+
+    /**
+     * Writes a single document as one line to the snapshot.
+     *
+     * @param writer The snapshot writer.
+     * @param url The url of the document.
+     * @param body The document.
+     */
+    private void writeDocument(BufferedWriter writer, String url, String body) throws IOException {
+        ObjectNode document = objectMapper.createObjectNode();
+        document.put("url", url);
+        document.put("body", body);
+        writer.write(objectMapper.writeValueAsString(document));
+        writer.newLine();
+    }
+}
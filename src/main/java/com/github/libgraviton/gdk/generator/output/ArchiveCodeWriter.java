@@ -0,0 +1,69 @@
+package com.github.libgraviton.gdk.generator.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes all files into a single zip / jar archive instead of a directory tree. The archive is opened through the NIO
+ * zip file system, so an existing archive is updated in place: unchanged endpoints keep their files and stale files
+ * can be removed, exactly as in a target directory. The archive is written to disk on close().
+ */
+public class ArchiveCodeWriter extends BufferingCodeWriter {
+
+    private final Logger LOG = LoggerFactory.getLogger(ArchiveCodeWriter.class);
+
+    private final File archive;
+
+    private final FileSystem fileSystem;
+
+    private final AtomicInteger writtenFiles = new AtomicInteger();
+
+    /**
+     * Constructor. Opens or creates the archive.
+     *
+     * @param archive The archive file.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    public ArchiveCodeWriter(File archive) throws IOException {
+        this.archive = archive;
+        Path archivePath = archive.getAbsoluteFile().toPath();
+        Files.createDirectories(archivePath.getParent());
+        this.fileSystem = FileSystems.newFileSystem(archivePath, Collections.singletonMap("create", "true"));
+    }
+
+    @Override
+    public void write(String path, byte[] content) throws IOException {
+        Path file = fileSystem.getPath(path);
+        if (null != file.getParent()) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, content);
+        writtenFiles.incrementAndGet();
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return Files.isRegularFile(fileSystem.getPath(path));
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        return Files.deleteIfExists(fileSystem.getPath(path));
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+        LOG.info("Wrote {} file(s) to archive '{}'.", writtenFiles.get(), archive);
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.libgraviton.gdk.generator.output;
+
+import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles all sources of a source archive with the system Java compiler into a classes jar. Sources and class files
+ * are kept in memory, nothing is unpacked to disk.
+ */
+public class ArchiveCompiler {
+
+    private final Logger LOG = LoggerFactory.getLogger(ArchiveCompiler.class);
+
+    /**
+     * The maximum number of compiler errors included in the exception message.
+     */
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final List<File> classpath;
+
+    /**
+     * Constructor
+     *
+     * @param classpath The class path needed by the generated sources, e.g. the Jackson annotations.
+     */
+    public ArchiveCompiler(List<File> classpath) {
+        this.classpath = null == classpath ? new ArrayList<>() : classpath;
+    }
+
+    /**
+     * Compiles all .java files of a source archive.
+     *
+     * @param sourceArchive The zip / jar containing the sources.
+     * @param classesArchive The jar the class files are written to. An existing jar is replaced.
+     *
+     * @throws GeneratorException If the sources cannot be read, don't compile or the jar cannot be written.
+     */
+    public void compile(File sourceArchive, File classesArchive) throws GeneratorException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (null == compiler) {
+            throw new GeneratorException("No Java compiler available. Is the build running on a JRE?", null);
+        }
+
+        List<JavaFileObject> sources;
+        try {
+            sources = readSources(sourceArchive);
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to read sources from '" + sourceArchive + "'.", e);
+        }
+        LOG.info("Compiling {} source file(s) from '{}'.", sources.size(), sourceArchive);
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classFiles = new TreeMap<>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(
+                diagnostics,
+                null,
+                StandardCharsets.UTF_8
+        );
+        try (JavaFileManager fileManager = new InMemoryFileManager(standardFileManager, classFiles)) {
+            List<String> compilerOptions = new ArrayList<>(Arrays.asList("-proc:none", "-nowarn"));
+            if (!classpath.isEmpty()) {
+                compilerOptions.add("-classpath");
+                compilerOptions.add(classpath.stream()
+                        .map(File::getAbsolutePath)
+                        .collect(Collectors.joining(File.pathSeparator)));
+            }
+            boolean success = compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, sources).call();
+            if (!success) {
+                throw new GeneratorException("Unable to compile generated POJOs: " + describeErrors(diagnostics), null);
+            }
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to compile generated POJOs.", e);
+        }
+
+        try {
+            writeJar(classFiles, classesArchive);
+        } catch (IOException e) {
+            throw new GeneratorException("Unable to write classes archive '" + classesArchive + "'.", e);
+        }
+        LOG.info("Wrote {} class file(s) to '{}'.", classFiles.size(), classesArchive);
+    }
+
+    private List<JavaFileObject> readSources(File sourceArchive) throws IOException {
+        List<JavaFileObject> sources = new ArrayList<>();
+        try (FileSystem fileSystem = FileSystems.newFileSystem(sourceArchive.toPath(), (ClassLoader) null)) {
+            for (Path root : fileSystem.getRootDirectories()) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(root)) {
+                    files = walk
+                            .filter(file -> file.toString().endsWith(JavaFileObject.Kind.SOURCE.extension))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    sources.add(new SourceFile(
+                            root.relativize(file).toString(),
+                            new String(Files.readAllBytes(file), StandardCharsets.UTF_8)
+                    ));
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Writes the class files into a jar. Entries are written in a stable order.
+     */
+    private void writeJar(Map<String, ByteArrayOutputStream> classFiles, File classesArchive) throws IOException {
+        Path target = classesArchive.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), classesArchive.getName(), ".tmp");
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(tempFile), manifest)) {
+            for (Map.Entry<String, ByteArrayOutputStream> classFile : classFiles.entrySet()) {
+                jar.putNextEntry(new JarEntry(classFile.getKey()));
+                classFile.getValue().writeTo(jar);
+                jar.closeEntry();
+            }
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private String describeErrors(DiagnosticCollector<JavaFileObject> diagnostics) {
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> Diagnostic.Kind.ERROR == diagnostic.getKind())
+                .limit(MAX_REPORTED_ERRORS)
+                .map(diagnostic -> (null == diagnostic.getSource() ? "" : diagnostic.getSource().getName() + ":"
+                        + diagnostic.getLineNumber() + ": ") + diagnostic.getMessage(null))
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String content;
+
+        private SourceFile(String path, String content) {
+            super(URI.create("string:///" + path), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    /**
+     * File manager which keeps all class files in memory.
+     */
+    private static class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classFiles;
+
+        private InMemoryFileManager(StandardJavaFileManager fileManager, Map<String, ByteArrayOutputStream> classFiles) {
+            super(fileManager);
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+                Location location,
+                String className,
+                JavaFileObject.Kind kind,
+                FileObject sibling
+        ) {
+            final String path = className.replace('.', '/') + kind.extension;
+            return new SimpleJavaFileObject(URI.create("mem:///" + path), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    classFiles.put(path, out);
+                    return out;
+                }
+            };
+        }
+    }
+}
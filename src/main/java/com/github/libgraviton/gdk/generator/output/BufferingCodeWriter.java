@@ -0,0 +1,71 @@
+package com.github.libgraviton.gdk.generator.output;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * CodeWriter which renders every file in memory and hands over the complete content once the file is closed. Files
+ * which were already rendered elsewhere (see InMemoryCodeWriter) can be passed to write() directly.
+ *
+ * Besides writing, implementations allow to check for and delete previously written files, which is needed to skip
+ * unchanged endpoints and to remove files that are no longer generated.
+ */
+public abstract class BufferingCodeWriter extends CodeWriter {
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) {
+        final String path = toPath(pkg, fileName);
+        return new ByteArrayOutputStream() {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    BufferingCodeWriter.this.write(path, toByteArray());
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes a complete file.
+     *
+     * @param path The path of the file, relative to the output root and separated by '/'.
+     * @param content The content of the file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public abstract void write(String path, byte[] content) throws IOException;
+
+    /**
+     * Checks whether a file exists in the output.
+     *
+     * @param path The path of the file, relative to the output root and separated by '/'.
+     *
+     * @return true if the file exists.
+     */
+    public abstract boolean exists(String path);
+
+    /**
+     * Deletes a file from the output.
+     *
+     * @param path The path of the file, relative to the output root and separated by '/'.
+     *
+     * @return true if the file existed and was deleted.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    public abstract boolean delete(String path) throws IOException;
+
+    static String toPath(JPackage pkg, String fileName) {
+        if (pkg.isUnnamed()) {
+            return fileName;
+        }
+        return pkg.name().replace('.', '/') + '/' + fileName;
+    }
+}
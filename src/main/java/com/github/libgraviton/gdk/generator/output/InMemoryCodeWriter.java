@@ -0,0 +1,45 @@
+package com.github.libgraviton.gdk.generator.output;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps all files of a code model in memory, so they can be generated on any thread and written to their final
+ * destination later on.
+ */
+public class InMemoryCodeWriter extends CodeWriter {
+
+    /**
+     * The content of all files by their path, in the order the code model emitted them.
+     */
+    private final Map<String, ByteArrayOutputStream> files = new LinkedHashMap<>();
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        files.put(BufferingCodeWriter.toPath(pkg, fileName), out);
+        return out;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Gets the content of all written files.
+     *
+     * @return The content of the files by their path, relative to the target directory and separated by '/'.
+     */
+    public Map<String, byte[]> getFiles() {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> file : files.entrySet()) {
+            result.put(file.getKey(), file.getValue().toByteArray());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.libgraviton.gdk.generator.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes files below a target directory, but leaves files whose content did not change untouched. Their modification
+ * time is kept, so incremental compilers don't recompile unchanged classes.
+ */
+public class WriteIfChangedCodeWriter extends BufferingCodeWriter {
+
+    private final Logger LOG = LoggerFactory.getLogger(WriteIfChangedCodeWriter.class);
+
+    private final File targetDirectory;
+
+    private final AtomicInteger writtenFiles = new AtomicInteger();
+
+    private final AtomicInteger unchangedFiles = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param targetDirectory The directory the files are written to.
+     */
+    public WriteIfChangedCodeWriter(File targetDirectory) {
+        this.targetDirectory = targetDirectory;
+    }
+
+    @Override
+    public void write(String path, byte[] content) throws IOException {
+        Path file = new File(targetDirectory, path).toPath();
+        if (isUnchanged(file, content)) {
+            unchangedFiles.incrementAndGet();
+            return;
+        }
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        writtenFiles.incrementAndGet();
+        LOG.debug("Wrote '{}'.", path);
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return new File(targetDirectory, path).isFile();
+    }
+
+    /**
+     * Deletes a file and all parent directories left empty.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean delete(String path) {
+        File root = targetDirectory.getAbsoluteFile();
+        File file = new File(root, path);
+        if (!file.delete()) {
+            return false;
+        }
+        File directory = file.getParentFile();
+        while (null != directory && !directory.equals(root) && directory.delete()) {
+            directory = directory.getParentFile();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Wrote {} file(s), {} file(s) unchanged.", writtenFiles.get(), unchangedFiles.get());
+    }
+
+    public int getWrittenFiles() {
+        return writtenFiles.get();
+    }
+
+    public int getUnchangedFiles() {
+        return unchangedFiles.get();
+    }
+
+    /**
+     * Checks whether a file already has the given content. The size is compared first, so most changed files are
+     * detected without reading them.
+     *
+     * @param file The file.
+     * @param content The new content.
+     *
+     * @return true if the file exists and has exactly the given content.
+     */
+    private boolean isUnchanged(Path file, byte[] content) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != content.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(file), content);
+    }
+}
@@ -0,0 +1,295 @@
+package com.github.libgraviton.gdk.generator.registry;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.gdk.generator.output.InMemoryCodeWriter;
+import com.github.libgraviton.gdk.generator.rules.BinaryCodecRule;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates the binary codecs helper: a class which round-trips the generated POJOs through the binary codecs
+ * generated by the BinaryCodecRule. The helper is given an ObjectMapper for the binary format, e.g. one with a
+ * SmileFactory or a CBORFactory, so the generated sources don't depend on a specific format module.
+ */
+public class BinaryCodecsGenerator {
+
+    /**
+     * The simple name of the generated helper class.
+     */
+    public static final String CLASS_NAME = "GeneratedBinaryCodecs";
+
+    /**
+     * The key under which the helper source is recorded in the generation manifest.
+     */
+    public static final String MANIFEST_KEY = "gdk:binary-codecs";
+
+    /**
+     * The number of classes dispatched per method, which keeps the methods below the byte code size limit.
+     */
+    private static final int CLASSES_PER_DISPATCH_METHOD = 500;
+
+    private static final String CODEC_FILE_SUFFIX = BinaryCodecRule.CODEC_SUFFIX + ".java";
+
+    /**
+     * The package of the helper class.
+     */
+    private final String packageName;
+
+    /**
+     * Constructor
+     *
+     * @param packageName The package of the helper class.
+     */
+    public BinaryCodecsGenerator(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Gets the fully qualified name of the helper class.
+     *
+     * @return The class name.
+     */
+    public String getFullClassName() {
+        return packageName.isEmpty() ? CLASS_NAME : packageName + '.' + CLASS_NAME;
+    }
+
+    /**
+     * Determines the classes having a generated binary codec.
+     *
+     * @param files The generated files, relative to the output root and separated by '/'.
+     *
+     * @return The fully qualified names of the classes, sorted.
+     */
+    public Set<String> determineCodecClasses(Collection<String> files) {
+        Set<String> classes = new TreeSet<>();
+        String codecDirectorySuffix = BinaryCodecRule.CODEC_PACKAGE + '/';
+        for (String file : files) {
+            if (!file.endsWith(CODEC_FILE_SUFFIX)) {
+                continue;
+            }
+            String codecBase = file.substring(0, file.length() - CODEC_FILE_SUFFIX.length());
+            int separator = codecBase.lastIndexOf('/');
+            String codecDirectory = codecBase.substring(0, separator + 1);
+            if (!codecDirectory.endsWith(codecDirectorySuffix)) {
+                continue;
+            }
+            String className = codecDirectory.substring(0, codecDirectory.length() - codecDirectorySuffix.length())
+                    + codecBase.substring(separator + 1);
+            if (files.contains(className + ".java")) {
+                classes.add(className.replace('/', '.'));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Generates the source of the helper class.
+     *
+     * @param files The generated files, relative to the output root and separated by '/'.
+     *
+     * @return The content of the generated file by its path, relative to the output root and separated by '/'.
+     *
+     * @throws IOException If the source cannot be built.
+     */
+    public Map<String, byte[]> generateSources(Collection<String> files) throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        JDefinedClass helper;
+        try {
+            helper = codeModel._class(JMod.PUBLIC | JMod.FINAL, getFullClassName(), ClassType.CLASS);
+        } catch (JClassAlreadyExistsException e) {
+            throw new IllegalStateException("The helper class is created in a fresh code model.", e);
+        }
+        helper.javadoc().add("Round-trips the generated POJOs through their binary codecs.");
+        JFieldVar unknown = helper.field(
+                JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                Object.class,
+                "UNKNOWN",
+                JExpr._new(codeModel.ref(Object.class))
+        );
+        JFieldVar objectMapper = helper.field(JMod.PRIVATE | JMod.FINAL, ObjectMapper.class, "objectMapper");
+
+        JMethod constructor = helper.constructor(JMod.PUBLIC);
+        constructor.javadoc().addParam("objectMapper").add(
+                "The object mapper of the binary format, e.g. one with a SmileFactory. Values without generated "
+                        + "codec are (de)serialized by it."
+        );
+        JVar objectMapperParam = constructor.param(ObjectMapper.class, "objectMapper");
+        constructor.body().assign(JExpr._this().ref(objectMapper), objectMapperParam);
+
+        List<String> classNames = new ArrayList<>(determineCodecClasses(files));
+        List<JMethod> writeMethods = new ArrayList<>();
+        List<JMethod> readMethods = new ArrayList<>();
+        for (int start = 0; start < classNames.size(); start += CLASSES_PER_DISPATCH_METHOD) {
+            List<String> chunk = classNames.subList(
+                    start,
+                    Math.min(classNames.size(), start + CLASSES_PER_DISPATCH_METHOD)
+            );
+            int index = start / CLASSES_PER_DISPATCH_METHOD;
+            writeMethods.add(createWriteDispatch(helper, "write" + index, chunk));
+            readMethods.add(createReadDispatch(helper, "read" + index, chunk, unknown));
+        }
+        createWrite(helper, writeMethods);
+        createRead(helper, readMethods, unknown);
+        createToBytes(helper, objectMapper);
+        createFromBytes(helper, objectMapper);
+
+        InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+        codeModel.build(codeWriter);
+        return codeWriter.getFiles();
+    }
+
+    private JMethod createWriteDispatch(JDefinedClass helper, String name, List<String> classNames) {
+        JCodeModel codeModel = helper.owner();
+        JMethod method = helper.method(JMod.PRIVATE | JMod.STATIC, codeModel.BOOLEAN, name);
+        method._throws(IOException.class);
+        JVar className = method.param(String.class, "className");
+        JVar value = method.param(Object.class, "value");
+        JVar generator = method.param(JsonGenerator.class, "generator");
+        JSwitch classSwitch = method.body()._switch(className);
+        for (String pojoName : classNames) {
+            JClass pojoClass = codeModel.directClass(pojoName);
+            JBlock caseBody = classSwitch._case(JExpr.lit(pojoName)).body();
+            caseBody.add(codeModel.directClass(codecName(pojoName)).staticInvoke("write")
+                    .arg(JExpr.cast(pojoClass, value))
+                    .arg(generator));
+            caseBody._return(JExpr.TRUE);
+        }
+        method.body()._return(JExpr.FALSE);
+        return method;
+    }
+
+    private JMethod createReadDispatch(JDefinedClass helper, String name, List<String> classNames, JFieldVar unknown) {
+        JCodeModel codeModel = helper.owner();
+        JMethod method = helper.method(JMod.PRIVATE | JMod.STATIC, Object.class, name);
+        method._throws(IOException.class);
+        JVar className = method.param(String.class, "className");
+        JVar parser = method.param(JsonParser.class, "parser");
+        JSwitch classSwitch = method.body()._switch(className);
+        for (String pojoName : classNames) {
+            classSwitch._case(JExpr.lit(pojoName)).body()
+                    ._return(codeModel.directClass(codecName(pojoName)).staticInvoke("read").arg(parser));
+        }
+        method.body()._return(unknown);
+        return method;
+    }
+
+    private void createWrite(JDefinedClass helper, List<JMethod> dispatchMethods) {
+        JCodeModel codeModel = helper.owner();
+        JMethod write = helper.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID, "write");
+        write.javadoc().add("Writes a generated POJO with its binary codec.");
+        write._throws(IOException.class);
+        JVar value = write.param(Object.class, "value");
+        JVar generator = write.param(JsonGenerator.class, "generator");
+        JBlock body = write.body();
+
+        JBlock nullBlock = body._if(value.eq(JExpr._null()))._then();
+        nullBlock.add(generator.invoke("writeNull"));
+        nullBlock._return();
+        JVar className = body.decl(
+                codeModel.ref(String.class),
+                "className",
+                value.invoke("getClass").invoke("getName")
+        );
+        for (JMethod dispatchMethod : dispatchMethods) {
+            body._if(JExpr.invoke(dispatchMethod).arg(className).arg(value).arg(generator))._then()._return();
+        }
+        body._throw(JExpr._new(codeModel.ref(IllegalArgumentException.class))
+                .arg(JExpr.lit("No binary codec generated for '").plus(className).plus(JExpr.lit("'."))));
+    }
+
+    private void createRead(JDefinedClass helper, List<JMethod> dispatchMethods, JFieldVar unknown) {
+        JCodeModel codeModel = helper.owner();
+        JMethod read = helper.method(JMod.PUBLIC | JMod.STATIC, Object.class, "read");
+        JTypeVar typeVar = read.generify("T");
+        read.type(typeVar);
+        read.javadoc().add("Reads a generated POJO with its binary codec.");
+        read._throws(IOException.class);
+        JVar type = read.param(codeModel.ref(Class.class).narrow(typeVar), "type");
+        JVar parser = read.param(JsonParser.class, "parser");
+        JBlock body = read.body();
+
+        JVar className = body.decl(codeModel.ref(String.class), "className", type.invoke("getName"));
+        for (JMethod dispatchMethod : dispatchMethods) {
+            JVar value = body.decl(
+                    codeModel.ref(Object.class),
+                    dispatchMethod.name() + "Value",
+                    JExpr.invoke(dispatchMethod).arg(className).arg(parser)
+            );
+            body._if(value.ne(unknown))._then()._return(type.invoke("cast").arg(value));
+        }
+        body._throw(JExpr._new(codeModel.ref(IllegalArgumentException.class))
+                .arg(JExpr.lit("No binary codec generated for '").plus(className).plus(JExpr.lit("'."))));
+    }
+
+    private void createToBytes(JDefinedClass helper, JFieldVar objectMapper) {
+        JCodeModel codeModel = helper.owner();
+        JMethod toBytes = helper.method(JMod.PUBLIC, codeModel.BYTE.array(), "toBytes");
+        toBytes.javadoc().add("Encodes a generated POJO in the binary format.");
+        toBytes._throws(IOException.class);
+        JVar value = toBytes.param(Object.class, "value");
+        JBlock body = toBytes.body();
+
+        JClass outputClass = codeModel.ref(ByteArrayOutputStream.class);
+        JVar output = body.decl(outputClass, "output", JExpr._new(outputClass));
+        JVar generator = body.decl(
+                codeModel.ref(JsonGenerator.class),
+                "generator",
+                objectMapper.invoke("getFactory").invoke("createGenerator").arg(output)
+        );
+        JTryBlock tryBlock = body._try();
+        tryBlock.body().invoke("write").arg(value).arg(generator);
+        tryBlock._finally().add(generator.invoke("close"));
+        body._return(output.invoke("toByteArray"));
+    }
+
+    private void createFromBytes(JDefinedClass helper, JFieldVar objectMapper) {
+        JCodeModel codeModel = helper.owner();
+        JMethod fromBytes = helper.method(JMod.PUBLIC, Object.class, "fromBytes");
+        JTypeVar typeVar = fromBytes.generify("T");
+        fromBytes.type(typeVar);
+        fromBytes.javadoc().add("Decodes a generated POJO from the binary format.");
+        fromBytes._throws(IOException.class);
+        JVar bytes = fromBytes.param(codeModel.BYTE.array(), "bytes");
+        JVar type = fromBytes.param(codeModel.ref(Class.class).narrow(typeVar), "type");
+        JBlock body = fromBytes.body();
+
+        JVar parser = body.decl(
+                codeModel.ref(JsonParser.class),
+                "parser",
+                objectMapper.invoke("getFactory").invoke("createParser").arg(bytes)
+        );
+        JTryBlock tryBlock = body._try();
+        tryBlock.body().add(parser.invoke("nextToken"));
+        tryBlock.body()._return(JExpr.invoke("read").arg(type).arg(parser));
+        tryBlock._finally().add(parser.invoke("close"));
+    }
+
+    private String codecName(String className) {
+        int separator = className.lastIndexOf('.');
+        return className.substring(0, separator + 1) + BinaryCodecRule.CODEC_PACKAGE + '.'
+                + className.substring(separator + 1) + BinaryCodecRule.CODEC_SUFFIX;
+    }
+}
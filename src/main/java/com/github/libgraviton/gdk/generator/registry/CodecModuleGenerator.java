@@ -0,0 +1,168 @@
+package com.github.libgraviton.gdk.generator.registry;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.github.libgraviton.gdk.generator.output.InMemoryCodeWriter;
+import com.github.libgraviton.gdk.generator.rules.JacksonCodecRule;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates the codec module: a Jackson module registering the serializers and deserializers generated by the
+ * JacksonCodecRule. The module is registered as Jackson Module service, so workers can register it with
+ * {@code ObjectMapper.findAndRegisterModules()}.
+ *
+ * The module is built from the generated files of all endpoints, including the ones that were up to date and
+ * therefore not generated again in an incremental run.
+ */
+public class CodecModuleGenerator {
+
+    /**
+     * The simple name of the generated module class.
+     */
+    public static final String CLASS_NAME = "GeneratedCodecModule";
+
+    /**
+     * The key under which the module source is recorded in the generation manifest.
+     */
+    public static final String MANIFEST_KEY = "gdk:codec-module";
+
+    /**
+     * The number of classes registered per method, which keeps the methods below the byte code size limit.
+     */
+    private static final int CLASSES_PER_REGISTER_METHOD = 500;
+
+    private static final String SERIALIZER_FILE_SUFFIX = JacksonCodecRule.SERIALIZER_SUFFIX + ".java";
+
+    private static final String DESERIALIZER_FILE_SUFFIX = JacksonCodecRule.DESERIALIZER_SUFFIX + ".java";
+
+    /**
+     * The package of the module class.
+     */
+    private final String packageName;
+
+    /**
+     * Constructor
+     *
+     * @param packageName The package of the module class.
+     */
+    public CodecModuleGenerator(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Gets the fully qualified name of the module class.
+     *
+     * @return The class name.
+     */
+    public String getFullClassName() {
+        return packageName.isEmpty() ? CLASS_NAME : packageName + '.' + CLASS_NAME;
+    }
+
+    /**
+     * Gets the path of the service file registering the module class, relative to the resource root.
+     *
+     * @return The path of the service file.
+     */
+    public String getServiceFilePath() {
+        return "META-INF/services/" + Module.class.getName();
+    }
+
+    /**
+     * Determines the classes having a generated serializer and deserializer.
+     *
+     * @param files The generated files, relative to the output root and separated by '/'.
+     *
+     * @return The fully qualified names of the classes, sorted.
+     */
+    public Set<String> determineCodecClasses(Collection<String> files) {
+        Set<String> classes = new TreeSet<>();
+        for (String file : files) {
+            if (!file.endsWith(SERIALIZER_FILE_SUFFIX)) {
+                continue;
+            }
+            String codecBase = file.substring(0, file.length() - SERIALIZER_FILE_SUFFIX.length());
+            int separator = codecBase.lastIndexOf('/');
+            String codecDirectory = codecBase.substring(0, separator + 1);
+            String simpleName = codecBase.substring(separator + 1);
+            if (!codecDirectory.endsWith(JacksonCodecRule.CODEC_PACKAGE + '/')) {
+                continue;
+            }
+            String classDirectory = codecDirectory.substring(
+                    0,
+                    codecDirectory.length() - JacksonCodecRule.CODEC_PACKAGE.length() - 1
+            );
+            if (files.contains(codecBase + DESERIALIZER_FILE_SUFFIX)
+                    && files.contains(classDirectory + simpleName + ".java")) {
+                classes.add((classDirectory + simpleName).replace('/', '.'));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Generates the source of the module class.
+     *
+     * @param files The generated files, relative to the output root and separated by '/'.
+     *
+     * @return The content of the generated file by its path, relative to the output root and separated by '/'.
+     *
+     * @throws IOException If the source cannot be built.
+     */
+    public Map<String, byte[]> generateSources(Collection<String> files) throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        JDefinedClass module;
+        try {
+            module = codeModel._class(JMod.PUBLIC | JMod.FINAL, getFullClassName(), ClassType.CLASS);
+        } catch (JClassAlreadyExistsException e) {
+            throw new IllegalStateException("The module class is created in a fresh code model.", e);
+        }
+        module._extends(codeModel.ref(SimpleModule.class));
+        module.javadoc().add("Registers the generated serializers and deserializers of all generated POJOs.");
+
+        JBlock constructorBody = module.constructor(JMod.PUBLIC).body();
+        constructorBody.invoke("super").arg(JExpr.lit(CLASS_NAME));
+
+        JMethod registerMethod = null;
+        int index = 0;
+        for (String className : determineCodecClasses(files)) {
+            if (0 == index % CLASSES_PER_REGISTER_METHOD) {
+                registerMethod = module.method(
+                        JMod.PRIVATE,
+                        codeModel.VOID,
+                        "register" + (index / CLASSES_PER_REGISTER_METHOD)
+                );
+                constructorBody.invoke(registerMethod.name());
+            }
+            int separator = className.lastIndexOf('.');
+            String codecBase = className.substring(0, separator + 1)
+                    + JacksonCodecRule.CODEC_PACKAGE + '.' + className.substring(separator + 1);
+            JClass pojoClass = codeModel.directClass(className);
+            JBlock body = registerMethod.body();
+            body.invoke("addSerializer")
+                    .arg(JExpr.dotclass(pojoClass))
+                    .arg(JExpr._new(codeModel.directClass(codecBase + JacksonCodecRule.SERIALIZER_SUFFIX)));
+            body.invoke("addDeserializer")
+                    .arg(JExpr.dotclass(pojoClass))
+                    .arg(JExpr._new(codeModel.directClass(codecBase + JacksonCodecRule.DESERIALIZER_SUFFIX)));
+            index++;
+        }
+
+        InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+        codeModel.build(codeWriter);
+        return codeWriter.getFiles();
+    }
+}
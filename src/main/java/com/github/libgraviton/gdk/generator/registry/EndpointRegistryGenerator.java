@@ -0,0 +1,173 @@
+package com.github.libgraviton.gdk.generator.registry;
+
+import com.github.libgraviton.gdk.generator.output.InMemoryCodeWriter;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.EndpointManager;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JVar;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates the endpoint registry: a class extending the EndpointManager, which holds the class to endpoint
+ * associations in static arrays instead of loading them from the serialized assoc file. The registry is registered as
+ * EndpointManager service, so workers can obtain it with {@code ServiceLoader.load(EndpointManager.class)}.
+ */
+public class EndpointRegistryGenerator {
+
+    /**
+     * The simple name of the generated registry class.
+     */
+    public static final String CLASS_NAME = "GeneratedEndpointRegistry";
+
+    /**
+     * The key under which the registry source is recorded in the generation manifest.
+     */
+    public static final String MANIFEST_KEY = "gdk:endpoint-registry";
+
+    /**
+     * The number of table entries initialized per method, which keeps the methods below the byte code size limit.
+     */
+    private static final int ENTRIES_PER_INIT_METHOD = 500;
+
+    /**
+     * The endpoints by class name, sorted by class name.
+     */
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+
+    /**
+     * The package of the registry class.
+     */
+    private final String packageName;
+
+    /**
+     * Constructor
+     *
+     * @param packageName The package of the registry class.
+     */
+    public EndpointRegistryGenerator(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Adds an endpoint to the registry.
+     *
+     * @param className The fully qualified name of the POJO class of the endpoint.
+     * @param endpoint The endpoint.
+     */
+    public synchronized void addEndpoint(String className, Endpoint endpoint) {
+        endpoints.put(className, endpoint);
+    }
+
+    /**
+     * Gets the fully qualified name of the registry class.
+     *
+     * @return The class name.
+     */
+    public String getFullClassName() {
+        return packageName.isEmpty() ? CLASS_NAME : packageName + '.' + CLASS_NAME;
+    }
+
+    /**
+     * Gets the path of the service file registering the registry class, relative to the resource root.
+     *
+     * @return The path of the service file.
+     */
+    public String getServiceFilePath() {
+        return "META-INF/services/" + EndpointManager.class.getName();
+    }
+
+    /**
+     * Generates the source of the registry class.
+     *
+     * @return The content of the generated file by its path, relative to the output root and separated by '/'.
+     *
+     * @throws IOException If the source cannot be built.
+     */
+    public synchronized Map<String, byte[]> generateSources() throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        JDefinedClass registry;
+        try {
+            registry = codeModel._class(JMod.PUBLIC | JMod.FINAL, getFullClassName(), ClassType.CLASS);
+        } catch (JClassAlreadyExistsException e) {
+            throw new IllegalStateException("The registry class is created in a fresh code model.", e);
+        }
+        JClass endpointClass = codeModel.ref(Endpoint.class);
+        JClass stringArray = codeModel.ref(String.class).array();
+        registry._extends(codeModel.ref(EndpointManager.class));
+        registry.javadoc().add("Class to endpoint associations of all generated POJOs, sorted by class name.");
+
+        int size = endpoints.size();
+        int staticMods = JMod.PRIVATE | JMod.STATIC | JMod.FINAL;
+        JFieldVar classNames = registry.field(staticMods, stringArray, "CLASS_NAMES",
+                JExpr.newArray(codeModel.ref(String.class), size));
+        JFieldVar itemUrls = registry.field(staticMods, stringArray, "ITEM_URLS",
+                JExpr.newArray(codeModel.ref(String.class), size));
+        JFieldVar urls = registry.field(staticMods, stringArray, "URLS",
+                JExpr.newArray(codeModel.ref(String.class), size));
+
+        JMethod initMethod = null;
+        int index = 0;
+        for (Map.Entry<String, Endpoint> endpoint : endpoints.entrySet()) {
+            if (0 == index % ENTRIES_PER_INIT_METHOD) {
+                initMethod = registry.method(
+                        JMod.PRIVATE | JMod.STATIC,
+                        codeModel.VOID,
+                        "init" + (index / ENTRIES_PER_INIT_METHOD)
+                );
+                registry.init().invoke(initMethod.name());
+            }
+            JBlock body = initMethod.body();
+            body.assign(classNames.component(JExpr.lit(index)), JExpr.lit(endpoint.getKey()));
+            body.assign(itemUrls.component(JExpr.lit(index)), literal(endpoint.getValue().getItemUrl()));
+            body.assign(urls.component(JExpr.lit(index)), literal(endpoint.getValue().getUrl()));
+            index++;
+        }
+
+        JMethod constructor = registry.constructor(JMod.PUBLIC);
+        JForLoop loop = constructor.body()._for();
+        JVar i = loop.init(codeModel.INT, "i", JExpr.lit(0));
+        loop.test(i.lt(JExpr.ref(classNames, "length")));
+        loop.update(i.incr());
+        loop.body().invoke("addEndpoint")
+                .arg(classNames.component(i))
+                .arg(JExpr._new(endpointClass).arg(itemUrls.component(i)).arg(urls.component(i)));
+
+        JMethod findEndpoint = registry.method(JMod.PUBLIC | JMod.STATIC, endpointClass, "findEndpoint");
+        findEndpoint.javadoc().add("Looks up the endpoint of a POJO class without creating the registry.");
+        JVar className = findEndpoint.param(String.class, "className");
+        JVar position = findEndpoint.body().decl(
+                codeModel.INT,
+                "index",
+                codeModel.ref(Arrays.class).staticInvoke("binarySearch").arg(classNames).arg(className)
+        );
+        findEndpoint.body()._return(JOp.cond(
+                position.lt(JExpr.lit(0)),
+                JExpr._null(),
+                JExpr._new(endpointClass).arg(itemUrls.component(position)).arg(urls.component(position))
+        ));
+
+        InMemoryCodeWriter codeWriter = new InMemoryCodeWriter();
+        codeModel.build(codeWriter);
+        return codeWriter.getFiles();
+    }
+
+    private JExpression literal(String value) {
+        return null == value ? JExpr._null() : JExpr.lit(value);
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.libgraviton.gdk.generator.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects durations and sizes of a generation run, in total per phase and per endpoint, and writes them as JSON.
+ *
+ * All methods are thread safe, since profiles are fetched and classes are generated concurrently.
+ */
+public class GenerationReport {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The number of endpoints listed as slowest endpoints.
+     */
+    private static final int SLOWEST_ENDPOINTS = 10;
+
+    private final long startTime = System.nanoTime();
+
+    private final Map<Phase, PhaseStatistics> phases = new EnumMap<>(Phase.class);
+
+    private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    private final LongAdder bytesDownloaded = new LongAdder();
+
+    private final LongAdder documentsDownloaded = new LongAdder();
+
+    private final LongAdder documentsFromCache = new LongAdder();
+
+    public GenerationReport() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new PhaseStatistics());
+        }
+    }
+
+    /**
+     * Records the duration of a phase which doesn't belong to an endpoint.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordPhase(Phase phase, long nanos) {
+        phases.get(phase).add(nanos);
+    }
+
+    /**
+     * Records the duration of a phase of an endpoint. The duration is added to the phase totals as well.
+     *
+     * @param endpoint The endpoint, identified by its item url.
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordPhase(String endpoint, Phase phase, long nanos) {
+        recordPhase(phase, nanos);
+        getEndpoint(endpoint).phases.computeIfAbsent(phase, p -> new AtomicLong()).addAndGet(nanos);
+    }
+
+    /**
+     * Records a document downloaded from Graviton.
+     *
+     * @param bytes The size of the document.
+     */
+    public void recordDownload(long bytes) {
+        bytesDownloaded.add(bytes);
+        documentsDownloaded.increment();
+    }
+
+    /**
+     * Records a document which was taken from the profile cache instead of being downloaded.
+     */
+    public void recordCacheHit() {
+        documentsFromCache.increment();
+    }
+
+    /**
+     * Records the output of an endpoint.
+     *
+     * @param endpoint The endpoint, identified by its item url.
+     * @param className The fully qualified name of the root class.
+     * @param files The number of generated files, which is the number of generated top level classes.
+     * @param bytes The total size of the generated files.
+     */
+    public void recordOutput(String endpoint, String className, int files, long bytes) {
+        EndpointStatistics statistics = getEndpoint(endpoint);
+        statistics.className = className;
+        statistics.files = files;
+        statistics.bytes = bytes;
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param file The report file.
+     *
+     * @throws IOException If the report cannot be written.
+     */
+    public void write(File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, toJson());
+    }
+
+    /**
+     * Creates the JSON representation of this report.
+     *
+     * @return The report.
+     */
+    public ObjectNode toJson() {
+        ObjectNode report = OBJECT_MAPPER.createObjectNode();
+        report.put("totalMillis", toMillis(System.nanoTime() - startTime));
+        report.put("bytesDownloaded", bytesDownloaded.sum());
+        report.put("documentsDownloaded", documentsDownloaded.sum());
+        report.put("documentsFromCache", documentsFromCache.sum());
+
+        ObjectNode phaseNode = report.putObject("phases");
+        for (Map.Entry<Phase, PhaseStatistics> phase : phases.entrySet()) {
+            ObjectNode node = phaseNode.putObject(phase.getKey().getReportName());
+            node.put("count", phase.getValue().count.sum());
+            node.put("millis", toMillis(phase.getValue().nanos.sum()));
+        }
+
+        List<Map.Entry<String, EndpointStatistics>> sortedEndpoints = new ArrayList<>(endpoints.entrySet());
+        sortedEndpoints.sort(Map.Entry.comparingByKey());
+        ArrayNode endpointNode = report.putArray("endpoints");
+        for (Map.Entry<String, EndpointStatistics> endpoint : sortedEndpoints) {
+            endpointNode.add(toJson(endpoint.getKey(), endpoint.getValue()));
+        }
+
+        sortedEndpoints.sort(Comparator.comparingLong(
+                (Map.Entry<String, EndpointStatistics> endpoint) -> endpoint.getValue().totalNanos()
+        ).reversed());
+        ArrayNode slowestNode = report.putArray("slowestEndpoints");
+        for (Map.Entry<String, EndpointStatistics> endpoint : sortedEndpoints) {
+            if (slowestNode.size() >= SLOWEST_ENDPOINTS) {
+                break;
+            }
+            ObjectNode node = slowestNode.addObject();
+            node.put("endpoint", endpoint.getKey());
+            node.put("totalMillis", toMillis(endpoint.getValue().totalNanos()));
+        }
+        return report;
+    }
+
+    private ObjectNode toJson(String endpoint, EndpointStatistics statistics) {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put("endpoint", endpoint);
+        node.put("className", statistics.className);
+        node.put("classes", statistics.files);
+        node.put("sourceBytes", statistics.bytes);
+        node.put("totalMillis", toMillis(statistics.totalNanos()));
+        ObjectNode phaseNode = node.putObject("phases");
+        for (Phase phase : Phase.values()) {
+            AtomicLong nanos = statistics.phases.get(phase);
+            if (null != nanos) {
+                phaseNode.put(phase.getReportName(), toMillis(nanos.get()));
+            }
+        }
+        return node;
+    }
+
+    private EndpointStatistics getEndpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, e -> new EndpointStatistics());
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static class PhaseStatistics {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        private void add(long duration) {
+            count.increment();
+            nanos.add(duration);
+        }
+    }
+
+    private static class EndpointStatistics {
+
+        private final Map<Phase, AtomicLong> phases = new ConcurrentHashMap<>();
+
+        private volatile String className;
+
+        private volatile int files;
+
+        private volatile long bytes;
+
+        private long totalNanos() {
+            long total = 0;
+            for (AtomicLong nanos : phases.values()) {
+                total += nanos.get();
+            }
+            return total;
+        }
+    }
+}
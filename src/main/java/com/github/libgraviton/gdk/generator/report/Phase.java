@@ -0,0 +1,29 @@
+package com.github.libgraviton.gdk.generator.report;
+
+/**
+ * The measured phases of a generation run.
+ */
+public enum Phase {
+
+    SERVICE_FETCH("serviceFetch"),
+    PROFILE_FETCH("profileFetch"),
+    PARSE("parse"),
+    ENRICH_SCHEMA("enrichSchema"),
+    SCHEMA_MAPPER_GENERATE("schemaMapperGenerate"),
+    CODE_MODEL_BUILD("codeModelBuild"),
+    WRITE("write"),
+    PERSIST("persist");
+
+    /**
+     * The name used in the report.
+     */
+    private final String reportName;
+
+    Phase(String reportName) {
+        this.reportName = reportName;
+    }
+
+    public String getReportName() {
+        return reportName;
+    }
+}
@@ -0,0 +1,396 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a compact binary codec for a generated class. The codec writes an object as array of its property values
+ * instead of a map of names to values, the position in the array is the field id of the property:
+ * <ul>
+ *     <li>field id 0 holds the additional properties, or null if there are none</li>
+ *     <li>field ids 1 to n hold the schema properties, in the order of the schema's 'properties'</li>
+ * </ul>
+ * The codec works on any streaming JsonGenerator / JsonParser, it's meant to be used with a binary format like Smile
+ * or CBOR. Properties having a generated class with its own codec (or a collection of such) are written by that codec,
+ * all other non-scalar properties are handed to the ObjectCodec of the generator / parser. Values of field ids unknown
+ * to the codec are skipped, so documents written with a schema that got new properties can still be read.
+ *
+ * The codecs are generated into the 'binary' sub-package of the class, named after the class with the suffix
+ * 'BinaryCodec'. Classes which are skipped by the JacksonCodecRule are skipped by this rule too.
+ */
+public class BinaryCodecRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    /**
+     * The sub-package of the generated class, the codec is generated in.
+     */
+    public static final String CODEC_PACKAGE = "binary";
+
+    public static final String CODEC_SUFFIX = "BinaryCodec";
+
+    private final RuleFactory ruleFactory;
+
+    protected BinaryCodecRule(RuleFactory ruleFactory) {
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Generates the binary codec of a class, once its properties are generated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the fully populated class
+     * @return the class, unchanged
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+        if (AnnotationStyle.JACKSON != annotationStyle && AnnotationStyle.JACKSON2 != annotationStyle) {
+            return jclass;
+        }
+
+        List<CodecProperty> properties = CodecProperty.determine(
+                ruleFactory.getNameHelper(),
+                node.get("properties"),
+                jclass
+        );
+        if (null == properties || CodecProperty.hasInaccessibleAdditionalProperties(jclass)) {
+            ruleFactory.getLogger().debug("Skipping binary codec of " + jclass.fullName() + ".");
+            return jclass;
+        }
+
+        JDefinedClass codec;
+        try {
+            codec = jclass._package().subPackage(CODEC_PACKAGE)._class(
+                    JMod.PUBLIC | JMod.FINAL,
+                    jclass.name() + CODEC_SUFFIX
+            );
+        } catch (JClassAlreadyExistsException e) {
+            // the codec of a shared class is only generated once
+            ruleFactory.getLogger().debug("Binary codec of " + jclass.fullName() + " already exists.");
+            return jclass;
+        }
+        codec.javadoc().add("Binary codec of {@link " + jclass.fullName() + "}, writing the properties by field id.");
+        codec.constructor(JMod.PRIVATE);
+
+        JClass additionalProperties = CodecProperty.additionalPropertiesType(jclass);
+        createWrite(codec, jclass, properties, additionalProperties);
+        createRead(codec, jclass, properties, additionalProperties);
+        return jclass;
+    }
+
+    private void createWrite(
+            JDefinedClass codec,
+            JDefinedClass jclass,
+            List<CodecProperty> properties,
+            JClass additionalProperties
+    ) {
+        JCodeModel codeModel = jclass.owner();
+        JMethod write = codec.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID, "write");
+        write._throws(IOException.class);
+        JVar value = write.param(jclass, "value");
+        JVar generator = write.param(JsonGenerator.class, "generator");
+        JBlock body = write.body();
+
+        JBlock nullBlock = body._if(value.eq(JExpr._null()))._then();
+        nullBlock.add(generator.invoke("writeNull"));
+        nullBlock._return();
+        body.add(generator.invoke("writeStartArray"));
+
+        if (null != additionalProperties) {
+            JVar additional = body.decl(
+                    codeModel.ref(Map.class).narrow(codeModel.ref(String.class), additionalProperties),
+                    "additionalProperties",
+                    JExpr.invoke(value, "getAdditionalProperties")
+            );
+            body.add(generator.invoke("writeObject").arg(JOp.cond(
+                    additional.eq(JExpr._null()).cor(additional.invoke("isEmpty")),
+                    JExpr._null(),
+                    additional
+            )));
+        } else {
+            body.add(generator.invoke("writeNull"));
+        }
+
+        for (CodecProperty property : properties) {
+            JType type = property.getType();
+            JVar propertyValue = body.decl(
+                    type,
+                    property.getField().name() + "Value",
+                    JExpr.invoke(value, property.getGetter())
+            );
+            JClass propertyCodec = findCodec(type);
+            JClass itemCodec = findItemCodec(type);
+            if (null != propertyCodec) {
+                body.add(propertyCodec.staticInvoke("write").arg(propertyValue).arg(generator));
+                continue;
+            }
+            if (null != itemCodec) {
+                JBlock itemsBlock = writeNullOr(body, propertyValue, generator);
+                itemsBlock.add(generator.invoke("writeStartArray"));
+                JForEach forEach = itemsBlock.forEach(
+                        ((JClass) type).getTypeParameters().get(0),
+                        "item",
+                        propertyValue
+                );
+                forEach.body().add(itemCodec.staticInvoke("write").arg(forEach.var()).arg(generator));
+                itemsBlock.add(generator.invoke("writeEndArray"));
+                continue;
+            }
+
+            switch (CodecProperty.ScalarType.of(type)) {
+                case STRING:
+                    writeNullOr(body, propertyValue, generator).add(generator.invoke("writeString").arg(propertyValue));
+                    break;
+                case BOOLEAN:
+                    writeNullOr(body, propertyValue, generator)
+                            .add(generator.invoke("writeBoolean").arg(propertyValue));
+                    break;
+                case INTEGER:
+                case LONG:
+                case DOUBLE:
+                    writeNullOr(body, propertyValue, generator)
+                            .add(generator.invoke("writeNumber").arg(propertyValue));
+                    break;
+                default:
+                    // writes null by itself
+                    body.add(generator.invoke("writeObject").arg(propertyValue));
+            }
+        }
+        body.add(generator.invoke("writeEndArray"));
+    }
+
+    /**
+     * Writes null if a non-primitive value is null.
+     *
+     * @return The block writing the value if it is not null.
+     */
+    private JBlock writeNullOr(JBlock body, JVar propertyValue, JVar generator) {
+        if (propertyValue.type().isPrimitive()) {
+            return body;
+        }
+        JConditional isNull = body._if(propertyValue.eq(JExpr._null()));
+        isNull._then().add(generator.invoke("writeNull"));
+        return isNull._else();
+    }
+
+    private void createRead(
+            JDefinedClass codec,
+            JDefinedClass jclass,
+            List<CodecProperty> properties,
+            JClass additionalProperties
+    ) {
+        JCodeModel codeModel = jclass.owner();
+        JClass tokenClass = codeModel.ref(JsonToken.class);
+        JFieldRef valueNull = tokenClass.staticRef("VALUE_NULL");
+        JFieldRef endArray = tokenClass.staticRef("END_ARRAY");
+
+        JMethod read = codec.method(JMod.PUBLIC | JMod.STATIC, jclass, "read");
+        read._throws(IOException.class);
+        JVar parser = read.param(JsonParser.class, "parser");
+        JBlock body = read.body();
+
+        JVar token = body.decl(tokenClass, "token", parser.invoke("currentToken"));
+        body._if(token.eq(JExpr._null()))._then().assign(token, parser.invoke("nextToken"));
+        body._if(token.eq(valueNull))._then()._return(JExpr._null());
+        body._if(token.ne(tokenClass.staticRef("START_ARRAY")))._then()._throw(
+                JExpr._new(codeModel.ref(JsonParseException.class))
+                        .arg(parser)
+                        .arg(JExpr.lit("Expected the binary representation of " + jclass.name() + "."))
+        );
+
+        JVar value = body.decl(jclass, "value", JExpr._new(jclass));
+        JVar fieldId = body.decl(codeModel.INT, "fieldId", JExpr.lit(0));
+        JForLoop loop = body._for();
+        loop.init(token, parser.invoke("nextToken"));
+        loop.test(token.ne(endArray).cand(token.ne(JExpr._null())));
+        loop.update(JExpr.assign(token, parser.invoke("nextToken")));
+        JBlock loopBody = loop.body();
+        JVar isNull = loopBody.decl(codeModel.BOOLEAN, "isNull", token.eq(valueNull));
+        // codemodel doesn't parenthesize a unary switch expression, so the id is read into a local first
+        JVar currentId = loopBody.decl(codeModel.INT, "currentId", fieldId.incr());
+        JSwitch fieldSwitch = loopBody._switch(currentId);
+
+        JBlock additionalBody = fieldSwitch._case(JExpr.lit(0)).body();
+        if (null != additionalProperties) {
+            JClass mapType = codeModel.ref(Map.class).narrow(codeModel.ref(String.class), additionalProperties);
+            JBlock notNull = additionalBody._if(isNull.not())._then();
+            // readValueAs infers the map type from the declaration, so no unchecked cast is needed
+            JVar map = notNull.decl(
+                    mapType,
+                    "additionalProperties",
+                    parser.invoke("readValueAs").arg(typeReference(codec, mapType))
+            );
+            JForEach forEach = notNull.forEach(
+                    codeModel.ref(Map.Entry.class).narrow(codeModel.ref(String.class), additionalProperties),
+                    "entry",
+                    map.invoke("entrySet")
+            );
+            forEach.body().invoke(value, "setAdditionalProperty")
+                    .arg(forEach.var().invoke("getKey"))
+                    .arg(forEach.var().invoke("getValue"));
+        } else {
+            additionalBody.add(parser.invoke("skipChildren"));
+        }
+        additionalBody._break();
+
+        int id = 1;
+        for (CodecProperty property : properties) {
+            JType type = property.getType();
+            JBlock caseBody = fieldSwitch._case(JExpr.lit(id)).body();
+            JClass propertyCodec = findCodec(type);
+            JClass itemCodec = findItemCodec(type);
+            if (null != propertyCodec) {
+                caseBody.invoke(value, property.getSetter()).arg(propertyCodec.staticInvoke("read").arg(parser));
+            } else if (null != itemCodec) {
+                JBlock itemsBlock = caseBody._if(isNull.not())._then();
+                JVar items = itemsBlock.decl(
+                        type,
+                        "items" + id,
+                        JExpr._new(collectionImplementation((JClass) type))
+                );
+                JWhileLoop itemLoop = itemsBlock._while(parser.invoke("nextToken").ne(endArray));
+                itemLoop.body().add(items.invoke("add").arg(itemCodec.staticInvoke("read").arg(parser)));
+                itemsBlock.invoke(value, property.getSetter()).arg(items);
+            } else {
+                JExpression readValue;
+                switch (CodecProperty.ScalarType.of(type)) {
+                    case STRING:
+                        readValue = parser.invoke("getValueAsString");
+                        break;
+                    case BOOLEAN:
+                        readValue = parser.invoke("getValueAsBoolean");
+                        break;
+                    case INTEGER:
+                        readValue = parser.invoke("getValueAsInt");
+                        break;
+                    case LONG:
+                        readValue = parser.invoke("getValueAsLong");
+                        break;
+                    case DOUBLE:
+                        readValue = parser.invoke("getValueAsDouble");
+                        break;
+                    default:
+                        readValue = parser.invoke("readValueAs").arg(valueType(codec, type));
+                }
+                if (type.isPrimitive()) {
+                    caseBody._if(isNull.not())._then().invoke(value, property.getSetter()).arg(readValue);
+                } else {
+                    caseBody.invoke(value, property.getSetter()).arg(JOp.cond(isNull, JExpr._null(), readValue));
+                }
+            }
+            caseBody._break();
+            id++;
+        }
+
+        // written with a newer schema
+        fieldSwitch._default().body().add(parser.invoke("skipChildren"));
+        body._return(value);
+    }
+
+    /**
+     * Finds the binary codec of a type.
+     *
+     * @param type The type of a property.
+     *
+     * @return The codec class or null if the type is no generated class with a binary codec.
+     */
+    private JClass findCodec(JType type) {
+        if (!(type instanceof JDefinedClass) || ClassType.CLASS != ((JDefinedClass) type).getClassType()) {
+            return null;
+        }
+        JDefinedClass definedClass = (JDefinedClass) type;
+        return definedClass._package().subPackage(CODEC_PACKAGE)._getClass(definedClass.name() + CODEC_SUFFIX);
+    }
+
+    /**
+     * Finds the binary codec of the items of a list or set.
+     *
+     * @param type The type of a property.
+     *
+     * @return The codec class or null if the type is no list or set of a generated class with a binary codec.
+     */
+    private JClass findItemCodec(JType type) {
+        if (!(type instanceof JClass) || null == collectionImplementation((JClass) type)) {
+            return null;
+        }
+        List<JClass> typeParameters = ((JClass) type).getTypeParameters();
+        return 1 == typeParameters.size() ? findCodec(typeParameters.get(0)) : null;
+    }
+
+    /**
+     * Determines the class instantiated when the items of a collection property are read.
+     *
+     * @param type The type of the property.
+     *
+     * @return The narrowed implementation or null if the type is neither a List nor a Set.
+     */
+    private JClass collectionImplementation(JClass type) {
+        JCodeModel codeModel = type.owner();
+        String erasure = type.erasure().fullName();
+        if (List.class.getName().equals(erasure)) {
+            return codeModel.ref(ArrayList.class).narrow(type.getTypeParameters());
+        }
+        if (Set.class.getName().equals(erasure)) {
+            return codeModel.ref(LinkedHashSet.class).narrow(type.getTypeParameters());
+        }
+        return null;
+    }
+
+    /**
+     * Determines the argument passed to JsonParser.readValueAs for a non-scalar type.
+     *
+     * @return The class literal, or a TypeReference constant of the codec for generic types.
+     */
+    private JExpression valueType(JDefinedClass codec, JType type) {
+        if (!(type instanceof JClass) || ((JClass) type).getTypeParameters().isEmpty()) {
+            return JExpr.dotclass(type.boxify());
+        }
+        return typeReference(codec, (JClass) type);
+    }
+
+    private JFieldVar typeReference(JDefinedClass codec, JClass type) {
+        JClass typeReference = codec.owner().ref(TypeReference.class).narrow(type);
+        return codec.field(
+                JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                typeReference,
+                "TYPE_" + codec.fields().size(),
+                JExpr._new(codec.owner().anonymousClass(typeReference))
+        );
+    }
+}
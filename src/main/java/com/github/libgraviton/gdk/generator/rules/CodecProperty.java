@@ -0,0 +1,199 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JType;
+import org.jsonschema2pojo.util.NameHelper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A schema property together with the generated field and accessors, as used by the codec rules.
+ */
+class CodecProperty {
+
+    private static final String ADDITIONAL_PROPERTIES = "additionalProperties";
+
+    private final String jsonName;
+
+    private final JFieldVar field;
+
+    /**
+     * The type of the accessors. The boxed type of the field if a primitive field is exposed boxed.
+     */
+    private final JType type;
+
+    private final JMethod getter;
+
+    private final JMethod setter;
+
+    private CodecProperty(String jsonName, JFieldVar field, JType type, JMethod getter, JMethod setter) {
+        this.jsonName = jsonName;
+        this.field = field;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    String getJsonName() {
+        return jsonName;
+    }
+
+    JFieldVar getField() {
+        return field;
+    }
+
+    JType getType() {
+        return type;
+    }
+
+    JMethod getGetter() {
+        return getter;
+    }
+
+    JMethod getSetter() {
+        return setter;
+    }
+
+    /**
+     * Maps the schema properties to the fields and accessors of a class, in schema order.
+     *
+     * @param nameHelper The name helper the class was generated with.
+     * @param propertiesNode The 'properties' node of the schema. May be null.
+     * @param jclass The populated class.
+     *
+     * @return The properties or null if the class extends another class or a property can't be mapped.
+     */
+    static List<CodecProperty> determine(NameHelper nameHelper, JsonNode propertiesNode, JDefinedClass jclass) {
+        JCodeModel codeModel = jclass.owner();
+        if (!codeModel.ref(Object.class).equals(jclass._extends())) {
+            return null;
+        }
+
+        List<CodecProperty> properties = new ArrayList<>();
+        if (null == propertiesNode) {
+            return properties;
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = propertiesNode.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> property = fields.next();
+            String jsonName = property.getKey();
+            JFieldVar field = jclass.fields().get(nameHelper.getPropertyName(jsonName, property.getValue()));
+            if (null == field) {
+                return null;
+            }
+            JType type = accessorType(nameHelper, jclass, jsonName, field, property.getValue());
+            JMethod getter = jclass.getMethod(
+                    nameHelper.getGetterName(jsonName, type, property.getValue()),
+                    new JType[0]
+            );
+            JMethod setter = jclass.getMethod(
+                    nameHelper.getSetterName(jsonName, property.getValue()),
+                    new JType[] {type}
+            );
+            if (null == getter || null == setter) {
+                return null;
+            }
+            properties.add(new CodecProperty(jsonName, field, type, getter, setter));
+        }
+        return properties;
+    }
+
+    /**
+     * Determines the type of the accessors of a property. It is the type of the field, unless a primitive field is
+     * exposed by boxed accessors (see PrimitivePropertiesRule).
+     *
+     * @param nameHelper The name helper the class was generated with.
+     * @param jclass The populated class.
+     * @param jsonName The name of the property.
+     * @param field The field of the property.
+     * @param node The schema of the property.
+     *
+     * @return The type of the getter and the setter parameter.
+     */
+    static JType accessorType(
+            NameHelper nameHelper,
+            JDefinedClass jclass,
+            String jsonName,
+            JFieldVar field,
+            JsonNode node
+    ) {
+        JType type = field.type();
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        // the getter name depends on the type, e.g. 'is' for primitive booleans
+        JMethod getter = jclass.getMethod(nameHelper.getGetterName(jsonName, type, node), new JType[0]);
+        return null != getter && type.equals(getter.type()) ? type : type.boxify();
+    }
+
+    /**
+     * Determines the value type of the additional properties of a class, if the class holds them with the accessors
+     * jsonschema2pojo generates for them. A typed schema like "additionalProperties": {"type": "string"} leads to a
+     * Map&lt;String, String&gt; field and a setAdditionalProperty(String, String) setter.
+     *
+     * @param jclass The populated class.
+     *
+     * @return The value type or null if the class has no accessible additional properties.
+     */
+    static JClass additionalPropertiesType(JDefinedClass jclass) {
+        JFieldVar field = jclass.fields().get(ADDITIONAL_PROPERTIES);
+        if (null == field || !(field.type() instanceof JClass)) {
+            return null;
+        }
+        List<JClass> typeParameters = ((JClass) field.type()).getTypeParameters();
+        JCodeModel codeModel = jclass.owner();
+        if (2 != typeParameters.size() || !codeModel.ref(String.class).equals(typeParameters.get(0))) {
+            return null;
+        }
+        JClass valueType = typeParameters.get(1);
+        boolean accessible = null != jclass.getMethod("getAdditionalProperties", new JType[0])
+                && null != jclass.getMethod(
+                        "setAdditionalProperty",
+                        new JType[] {codeModel.ref(String.class), valueType}
+                );
+        return accessible ? valueType : null;
+    }
+
+    /**
+     * Checks whether a class holds additional properties which the generated code can't read or write, e.g. because
+     * their accessors were customized. Generated code would silently drop them, so it is skipped for such classes.
+     *
+     * @param jclass The populated class.
+     *
+     * @return true if the class has an additional properties field, but no matching accessors.
+     */
+    static boolean hasInaccessibleAdditionalProperties(JDefinedClass jclass) {
+        return jclass.fields().containsKey(ADDITIONAL_PROPERTIES) && null == additionalPropertiesType(jclass);
+    }
+
+    /**
+     * The types which are read and written directly by the generated codecs.
+     */
+    enum ScalarType {
+        STRING, BOOLEAN, INTEGER, LONG, DOUBLE, OTHER;
+
+        static ScalarType of(JType type) {
+            switch (type.unboxify().fullName()) {
+                case "java.lang.String":
+                    return STRING;
+                case "boolean":
+                    return BOOLEAN;
+                case "int":
+                    return INTEGER;
+                case "long":
+                    return LONG;
+                case "double":
+                    return DOUBLE;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+}
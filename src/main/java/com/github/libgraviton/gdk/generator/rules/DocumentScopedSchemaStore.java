@@ -0,0 +1,96 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import org.jsonschema2pojo.ContentResolver;
+import org.jsonschema2pojo.RuleLogger;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.SchemaStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+
+/**
+ * Schema store which keeps a separate cache for every schema document.
+ *
+ * Graviton profiles don't have an id, so the fragments of all profiles are stored with ids like '#properties/name'.
+ * Sharing one cache between profiles would therefore mix up fragments of different profiles. Within an open document
+ * all fragments are cached, so repeated sub-schemas are only resolved once per document. Outside of a document no
+ * cache is used at all.
+ */
+public class DocumentScopedSchemaStore extends SchemaStore {
+
+    private final Logger LOG = LoggerFactory.getLogger(DocumentScopedSchemaStore.class);
+
+    /**
+     * The store of the currently open document. Null if no document is open.
+     */
+    private SchemaStore documentStore;
+
+    public DocumentScopedSchemaStore() {
+        super();
+    }
+
+    /**
+     * @param contentResolver The resolver reading referenced schemas.
+     * @param logger The logger of the rule factory, also used by the stores of the documents.
+     */
+    public DocumentScopedSchemaStore(ContentResolver contentResolver, RuleLogger logger) {
+        super(contentResolver, logger);
+    }
+
+    /**
+     * Starts a new document. The cache of a previously opened document is discarded.
+     *
+     * @param document The name of the document, e.g. the class generated from it.
+     */
+    public synchronized void openDocument(String document) {
+        LOG.debug("Opening schema document '{}'.", document);
+        documentStore = new SchemaStore(contentResolver, logger);
+    }
+
+    /**
+     * Ends the current document and discards its cache.
+     */
+    public synchronized void closeDocument() {
+        documentStore = null;
+    }
+
+    @Override
+    public synchronized Schema create(URI id, String refFragmentPathDelimiters) {
+        return currentStore().create(id, withFragmentDelimiter(refFragmentPathDelimiters));
+    }
+
+    @Override
+    public synchronized Schema create(Schema parent, String path, String refFragmentPathDelimiters) {
+        return currentStore().create(parent, path, withFragmentDelimiter(refFragmentPathDelimiters));
+    }
+
+    @Override
+    public synchronized void clearCache() {
+        if (null != documentStore) {
+            documentStore.clearCache();
+        }
+    }
+
+    /**
+     * Gets the store of the current document, or an empty one if no document is open.
+     *
+     * @return The schema store.
+     */
+    private SchemaStore currentStore() {
+        return null != documentStore ? documentStore : new SchemaStore(contentResolver, logger);
+    }
+
+    /**
+     * Makes sure the '#' starting a fragment is a delimiter. Fragments of profiles without id, like
+     * '#/properties/name', are resolved against the content of the document. Their path would otherwise start with a
+     * '#' segment, which the document doesn't have.
+     *
+     * @param refFragmentPathDelimiters The configured delimiters.
+     *
+     * @return The delimiters including '#'.
+     */
+    private static String withFragmentDelimiter(String refFragmentPathDelimiters) {
+        return refFragmentPathDelimiters.indexOf('#') < 0 ? "#" + refFragmentPathDelimiters : refFragmentPathDelimiters;
+    }
+}
@@ -13,7 +13,12 @@ import static org.apache.commons.lang3.StringUtils.capitalize;
 
 public class GravitonNameHelper extends NameHelper {
 
-    private final Stack<String> nodeContext = new Stack<>();
+    /**
+     * The name of the shared classes, followed by the structural hash of their schema.
+     */
+    private static final String SHARED_CLASS_BASE_NAME = "Object";
+
+    private Stack<String> nodeContext = new Stack<>();
     private final GenerationConfig generationConfig;
 
     public GravitonNameHelper(GenerationConfig generationConfig) {
@@ -61,6 +66,23 @@ public class GravitonNameHelper extends NameHelper {
         //return normalizeName(className);
     }
 
+    /**
+     * Generates the name of a class shared by all structurally identical sub-schemas. The name only depends on the
+     * shape of the schema, so it is the same for every endpoint and every property using it.
+     *
+     * @param shapeHash The structural hash of the sub-schema
+     *
+     * @return The class name
+     */
+    public String getSharedClassName(String shapeHash) {
+        String className = createFullFieldName(
+                SHARED_CLASS_BASE_NAME + shapeHash,
+                generationConfig.getClassNamePrefix(),
+                generationConfig.getClassNameSuffix()
+        );
+        return replaceIllegalCharacters(className);
+    }
+
     private String createFullFieldName(String nodeName, String prefix, String suffix) {
         String returnString = nodeName;
         if (prefix != null) {
@@ -83,6 +105,27 @@ public class GravitonNameHelper extends NameHelper {
         nodeContext.push(WordUtils.capitalize(capitalizeTrailingWords(nodeName)));
     }
 
+    /**
+     * Replaces the nodeContext with an empty one, so class names generated afterwards don't depend on where the
+     * current node is located.
+     *
+     * @return The replaced nodeContext, to be passed to {@link #restoreNodeContext(Stack)}
+     */
+    public Stack<String> detachNodeContext() {
+        Stack<String> detachedContext = nodeContext;
+        nodeContext = new Stack<>();
+        return detachedContext;
+    }
+
+    /**
+     * Restores a nodeContext replaced by {@link #detachNodeContext()}.
+     *
+     * @param detachedContext The replaced nodeContext
+     */
+    public void restoreNodeContext(Stack<String> detachedContext) {
+        nodeContext = detachedContext;
+    }
+
     /**
      * Gets and removes the lastly pushed node from the nodeContext.
      *
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.Stack;
 
 import org.jsonschema2pojo.AnnotationStyle;
 import org.jsonschema2pojo.Annotator;
@@ -104,13 +105,39 @@ public class GravitonObjectRule extends ObjectRule {
         }
          **/
 
+        boolean sharedType = isSharedType(node, parent);
         JDefinedClass jclass;
         try {
-            jclass = createClass(nodeName, node, _package);
+            jclass = sharedType ? createSharedClass(node, _package) : createClass(nodeName, node, _package);
         } catch (ClassAlreadyExistsException e) {
             return e.getExistingClass();
         }
 
+        if (!sharedType) {
+            return populateClass(nodeName, node, parent, jclass, superType, schema);
+        }
+
+        // the content of a shared class must not depend on the location of its first usage
+        GravitonNameHelper nameHelper = (GravitonNameHelper) ruleFactory.getNameHelper();
+        Stack<String> nodeContext = nameHelper.detachNodeContext();
+        try {
+            return populateClass(nodeName, node, parent, jclass, superType, schema);
+        } finally {
+            nameHelper.restoreNodeContext(nodeContext);
+        }
+    }
+
+    /**
+     * Adds the fields, methods and annotations defined by the schema to a newly created class.
+     */
+    private JType populateClass(
+            String nodeName,
+            JsonNode node,
+            JsonNode parent,
+            JDefinedClass jclass,
+            JType superType,
+            Schema schema
+    ) {
         jclass._extends((JClass) superType);
 
         schema.setJavaTypeIfEmpty(jclass);
@@ -146,6 +173,12 @@ public class GravitonObjectRule extends ObjectRule {
             ruleFactory.getRequiredArrayRule().apply(nodeName, node.get("required"), node, jclass, schema);
         }
 
+        if (ruleFactory instanceof GravitonRuleFactory && ((GravitonRuleFactory) ruleFactory).isPrimitiveProperties()) {
+            // before equals() and hashCode(), which use the primitive fields directly
+            ((GravitonRuleFactory) ruleFactory).getPrimitivePropertiesRule()
+                    .apply(nodeName, node, parent, jclass, schema);
+        }
+
         if (ruleFactory.getGenerationConfig().isIncludeGeneratedAnnotation()) {
             AnnotationHelper.addGeneratedAnnotation(ruleFactory.getGenerationConfig(), jclass);
         }
@@ -171,10 +204,94 @@ public class GravitonObjectRule extends ObjectRule {
             SerializableHelper.addSerializableSupport(jclass);
         }
 
+        if (ruleFactory instanceof GravitonRuleFactory) {
+            GravitonRuleFactory gravitonRuleFactory = (GravitonRuleFactory) ruleFactory;
+            if (gravitonRuleFactory.isLazyCollections()) {
+                gravitonRuleFactory.getLazyCollectionsRule().apply(nodeName, node, parent, jclass, schema);
+            }
+            if (gravitonRuleFactory.isGenerateCodecs() && gravitonRuleFactory.isLazyProperties()) {
+                // before the codecs, which check whether the class is lazy
+                gravitonRuleFactory.getLazyPropertiesRule().apply(nodeName, node, parent, jclass, schema);
+            }
+            if (gravitonRuleFactory.isGenerateCodecs()) {
+                gravitonRuleFactory.getCodecRule().apply(nodeName, node, parent, jclass, schema);
+            }
+            if (gravitonRuleFactory.isGenerateBinaryCodecs()) {
+                gravitonRuleFactory.getBinaryCodecRule().apply(nodeName, node, parent, jclass, schema);
+            }
+            if (null != gravitonRuleFactory.getViewIndexClassName()) {
+                gravitonRuleFactory.getViewRule().apply(nodeName, node, parent, jclass, schema);
+            }
+        }
+
         return jclass;
 
     }
 
+    /**
+     * Checks whether a schema is generated as shared class. Only nested objects defining their own properties are
+     * shared, the root class of an endpoint and classes with an explicit java type are not.
+     *
+     * @param node The schema of the object.
+     * @param parent The parent schema. Null for the root schema.
+     *
+     * @return true if the object is generated as shared class.
+     */
+    private boolean isSharedType(JsonNode node, JsonNode parent) {
+        return null != parent
+                && ruleFactory instanceof GravitonRuleFactory
+                && ((GravitonRuleFactory) ruleFactory).isDeduplicateTypes()
+                && ruleFactory.getNameHelper() instanceof GravitonNameHelper
+                && node.has("properties")
+                && !node.has("javaType")
+                && !node.has("existingJavaType");
+    }
+
+    /**
+     * Creates the shared class of an object schema. If the class of a structurally identical schema was already
+     * created, the existing class is used.
+     *
+     * @param node The schema of the object.
+     * @param _package Any package of the code model.
+     *
+     * @return The newly created class.
+     *
+     * @throws ClassAlreadyExistsException If the shared class already exists.
+     * @throws GenerationException If a different schema with the same hash was seen before in the generation run.
+     */
+    private JDefinedClass createSharedClass(JsonNode node, JPackage _package)
+            throws ClassAlreadyExistsException {
+        GravitonRuleFactory gravitonRuleFactory = (GravitonRuleFactory) ruleFactory;
+        JPackage sharedPackage = _package.owner()._package(gravitonRuleFactory.getSharedPackageName());
+        String canonicalForm = SchemaShapes.canonicalForm(node);
+        String shapeHash = SchemaShapes.hashCanonicalForm(canonicalForm);
+        String className = ((GravitonNameHelper) ruleFactory.getNameHelper()).getSharedClassName(shapeHash);
+        if (!canonicalForm.equals(gravitonRuleFactory.registerSharedClassShape(shapeHash, canonicalForm))) {
+            throw new GenerationException(
+                    "Shared class " + sharedPackage.name() + "." + className + " was created for a different schema "
+                            + "with the same shape hash."
+            );
+        }
+
+        Annotator annotator = ruleFactory.getAnnotator();
+        JDefinedClass newType;
+        try {
+            if (annotator.isPolymorphicDeserializationSupported(node)) {
+                newType = sharedPackage._class(JMod.PUBLIC, className, ClassType.CLASS);
+            } else {
+                newType = sharedPackage._class(className);
+            }
+        } catch (JClassAlreadyExistsException e) {
+            throw new ClassAlreadyExistsException(e.getExistingClass());
+        }
+        ruleFactory.getLogger().debug("Adding shared " + newType.fullName());
+
+        annotator.typeInfo(newType, node);
+        annotator.propertyInclusion(newType, node);
+
+        return newType;
+    }
+
     private void addParcelSupport(JDefinedClass jclass) {
         jclass._implements(jclass.owner().directClass("android.os.Parcelable"));
 
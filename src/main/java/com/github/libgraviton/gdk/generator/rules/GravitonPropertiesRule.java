@@ -20,12 +20,13 @@ public class GravitonPropertiesRule extends PropertiesRule {
             ((GravitonNameHelper) ruleFactory.getNameHelper()).pushToNodeContext(nodeName);
         }
 
-        JDefinedClass returnValue = super.apply(nodeName, node, parent, jclass, schema);
-
-        if (ruleFactory.getNameHelper() instanceof GravitonNameHelper) {
-            ((GravitonNameHelper) ruleFactory.getNameHelper()).popFromNodeContext();
+        try {
+            return super.apply(nodeName, node, parent, jclass, schema);
+        } finally {
+            // keeps the node context balanced if the generation fails, so the name helper can be reused
+            if (ruleFactory.getNameHelper() instanceof GravitonNameHelper) {
+                ((GravitonNameHelper) ruleFactory.getNameHelper()).popFromNodeContext();
+            }
         }
-
-        return returnValue;
     }
 }
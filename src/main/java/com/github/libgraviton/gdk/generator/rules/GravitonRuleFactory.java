@@ -1,12 +1,17 @@
 package com.github.libgraviton.gdk.generator.rules;
 
 import com.sun.codemodel.*;
+import org.jsonschema2pojo.ContentResolver;
+import org.jsonschema2pojo.RuleLogger;
 import org.jsonschema2pojo.SchemaStore;
 import org.jsonschema2pojo.rules.Rule;
 import org.jsonschema2pojo.rules.RuleFactory;
 import org.jsonschema2pojo.util.NameHelper;
 import org.jsonschema2pojo.util.ParcelableHelper;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Extended rule factory to match Graviton needs.
  */
@@ -14,6 +19,255 @@ public class GravitonRuleFactory extends RuleFactory {
 
     private GravitonNameHelper nameHelper;
 
+    /**
+     * Whether structurally identical nested objects share a single class.
+     */
+    private boolean deduplicateTypes = false;
+
+    /**
+     * The package of the shared classes.
+     */
+    private String sharedPackageName = "shared";
+
+    /**
+     * The canonical form of the schema every shared class was created for, by the structural hash the class is named
+     * after. Shared by all rule factories of a generation run, see {@link #setSharedClassShapes(Map)}.
+     */
+    private Map<String, String> sharedClassShapes = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a Jackson serializer and deserializer is generated for every class.
+     */
+    private boolean generateCodecs = false;
+
+    /**
+     * Whether integer, number and boolean properties are stored in primitive fields.
+     */
+    private boolean primitiveProperties = false;
+
+    /**
+     * Whether the collections and the additional properties map are allocated on first write.
+     */
+    private boolean lazyCollections = false;
+
+    /**
+     * Whether the classes keep the raw JSON and decode their properties on first access.
+     */
+    private boolean lazyProperties = false;
+
+    /**
+     * Whether a binary codec is generated for every class.
+     */
+    private boolean generateBinaryCodecs = false;
+
+    /**
+     * The fully qualified name of the DocumentIndex class the views are generated against. Null if no views are
+     * generated.
+     */
+    private String viewIndexClassName;
+
+    public GravitonRuleFactory() {
+        super();
+        setSchemaStore(new DocumentScopedSchemaStore(new ContentResolver(), getLogger()));
+    }
+
+    /**
+     * Sets the logger, which the per document schema store logs with as well.
+     *
+     * @param logger The logger of the rules.
+     */
+    @Override
+    public void setLogger(RuleLogger logger) {
+        super.setLogger(logger);
+        if (super.getSchemaStore() instanceof DocumentScopedSchemaStore) {
+            setSchemaStore(new DocumentScopedSchemaStore(new ContentResolver(), logger));
+        }
+    }
+
+    public boolean isDeduplicateTypes() {
+        return deduplicateTypes;
+    }
+
+    /**
+     * Sets whether structurally identical nested objects share a single class. The shared classes are generated into
+     * the shared package and named after the structural hash of their schema, so every endpoint and property refers
+     * to the same class.
+     *
+     * @param deduplicateTypes Whether nested types are deduplicated.
+     */
+    public void setDeduplicateTypes(boolean deduplicateTypes) {
+        this.deduplicateTypes = deduplicateTypes;
+    }
+
+    public String getSharedPackageName() {
+        return sharedPackageName;
+    }
+
+    public void setSharedPackageName(String sharedPackageName) {
+        this.sharedPackageName = sharedPackageName;
+    }
+
+    /**
+     * Sets the registry of the shapes of the shared classes. The shared classes of a generation run are created by
+     * several rule factories and code models, passing the same registry to all of them detects hash collisions
+     * between the endpoints as well.
+     *
+     * @param sharedClassShapes A thread-safe map from the structural hash to the canonical form of a schema.
+     */
+    public void setSharedClassShapes(Map<String, String> sharedClassShapes) {
+        this.sharedClassShapes = sharedClassShapes;
+    }
+
+    /**
+     * Records the canonical form of the schema a shared class is created for, unless a schema with the same hash was
+     * recorded before.
+     *
+     * @param shapeHash The structural hash of the schema.
+     * @param canonicalForm The canonical form of the schema.
+     *
+     * @return The canonical form recorded for the hash, which differs from the given one on a hash collision.
+     */
+    String registerSharedClassShape(String shapeHash, String canonicalForm) {
+        String existingShape = sharedClassShapes.putIfAbsent(shapeHash, canonicalForm);
+        return null == existingShape ? canonicalForm : existingShape;
+    }
+
+    public boolean isGenerateCodecs() {
+        return generateCodecs;
+    }
+
+    /**
+     * Sets whether a reflection-free Jackson serializer and deserializer is generated for every class.
+     *
+     * @param generateCodecs Whether the codecs are generated.
+     */
+    public void setGenerateCodecs(boolean generateCodecs) {
+        this.generateCodecs = generateCodecs;
+    }
+
+    /**
+     * Provides a rule instance that generates the Jackson serializer and deserializer of a populated class.
+     *
+     * @return a schema rule that can generate the codecs of a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getCodecRule() {
+        return new JacksonCodecRule(this);
+    }
+
+    public boolean isPrimitiveProperties() {
+        return primitiveProperties;
+    }
+
+    /**
+     * Sets whether the integer, number and boolean properties of the classes are stored in primitive fields, whose
+     * presence is tracked by a bitset. The accessors keep their boxed types.
+     *
+     * @param primitiveProperties Whether primitive fields are generated.
+     */
+    public void setPrimitiveProperties(boolean primitiveProperties) {
+        this.primitiveProperties = primitiveProperties;
+    }
+
+    /**
+     * Provides a rule instance that converts the boxed scalar fields of a class to primitives.
+     *
+     * @return a schema rule that can convert the fields of a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getPrimitivePropertiesRule() {
+        return new PrimitivePropertiesRule(this);
+    }
+
+    public boolean isLazyCollections() {
+        return lazyCollections;
+    }
+
+    /**
+     * Sets whether the collections and the map of the additional properties of the classes are only allocated on
+     * first write, their getters return shared immutable empty ones meanwhile.
+     *
+     * @param lazyCollections Whether the collections are allocated lazily.
+     */
+    public void setLazyCollections(boolean lazyCollections) {
+        this.lazyCollections = lazyCollections;
+    }
+
+    /**
+     * Provides a rule instance that makes a populated class allocate its collections lazily.
+     *
+     * @return a schema rule that can remove the eager collection allocations of a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getLazyCollectionsRule() {
+        return new LazyCollectionsRule(this);
+    }
+
+    public boolean isLazyProperties() {
+        return lazyProperties;
+    }
+
+    /**
+     * Sets whether the classes keep the raw JSON they are read from and decode a property on the first access. Only
+     * has an effect together with the codecs, whose deserializer provides the raw JSON.
+     *
+     * @param lazyProperties Whether the properties are decoded lazily.
+     */
+    public void setLazyProperties(boolean lazyProperties) {
+        this.lazyProperties = lazyProperties;
+    }
+
+    /**
+     * Provides a rule instance that makes a populated class decode its properties lazily.
+     *
+     * @return a schema rule that can add the lazy decoding to a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getLazyPropertiesRule() {
+        return new LazyPropertiesRule(this);
+    }
+
+    public boolean isGenerateBinaryCodecs() {
+        return generateBinaryCodecs;
+    }
+
+    /**
+     * Sets whether a binary codec, writing the properties by field id, is generated for every class.
+     *
+     * @param generateBinaryCodecs Whether the binary codecs are generated.
+     */
+    public void setGenerateBinaryCodecs(boolean generateBinaryCodecs) {
+        this.generateBinaryCodecs = generateBinaryCodecs;
+    }
+
+    /**
+     * Provides a rule instance that generates the binary codec of a populated class.
+     *
+     * @return a schema rule that can generate the binary codec of a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getBinaryCodecRule() {
+        return new BinaryCodecRule(this);
+    }
+
+    public String getViewIndexClassName() {
+        return viewIndexClassName;
+    }
+
+    /**
+     * Sets the DocumentIndex class the flyweight views read their documents with. A view is generated for every
+     * class if set.
+     *
+     * @param viewIndexClassName The fully qualified class name or null to not generate views.
+     */
+    public void setViewIndexClassName(String viewIndexClassName) {
+        this.viewIndexClassName = viewIndexClassName;
+    }
+
+    /**
+     * Provides a rule instance that generates the flyweight view of a populated class.
+     *
+     * @return a schema rule that can generate the view of a class.
+     */
+    public Rule<JDefinedClass, JDefinedClass> getViewRule() {
+        return new ViewRule(this, viewIndexClassName);
+    }
+
     @Override
     public Rule<JPackage, JClass> getArrayRule() {
         return new NonSingularArrayRule(this);
@@ -49,6 +303,10 @@ public class GravitonRuleFactory extends RuleFactory {
 
     @Override
     public SchemaStore getSchemaStore() {
+        if (super.getSchemaStore() instanceof DocumentScopedSchemaStore) {
+            // caches per document, so parts of different schemas can't collide
+            return super.getSchemaStore();
+        }
         // the stuff cached collides with the name (different part of schemas collide with other schemas from other objects). so let's not use it.
         super.getSchemaStore().clearCache();
         return super.getSchemaStore();
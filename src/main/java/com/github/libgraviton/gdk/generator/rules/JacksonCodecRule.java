@@ -0,0 +1,370 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCase;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a dedicated Jackson serializer and deserializer for a generated class. The codecs read and write the
+ * properties with the streaming JsonGenerator / JsonParser and call the accessors of the class directly, so Jackson
+ * doesn't have to introspect the class. Scalar properties are written and read without any lookup, all other
+ * properties (nested objects, collections, enums, ...) are delegated to Jackson, which in turn uses the codecs of
+ * the nested classes if they are registered.
+ *
+ * The codecs are generated into the 'jackson' sub-package of the class, named after the class with the suffix
+ * 'Serializer' and 'Deserializer'. Classes whose properties can't be mapped to a field with a getter and a setter
+ * (e.g. if getters or setters are disabled), classes whose additional properties can't be accessed and classes
+ * extending another class are skipped, Jackson's bean serialization is used for them. Additional properties are
+ * read with the value type of their map, e.g. String for "additionalProperties": {"type": "string"}.
+ *
+ * For classes decoding their properties lazily (see {@link LazyPropertiesRule}), the deserializer only keeps the
+ * raw JSON of the document and the serializer writes it again as long as the instance is unchanged.
+ */
+public class JacksonCodecRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    /**
+     * The sub-package of the generated class, the codecs are generated in.
+     */
+    public static final String CODEC_PACKAGE = "jackson";
+
+    public static final String SERIALIZER_SUFFIX = "Serializer";
+
+    public static final String DESERIALIZER_SUFFIX = "Deserializer";
+
+    private final RuleFactory ruleFactory;
+
+    protected JacksonCodecRule(RuleFactory ruleFactory) {
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Generates the serializer and the deserializer of a class, once its properties are generated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the fully populated class
+     * @return the class, unchanged
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+        if (AnnotationStyle.JACKSON != annotationStyle && AnnotationStyle.JACKSON2 != annotationStyle) {
+            return jclass;
+        }
+
+        List<CodecProperty> properties = CodecProperty.determine(
+                ruleFactory.getNameHelper(),
+                node.get("properties"),
+                jclass
+        );
+        if (null == properties) {
+            ruleFactory.getLogger().debug("Skipping codecs of " + jclass.fullName() + ", a property is inaccessible.");
+            return jclass;
+        }
+        if (CodecProperty.hasInaccessibleAdditionalProperties(jclass)) {
+            ruleFactory.getLogger().debug(
+                    "Skipping codecs of " + jclass.fullName() + ", its additional properties are inaccessible."
+            );
+            return jclass;
+        }
+        JClass additionalProperties = CodecProperty.additionalPropertiesType(jclass);
+
+        JPackage codecPackage = jclass._package().subPackage(CODEC_PACKAGE);
+        try {
+            createSerializer(codecPackage, jclass, properties, additionalProperties);
+            createDeserializer(codecPackage, jclass, properties, additionalProperties);
+        } catch (JClassAlreadyExistsException e) {
+            // the codecs of a shared class are only generated once
+            ruleFactory.getLogger().debug("Codecs of " + jclass.fullName() + " already exist.");
+        }
+        return jclass;
+    }
+
+    private void createSerializer(
+            JPackage codecPackage,
+            JDefinedClass jclass,
+            List<CodecProperty> properties,
+            JClass additionalProperties
+    ) throws JClassAlreadyExistsException {
+        JCodeModel codeModel = jclass.owner();
+        JDefinedClass serializer = codecPackage._class(jclass.name() + SERIALIZER_SUFFIX);
+        serializer._extends(codeModel.ref(StdSerializer.class).narrow(jclass));
+        serializer.javadoc().add("Reflection-free serializer of {@link " + jclass.fullName() + "}.");
+        serializer.constructor(JMod.PUBLIC).body().invoke("super").arg(JExpr.dotclass(jclass));
+
+        JMethod serialize = serializer.method(JMod.PUBLIC, codeModel.VOID, "serialize");
+        serialize.annotate(Override.class);
+        serialize._throws(IOException.class);
+        JVar value = serialize.param(jclass, "value");
+        JVar generator = serialize.param(JsonGenerator.class, "generator");
+        JVar provider = serialize.param(SerializerProvider.class, "provider");
+        JBlock body = serialize.body();
+        if (isLazy(jclass)) {
+            // an unchanged document is written as it was read
+            JVar json = body.decl(
+                    codeModel.ref(TokenBuffer.class),
+                    "json",
+                    JExpr.invoke(value, LazyPropertiesRule.JSON_GETTER)
+            );
+            JBlock unchanged = body._if(json.ne(JExpr._null()))._then();
+            unchanged.add(json.invoke("serialize").arg(generator));
+            unchanged._return();
+        }
+        body.add(generator.invoke("writeStartObject").arg(value));
+
+        int staticMods = JMod.PRIVATE | JMod.STATIC | JMod.FINAL;
+        for (CodecProperty property : properties) {
+            // the field names are encoded once instead of on every write
+            JFieldVar fieldName = serializer.field(
+                    staticMods,
+                    SerializedString.class,
+                    "FIELD_" + property.getField().name(),
+                    JExpr._new(codeModel.ref(SerializedString.class)).arg(property.getJsonName())
+            );
+            JType type = property.getType();
+            JBlock block = body;
+            JExpression propertyValue = JExpr.invoke(value, property.getGetter());
+            if (!type.isPrimitive()) {
+                JVar local = body.decl(type, property.getField().name() + "Value", propertyValue);
+                block = body._if(local.ne(JExpr._null()))._then();
+                propertyValue = local;
+            }
+            block.add(generator.invoke("writeFieldName").arg(fieldName));
+            switch (CodecProperty.ScalarType.of(type)) {
+                case STRING:
+                    block.add(generator.invoke("writeString").arg(propertyValue));
+                    break;
+                case BOOLEAN:
+                    block.add(generator.invoke("writeBoolean").arg(propertyValue));
+                    break;
+                case INTEGER:
+                case LONG:
+                case DOUBLE:
+                    block.add(generator.invoke("writeNumber").arg(propertyValue));
+                    break;
+                default:
+                    block.add(provider.invoke("defaultSerializeValue").arg(propertyValue).arg(generator));
+            }
+        }
+
+        if (null != additionalProperties) {
+            JClass entryType = codeModel.ref(Map.Entry.class).narrow(codeModel.ref(String.class), additionalProperties);
+            JForEach forEach = body.forEach(
+                    entryType,
+                    "entry",
+                    JExpr.invoke(value, "getAdditionalProperties").invoke("entrySet")
+            );
+            forEach.body().add(provider.invoke("defaultSerializeField")
+                    .arg(forEach.var().invoke("getKey"))
+                    .arg(forEach.var().invoke("getValue"))
+                    .arg(generator));
+        }
+        body.add(generator.invoke("writeEndObject"));
+    }
+
+    private void createDeserializer(
+            JPackage codecPackage,
+            JDefinedClass jclass,
+            List<CodecProperty> properties,
+            JClass additionalProperties
+    ) throws JClassAlreadyExistsException {
+        JCodeModel codeModel = jclass.owner();
+        JClass tokenClass = codeModel.ref(JsonToken.class);
+        JDefinedClass deserializer = codecPackage._class(jclass.name() + DESERIALIZER_SUFFIX);
+        deserializer._extends(codeModel.ref(StdDeserializer.class).narrow(jclass));
+        deserializer.javadoc().add("Reflection-free deserializer of {@link " + jclass.fullName() + "}.");
+        deserializer.constructor(JMod.PUBLIC).body().invoke("super").arg(JExpr.dotclass(jclass));
+
+        JMethod deserialize = deserializer.method(JMod.PUBLIC, jclass, "deserialize");
+        deserialize.annotate(Override.class);
+        deserialize._throws(IOException.class);
+        JVar parser = deserialize.param(JsonParser.class, "parser");
+        JVar context = deserialize.param(DeserializationContext.class, "context");
+        JBlock body = deserialize.body();
+
+        JFieldRef startObject = tokenClass.staticRef("START_OBJECT");
+        JFieldRef fieldNameToken = tokenClass.staticRef("FIELD_NAME");
+        JFieldRef endObject = tokenClass.staticRef("END_OBJECT");
+        JFieldRef valueNull = tokenClass.staticRef("VALUE_NULL");
+
+        if (isLazy(jclass)) {
+            // the properties are decoded by the instance once they are accessed
+            JBlock lazy = body._if(parser.invoke("hasToken").arg(startObject))._then();
+            JClass tokenBufferClass = codeModel.ref(TokenBuffer.class);
+            JVar json = lazy.decl(tokenBufferClass, "json", JExpr._new(tokenBufferClass).arg(parser).arg(context));
+            lazy.add(json.invoke("copyCurrentStructure").arg(parser));
+            JVar lazyValue = lazy.decl(jclass, "lazyValue", JExpr._new(jclass));
+            lazy.invoke(lazyValue, LazyPropertiesRule.INIT_METHOD).arg(json);
+            lazy._return(lazyValue);
+        }
+
+        JVar token = body.decl(tokenClass, "token", parser.invoke("currentToken"));
+        JConditional startCondition = body._if(token.eq(startObject));
+        startCondition._then().assign(token, parser.invoke("nextToken"));
+        startCondition._elseif(token.ne(fieldNameToken).cand(token.ne(endObject)))._then()._return(JExpr.cast(
+                jclass,
+                context.invoke("handleUnexpectedToken").arg(JExpr.dotclass(jclass)).arg(parser)
+        ));
+
+        JVar value = body.decl(jclass, "value", JExpr._new(jclass));
+        JForLoop loop = body._for();
+        loop.test(token.eq(fieldNameToken));
+        loop.update(JExpr.assign(token, parser.invoke("nextToken")));
+        JBlock loopBody = loop.body();
+        JVar name = loopBody.decl(codeModel.ref(String.class), "name", parser.invoke("currentName"));
+        loopBody.add(parser.invoke("nextToken"));
+        JExpression isNull = parser.invoke("hasToken").arg(valueNull);
+
+        JSwitch nameSwitch = loopBody._switch(name);
+        int staticMods = JMod.PRIVATE | JMod.STATIC | JMod.FINAL;
+        for (CodecProperty property : properties) {
+            JType type = property.getType();
+            JExpression read;
+            switch (CodecProperty.ScalarType.of(type)) {
+                case STRING:
+                    read = parser.invoke("getValueAsString");
+                    break;
+                case BOOLEAN:
+                    read = parser.invoke("getValueAsBoolean");
+                    break;
+                case INTEGER:
+                    read = parser.invoke("getValueAsInt");
+                    break;
+                case LONG:
+                    read = parser.invoke("getValueAsLong");
+                    break;
+                case DOUBLE:
+                    read = parser.invoke("getValueAsDouble");
+                    break;
+                default:
+                    read = context.invoke("readValue").arg(parser).arg(javaType(deserializer, type, context));
+            }
+
+            JCase nameCase = nameSwitch._case(JExpr.lit(property.getJsonName()));
+            JBlock caseBody = nameCase.body();
+            JClass itemType = isLazyCollections() ? LazyCollectionsRule.presizedItemType(type) : null;
+            if (null != itemType) {
+                JVar items = caseBody.decl(
+                        itemType.array(),
+                        property.getField().name() + "Items",
+                        JOp.cond(isNull, JExpr._null(), context.invoke("readValue")
+                                .arg(parser)
+                                .arg(JExpr.dotclass(itemType.array())))
+                );
+                caseBody.invoke(value, property.getSetter()).arg(LazyCollectionsRule.presizedCollection(type, items));
+            } else if (type.isPrimitive()) {
+                // a null keeps the default value of the primitive field
+                caseBody._if(isNull.not())._then().invoke(value, property.getSetter()).arg(read);
+            } else {
+                caseBody.invoke(value, property.getSetter()).arg(JOp.cond(isNull, JExpr._null(), read));
+            }
+            caseBody._break();
+        }
+
+        JBlock defaultBody = nameSwitch._default().body();
+        if (null != additionalProperties) {
+            defaultBody.invoke(value, "setAdditionalProperty").arg(name).arg(JOp.cond(
+                    isNull,
+                    JExpr._null(),
+                    context.invoke("readValue").arg(parser).arg(javaType(deserializer, additionalProperties, context))
+            ));
+        } else {
+            // skips the value or fails, depending on FAIL_ON_UNKNOWN_PROPERTIES
+            defaultBody.add(context.invoke("handleUnknownProperty")
+                    .arg(parser)
+                    .arg(JExpr._this())
+                    .arg(JExpr.dotclass(jclass))
+                    .arg(name));
+        }
+        defaultBody._break();
+
+        body._return(value);
+    }
+
+    /**
+     * Checks whether the collections are allocated lazily, and therefore read presized.
+     *
+     * @return true if the {@link LazyCollectionsRule} is applied to the classes.
+     */
+    private boolean isLazyCollections() {
+        return ruleFactory instanceof GravitonRuleFactory && ((GravitonRuleFactory) ruleFactory).isLazyCollections();
+    }
+
+    /**
+     * Checks whether the properties of a class are decoded lazily from the raw JSON.
+     *
+     * @param jclass The class.
+     *
+     * @return true if the {@link LazyPropertiesRule} was applied to the class.
+     */
+    private boolean isLazy(JDefinedClass jclass) {
+        return null != jclass.getMethod(
+                LazyPropertiesRule.INIT_METHOD,
+                new JType[] {jclass.owner().ref(TokenBuffer.class)}
+        );
+    }
+
+    /**
+     * Determines the expression passed to DeserializationContext.readValue for a non-scalar type. Generic types are
+     * described by a TypeReference constant of the deserializer, so the type arguments aren't lost.
+     *
+     * @param deserializer The deserializer.
+     * @param type The type of the property.
+     * @param context The deserialization context parameter.
+     *
+     * @return The class literal or the resolved JavaType.
+     */
+    private JExpression javaType(JDefinedClass deserializer, JType type, JVar context) {
+        if (!(type instanceof JClass) || ((JClass) type).getTypeParameters().isEmpty()) {
+            return JExpr.dotclass(type.boxify());
+        }
+
+        JCodeModel codeModel = deserializer.owner();
+        JClass typeReference = codeModel.ref(TypeReference.class).narrow(type);
+        String constantName = "TYPE_" + deserializer.fields().size();
+        JFieldVar constant = deserializer.field(
+                JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                typeReference,
+                constantName,
+                JExpr._new(codeModel.anonymousClass(typeReference))
+        );
+        return context.invoke("getTypeFactory").invoke("constructType").arg(constant);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.jsonschema2pojo.util.NameHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes a generated class allocate its collections and the map of the additional properties on first write instead
+ * of with every instance. The fields of array properties (see {@link NonSingularArrayRule}) and of the additional
+ * properties stay null until a value is set, their getters return the shared immutable empty collection of
+ * {@link Collections} meanwhile. Values are therefore added with the setters, not through the getters.
+ *
+ * The generated codecs read JSON arrays of non-generic items as arrays and store the items in a collection allocated
+ * for their number. Empty JSON arrays are kept as null.
+ */
+public class LazyCollectionsRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    private static final String ADDITIONAL_PROPERTIES = "additionalProperties";
+
+    private final RuleFactory ruleFactory;
+
+    protected LazyCollectionsRule(RuleFactory ruleFactory) {
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Removes the collection initializers of a class and makes its accessors allocate them, once the class is
+     * populated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the fully populated class
+     * @return the class
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        JCodeModel codeModel = jclass.owner();
+        JsonNode propertiesNode = node.get("properties");
+        if (null != propertiesNode) {
+            NameHelper nameHelper = ruleFactory.getNameHelper();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = propertiesNode.fields(); fields.hasNext();) {
+                Map.Entry<String, JsonNode> property = fields.next();
+                String fieldName = nameHelper.getPropertyName(property.getKey(), property.getValue());
+                JFieldVar field = jclass.fields().get(fieldName);
+                if (null == field || null == emptyCollection(codeModel, field.type())) {
+                    continue;
+                }
+                JMethod getter = jclass.getMethod(
+                        nameHelper.getGetterName(property.getKey(), field.type(), property.getValue()),
+                        new JType[0]
+                );
+                if (null == getter) {
+                    // the field is read directly, it has to be allocated
+                    continue;
+                }
+                field.init(null);
+                returnEmptyIfNull(getter, field, emptyCollection(codeModel, field.type()));
+            }
+        }
+
+        JFieldVar additionalProperties = jclass.fields().get(ADDITIONAL_PROPERTIES);
+        JClass additionalPropertiesType = CodecProperty.additionalPropertiesType(jclass);
+        if (null != additionalPropertiesType) {
+            additionalProperties.init(null);
+            returnEmptyIfNull(
+                    jclass.getMethod("getAdditionalProperties", new JType[0]),
+                    additionalProperties,
+                    codeModel.ref(Collections.class).staticInvoke("emptyMap")
+            );
+            JType[] propertyParams = new JType[] {codeModel.ref(String.class), additionalPropertiesType};
+            for (String methodName : new String[] {"setAdditionalProperty", "withAdditionalProperty"}) {
+                JMethod method = jclass.getMethod(methodName, propertyParams);
+                if (null != method) {
+                    allocateIfNull(method, additionalProperties, additionalPropertiesType);
+                }
+            }
+        }
+        return jclass;
+    }
+
+    /**
+     * Creates the expression allocating the map of the additional properties.
+     *
+     * @param valueType The value type of the additional properties.
+     *
+     * @return A new map, with the implementation jsonschema2pojo initializes the field with.
+     */
+    static JExpression newAdditionalProperties(JClass valueType) {
+        JCodeModel codeModel = valueType.owner();
+        return JExpr._new(codeModel.ref(LinkedHashMap.class).narrow(codeModel.ref(String.class), valueType));
+    }
+
+    /**
+     * Determines the item type of a collection property which is read as array of its items, so the collection can be
+     * allocated for the number of items.
+     *
+     * @param type The type of the property.
+     *
+     * @return The item type or null if the type is no List or Set of a non-generic type.
+     */
+    static JClass presizedItemType(JType type) {
+        if (!(type instanceof JClass) || null == emptyCollection(type.owner(), type)) {
+            return null;
+        }
+        List<JClass> typeParameters = ((JClass) type).getTypeParameters();
+        if (1 != typeParameters.size() || !typeParameters.get(0).getTypeParameters().isEmpty()) {
+            return null;
+        }
+        return typeParameters.get(0);
+    }
+
+    /**
+     * Creates the expression storing the items read from a JSON array in a collection sized for them.
+     *
+     * @param type The List or Set type of the property.
+     * @param items The variable holding the array of the items, may be null.
+     *
+     * @return The collection or null if there are no items.
+     */
+    static JExpression presizedCollection(JType type, JVar items) {
+        JCodeModel codeModel = type.owner();
+        JClass itemType = presizedItemType(type);
+        Class<?> implementation = codeModel.ref(Set.class).equals(((JClass) type).erasure())
+                ? LinkedHashSet.class
+                : ArrayList.class;
+        return JOp.cond(
+                items.eq(JExpr._null()).cor(JExpr.ref(items, "length").eq(JExpr.lit(0))),
+                JExpr._null(),
+                JExpr._new(codeModel.ref(implementation).narrow(itemType))
+                        .arg(codeModel.ref(Arrays.class).staticInvoke("asList").arg(items))
+        );
+    }
+
+    private static JExpression emptyCollection(JCodeModel codeModel, JType type) {
+        if (!(type instanceof JClass)) {
+            return null;
+        }
+        JClass erasure = ((JClass) type).erasure();
+        if (codeModel.ref(List.class).equals(erasure)) {
+            return codeModel.ref(Collections.class).staticInvoke("emptyList");
+        }
+        if (codeModel.ref(Set.class).equals(erasure)) {
+            return codeModel.ref(Collections.class).staticInvoke("emptySet");
+        }
+        return null;
+    }
+
+    private static void returnEmptyIfNull(JMethod getter, JFieldVar field, JExpression empty) {
+        JBlock body = getter.body();
+        body.pos(0);
+        body._if(JExpr._this().ref(field).eq(JExpr._null()))._then()._return(empty);
+        body.pos(body.getContents().size());
+    }
+
+    private static void allocateIfNull(JMethod method, JFieldVar additionalProperties, JClass valueType) {
+        JFieldRef field = JExpr._this().ref(additionalProperties);
+        JBlock body = method.body();
+        body.pos(0);
+        body._if(field.eq(JExpr._null()))._then().assign(field, newAdditionalProperties(valueType));
+        body.pos(body.getContents().size());
+    }
+}
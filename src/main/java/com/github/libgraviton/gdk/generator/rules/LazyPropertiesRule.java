@@ -0,0 +1,444 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.GenerationConfig;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Makes a generated class decode its properties lazily. An instance read by the generated Jackson deserializer keeps
+ * the raw JSON of the document as TokenBuffer and decodes a property on the first call of its getter, the decoded
+ * value is kept in the field of the property. As long as no property is changed, the generated serializer writes
+ * the raw JSON again instead of the properties, so documents which are only routed by some of their properties are
+ * passed through untouched.
+ *
+ * Setters mark the instance as modified. So do the getters of properties which aren't strings, numbers or booleans,
+ * as the returned objects and collections may be changed by the caller. equals(), hashCode(), toString() and the java
+ * serialization decode all properties first.
+ *
+ * Classes the codecs are not generated for (see {@link JacksonCodecRule}), classes with builders and parcelable
+ * classes are skipped.
+ */
+public class LazyPropertiesRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    /**
+     * The method the deserializer passes the raw JSON of a document to.
+     */
+    public static final String INIT_METHOD = "initLazyJson";
+
+    /**
+     * The method the serializer gets the raw JSON of an unchanged document from.
+     */
+    public static final String JSON_GETTER = "getLazyJson";
+
+    private static final String JSON_FIELD = "lazyJson";
+
+    private static final String PENDING_FIELD = "lazyPending";
+
+    private static final String MODIFIED_FIELD = "lazyModified";
+
+    /**
+     * The property argument of the decode method, decoding all pending properties.
+     */
+    private static final int ALL = -1;
+
+    private final RuleFactory ruleFactory;
+
+    protected LazyPropertiesRule(RuleFactory ruleFactory) {
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Adds the raw JSON to a class and makes its accessors decode the properties lazily, once the class is populated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the fully populated class
+     * @return the class
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        AnnotationStyle annotationStyle = config.getAnnotationStyle();
+        if (AnnotationStyle.JACKSON != annotationStyle && AnnotationStyle.JACKSON2 != annotationStyle) {
+            return jclass;
+        }
+        if (config.isGenerateBuilders() || config.isParcelable()) {
+            ruleFactory.getLogger().debug(
+                    "Skipping lazy properties of " + jclass.fullName() + ", builders or parcels are generated."
+            );
+            return jclass;
+        }
+        if (jclass.fields().containsKey(JSON_FIELD)
+                || jclass.fields().containsKey(PENDING_FIELD)
+                || jclass.fields().containsKey(MODIFIED_FIELD)) {
+            // clashing with a property
+            return jclass;
+        }
+
+        List<CodecProperty> properties = CodecProperty.determine(
+                ruleFactory.getNameHelper(),
+                node.get("properties"),
+                jclass
+        );
+        if (null == properties || CodecProperty.hasInaccessibleAdditionalProperties(jclass)) {
+            ruleFactory.getLogger().debug(
+                    "Skipping lazy properties of " + jclass.fullName() + ", a property is inaccessible."
+            );
+            return jclass;
+        }
+        JClass additionalProperties = CodecProperty.additionalPropertiesType(jclass);
+        // the additional properties are decoded together, after the schema properties
+        int additionalIndex = null != additionalProperties ? properties.size() : ALL;
+
+        JCodeModel codeModel = jclass.owner();
+        JFieldVar json = jclass.field(JMod.PRIVATE | JMod.TRANSIENT, TokenBuffer.class, JSON_FIELD);
+        JFieldVar pending = jclass.field(JMod.PRIVATE | JMod.TRANSIENT, BitSet.class, PENDING_FIELD);
+        JFieldVar modified = jclass.field(JMod.PRIVATE | JMod.TRANSIENT, codeModel.BOOLEAN, MODIFIED_FIELD);
+
+        int propertyCount = ALL == additionalIndex ? properties.size() : additionalIndex + 1;
+        createAccessors(jclass, json, pending, modified, propertyCount);
+        JMethod markModified = createMarkModified(jclass, pending, modified);
+        JMethod propertyIndex = createPropertyIndex(jclass, properties, additionalIndex);
+        JMethod decodeValue = createDecodeValue(jclass, properties, additionalProperties, additionalIndex);
+        JMethod decode = createDecode(jclass, json, pending, modified, propertyIndex, decodeValue, additionalIndex);
+
+        for (int i = 0; i < properties.size(); i++) {
+            CodecProperty property = properties.get(i);
+            JExpression index = JExpr.lit(i);
+            if (CodecProperty.ScalarType.OTHER == CodecProperty.ScalarType.of(property.getType())) {
+                prepend(property.getGetter(), JExpr.invoke(decode).arg(index), JExpr.invoke(markModified).arg(index));
+            } else {
+                prepend(property.getGetter(), JExpr.invoke(decode).arg(index));
+            }
+            prepend(property.getSetter(), JExpr.invoke(markModified).arg(index));
+        }
+        if (ALL != additionalIndex) {
+            JExpression index = JExpr.lit(additionalIndex);
+            prepend(
+                    jclass.getMethod("getAdditionalProperties", new JType[0]),
+                    JExpr.invoke(decode).arg(index),
+                    JExpr.invoke(markModified).arg(index)
+            );
+            prepend(
+                    jclass.getMethod(
+                            "setAdditionalProperty",
+                            new JType[] {codeModel.ref(String.class), additionalProperties}
+                    ),
+                    JExpr.invoke(decode).arg(index),
+                    JExpr.invoke(markModified).arg(index)
+            );
+        }
+
+        decodeBeforeObjectMethods(jclass, decode);
+        if (config.isSerializable()) {
+            JMethod writeObject = jclass.method(JMod.PRIVATE, codeModel.VOID, "writeObject");
+            writeObject._throws(IOException.class);
+            JVar out = writeObject.param(ObjectOutputStream.class, "out");
+            writeObject.body().invoke(decode).arg(JExpr.lit(ALL));
+            writeObject.body().invoke(out, "defaultWriteObject");
+        }
+        return jclass;
+    }
+
+    private void createAccessors(
+            JDefinedClass jclass,
+            JFieldVar json,
+            JFieldVar pending,
+            JFieldVar modified,
+            int propertyCount
+    ) {
+        JCodeModel codeModel = jclass.owner();
+
+        JMethod init = jclass.method(JMod.PUBLIC, codeModel.VOID, INIT_METHOD);
+        init.javadoc().add("Sets the raw JSON this object is read from, its properties are decoded on first access.");
+        JVar initJson = init.param(TokenBuffer.class, "json");
+        JBlock initBody = init.body();
+        initBody.assign(JExpr._this().ref(json), initJson);
+        initBody.assign(
+                JExpr._this().ref(pending),
+                JExpr._new(codeModel.ref(BitSet.class)).arg(JExpr.lit(propertyCount))
+        );
+        initBody.invoke(pending, "set").arg(JExpr.lit(0)).arg(JExpr.lit(propertyCount));
+        initBody.assign(JExpr._this().ref(modified), JExpr.FALSE);
+
+        JMethod getter = jclass.method(JMod.PUBLIC, TokenBuffer.class, JSON_GETTER);
+        getter.annotate(JsonIgnore.class);
+        getter.javadoc().addReturn().add("The raw JSON this object is read from or null if it was changed since.");
+        getter.body()._return(JOp.cond(modified, JExpr._null(), json));
+    }
+
+    private JMethod createMarkModified(JDefinedClass jclass, JFieldVar pending, JFieldVar modified) {
+        JMethod markModified = jclass.method(JMod.PRIVATE, jclass.owner().VOID, "markLazyModified");
+        JVar property = markModified.param(jclass.owner().INT, "property");
+        JBlock body = markModified.body();
+        body.assign(modified, JExpr.TRUE);
+        // a written value must not be replaced by the decoded one later
+        body._if(pending.ne(JExpr._null()))._then().invoke(pending, "clear").arg(property);
+        return markModified;
+    }
+
+    private JMethod createPropertyIndex(JDefinedClass jclass, List<CodecProperty> properties, int additionalIndex) {
+        JCodeModel codeModel = jclass.owner();
+        JMethod propertyIndex = jclass.method(JMod.PRIVATE | JMod.STATIC, codeModel.INT, "lazyPropertyIndex");
+        JVar name = propertyIndex.param(String.class, "name");
+        JSwitch nameSwitch = propertyIndex.body()._switch(name);
+        for (int i = 0; i < properties.size(); i++) {
+            nameSwitch._case(JExpr.lit(properties.get(i).getJsonName())).body()._return(JExpr.lit(i));
+        }
+        nameSwitch._default().body()._return(JExpr.lit(additionalIndex));
+        return propertyIndex;
+    }
+
+    private JMethod createDecodeValue(
+            JDefinedClass jclass,
+            List<CodecProperty> properties,
+            JClass additionalProperties,
+            int additionalIndex
+    ) {
+        JCodeModel codeModel = jclass.owner();
+        JMethod decodeValue = jclass.method(JMod.PRIVATE, codeModel.VOID, "decodeLazyValue");
+        decodeValue._throws(IOException.class);
+        JVar index = decodeValue.param(codeModel.INT, "index");
+        JVar name = decodeValue.param(String.class, "name");
+        JVar parser = decodeValue.param(JsonParser.class, "parser");
+        JExpression isNull = parser.invoke("hasToken").arg(codeModel.ref(JsonToken.class).staticRef("VALUE_NULL"));
+
+        JSwitch indexSwitch = decodeValue.body()._switch(index);
+        for (int i = 0; i < properties.size(); i++) {
+            CodecProperty property = properties.get(i);
+            JType type = property.getType();
+            JExpression read;
+            switch (CodecProperty.ScalarType.of(type)) {
+                case STRING:
+                    read = parser.invoke("getValueAsString");
+                    break;
+                case BOOLEAN:
+                    read = parser.invoke("getValueAsBoolean");
+                    break;
+                case INTEGER:
+                    read = parser.invoke("getValueAsInt");
+                    break;
+                case LONG:
+                    read = parser.invoke("getValueAsLong");
+                    break;
+                case DOUBLE:
+                    read = parser.invoke("getValueAsDouble");
+                    break;
+                default:
+                    read = parser.invoke("readValueAs").arg(valueType(jclass, type));
+            }
+
+            JBlock caseBody = indexSwitch._case(JExpr.lit(i)).body();
+            JFieldRef field = JExpr._this().ref(property.getField());
+            JClass itemType = isLazyCollections() ? LazyCollectionsRule.presizedItemType(type) : null;
+            if (null != itemType) {
+                JVar items = caseBody.decl(
+                        itemType.array(),
+                        property.getField().name() + "Items",
+                        JOp.cond(
+                                isNull,
+                                JExpr._null(),
+                                parser.invoke("readValueAs").arg(JExpr.dotclass(itemType.array()))
+                        )
+                );
+                caseBody.assign(field, LazyCollectionsRule.presizedCollection(type, items));
+            } else if (!type.equals(property.getField().type())) {
+                // the setter converts the boxed value, see PrimitivePropertiesRule
+                caseBody.invoke(property.getSetter()).arg(JOp.cond(isNull, JExpr._null(), read));
+            } else if (type.isPrimitive()) {
+                // a null keeps the default value of the primitive field
+                caseBody._if(isNull.not())._then().assign(field, read);
+            } else {
+                caseBody.assign(field, JOp.cond(isNull, JExpr._null(), read));
+            }
+            caseBody._break();
+        }
+        if (ALL != additionalIndex) {
+            JBlock caseBody = indexSwitch._case(JExpr.lit(additionalIndex)).body();
+            JFieldRef map = JExpr._this().ref("additionalProperties");
+            // the map may be allocated lazily
+            caseBody._if(map.eq(JExpr._null()))._then()
+                    .assign(map, LazyCollectionsRule.newAdditionalProperties(additionalProperties));
+            caseBody.add(map.invoke("put").arg(name).arg(JOp.cond(
+                    isNull,
+                    JExpr._null(),
+                    parser.invoke("readValueAs").arg(valueType(jclass, additionalProperties))
+            )));
+            caseBody._break();
+        }
+        return decodeValue;
+    }
+
+    private JMethod createDecode(
+            JDefinedClass jclass,
+            JFieldVar json,
+            JFieldVar pending,
+            JFieldVar modified,
+            JMethod propertyIndex,
+            JMethod decodeValue,
+            int additionalIndex
+    ) {
+        JCodeModel codeModel = jclass.owner();
+        JMethod decode = jclass.method(JMod.PRIVATE, codeModel.VOID, "decodeLazyProperties");
+        decode.javadoc().add("Decodes a property from the raw JSON, unless it is decoded or written already.");
+        JVar property = decode.param(codeModel.INT, "property");
+        decode.javadoc().addParam(property).add("The index of the property or " + ALL + " for all properties.");
+        JBlock body = decode.body();
+        JExpression all = property.lt(JExpr.lit(0));
+        body._if(pending.eq(JExpr._null()).cor(JOp.cond(
+                all,
+                pending.invoke("isEmpty"),
+                pending.invoke("get").arg(property).not()
+        )))._then()._return();
+
+        // decoding through a setter doesn't count as modification
+        JVar wasModified = body.decl(codeModel.BOOLEAN, "wasModified", modified);
+        JTryBlock tryBlock = body._try();
+        JBlock tryBody = tryBlock.body();
+        // the parser of a token buffer holds no resources, it isn't closed
+        JVar parser = tryBody.decl(codeModel.ref(JsonParser.class), "parser", json.invoke("asParser"));
+        tryBody.add(parser.invoke("nextToken"));
+        JWhileLoop loop = tryBody._while(
+                codeModel.ref(JsonToken.class).staticRef("FIELD_NAME").eq(parser.invoke("nextToken"))
+        );
+        JBlock loopBody = loop.body();
+        JVar name = loopBody.decl(codeModel.ref(String.class), "name", parser.invoke("currentName"));
+        JVar index = loopBody.decl(codeModel.INT, "index", JExpr.invoke(propertyIndex).arg(name));
+        loopBody.add(parser.invoke("nextToken"));
+        JConditional wanted = loopBody._if(index.gte(JExpr.lit(0))
+                .cand(pending.invoke("get").arg(index))
+                .cand(all.cor(index.eq(property))));
+        wanted._then().invoke(decodeValue).arg(index).arg(name).arg(parser);
+        JExpression found = index.eq(property);
+        if (ALL != additionalIndex) {
+            // the additional properties may follow anywhere
+            found = found.cand(index.ne(JExpr.lit(additionalIndex)));
+        }
+        wanted._then()._if(found)._then()._break();
+        wanted._else().add(parser.invoke("skipChildren"));
+
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(IOException.class));
+        JVar exception = catchBlock.param("e");
+        catchBlock.body()._throw(JExpr._new(codeModel.ref(UncheckedIOException.class))
+                .arg(JExpr.lit("Unable to decode the raw JSON of " + jclass.name() + "."))
+                .arg(exception));
+
+        body.assign(modified, wasModified);
+
+        // properties missing in the document stay null
+        JConditional clear = body._if(all);
+        clear._then().invoke(pending, "clear");
+        clear._else().invoke(pending, "clear").arg(property);
+        return decode;
+    }
+
+    /**
+     * Makes equals(), hashCode() and toString() decode all properties, as they read the fields directly.
+     *
+     * @param jclass The class.
+     * @param decode The decode method.
+     */
+    private void decodeBeforeObjectMethods(JDefinedClass jclass, JMethod decode) {
+        JCodeModel codeModel = jclass.owner();
+        for (String methodName : new String[] {"hashCode", "toString"}) {
+            JMethod method = jclass.getMethod(methodName, new JType[0]);
+            if (null != method) {
+                prepend(method, JExpr.invoke(decode).arg(JExpr.lit(ALL)));
+            }
+        }
+
+        JMethod equals = jclass.getMethod("equals", new JType[] {codeModel.ref(Object.class)});
+        if (null == equals) {
+            return;
+        }
+        JVar other = equals.params().get(0);
+        JBlock body = equals.body();
+        body.pos(0);
+        body.invoke(decode).arg(JExpr.lit(ALL));
+        JExpression otherLazy = JExpr.cast(jclass, other);
+        body._if(other._instanceof(jclass))._then().add(otherLazy.invoke(decode).arg(JExpr.lit(ALL)));
+        body.pos(body.getContents().size());
+    }
+
+    /**
+     * Checks whether the collections are allocated lazily, and therefore read presized.
+     *
+     * @return true if the {@link LazyCollectionsRule} is applied to the classes.
+     */
+    private boolean isLazyCollections() {
+        return ruleFactory instanceof GravitonRuleFactory && ((GravitonRuleFactory) ruleFactory).isLazyCollections();
+    }
+
+    /**
+     * Inserts statements at the beginning of a method.
+     *
+     * @param method The method.
+     * @param statements The invocations to insert.
+     */
+    private static void prepend(JMethod method, JInvocation... statements) {
+        JBlock body = method.body();
+        body.pos(0);
+        for (JInvocation statement : statements) {
+            body.add(statement);
+        }
+        body.pos(body.getContents().size());
+    }
+
+    /**
+     * Determines the argument passed to JsonParser.readValueAs for a non-scalar type. Generic types are described by
+     * a TypeReference constant of the class, so the type arguments aren't lost.
+     *
+     * @param jclass The class.
+     * @param type The type of the property.
+     *
+     * @return The class literal or the TypeReference constant.
+     */
+    private JExpression valueType(JDefinedClass jclass, JType type) {
+        if (!(type instanceof JClass) || ((JClass) type).getTypeParameters().isEmpty()) {
+            return JExpr.dotclass(type.boxify());
+        }
+
+        JCodeModel codeModel = jclass.owner();
+        JClass typeReference = codeModel.ref(TypeReference.class).narrow(type);
+        return jclass.field(
+                JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                typeReference,
+                "LAZY_TYPE_" + jclass.fields().size(),
+                JExpr._new(codeModel.anonymousClass(typeReference))
+        );
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.jsonschema2pojo.GenerationConfig;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.jsonschema2pojo.util.NameHelper;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Stores the integer, number and boolean properties of a generated class in primitive fields instead of boxed ones.
+ * Whether a property is set is tracked by a bit of the long field 'presence', the bit being the position of the
+ * property among the converted ones. Only the first 64 of them are converted.
+ *
+ * The accessors keep their boxed types: the getter returns null unless the bit is set, the setter clears the bit and
+ * resets the field to its default if it is called with null. equals() and hashCode() compare and hash the primitive
+ * fields and the presence bits, so the rule has to be applied before they are generated.
+ *
+ * Classes with builders, constructors, dynamic accessors or parcel support, which write the fields directly, are
+ * skipped.
+ */
+public class PrimitivePropertiesRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    private static final String PRESENCE_FIELD = "presence";
+
+    private final RuleFactory ruleFactory;
+
+    protected PrimitivePropertiesRule(RuleFactory ruleFactory) {
+        this.ruleFactory = ruleFactory;
+    }
+
+    /**
+     * Converts the boxed scalar fields of a class to primitives, once its properties are generated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the class with its properties
+     * @return the class
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        if (config.isGenerateBuilders()
+                || config.isIncludeConstructors()
+                || config.isIncludeDynamicAccessors()
+                || config.isParcelable()) {
+            ruleFactory.getLogger().debug(
+                    "Skipping primitive properties of " + jclass.fullName() + ", its fields are written directly."
+            );
+            return jclass;
+        }
+        JsonNode propertiesNode = node.get("properties");
+        if (null == propertiesNode || jclass.fields().containsKey(PRESENCE_FIELD)) {
+            return jclass;
+        }
+
+        JCodeModel codeModel = jclass.owner();
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+        JFieldVar presence = null;
+        long defaults = 0L;
+        int bit = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> properties = propertiesNode.fields(); properties.hasNext();) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            String jsonName = property.getKey();
+            JsonNode propertyNode = property.getValue();
+            JFieldVar field = jclass.fields().get(nameHelper.getPropertyName(jsonName, propertyNode));
+            if (null == field || !isConvertible(field.type())) {
+                continue;
+            }
+            JMethod getter = jclass.getMethod(
+                    nameHelper.getGetterName(jsonName, field.type(), propertyNode),
+                    new JType[0]
+            );
+            JMethod setter = jclass.getMethod(
+                    nameHelper.getSetterName(jsonName, propertyNode),
+                    new JType[] {field.type()}
+            );
+            if (null == getter || null == setter) {
+                continue;
+            }
+            if (Long.SIZE == bit) {
+                ruleFactory.getLogger().debug("Keeping further boxed properties of " + jclass.fullName() + ".");
+                break;
+            }
+
+            if (null == presence) {
+                presence = jclass.field(JMod.PRIVATE, codeModel.LONG, PRESENCE_FIELD);
+            }
+            JType primitive = field.type().unboxify();
+            field.type(primitive);
+            if (propertyNode.hasNonNull("default")) {
+                // the field is initialized with the default value
+                defaults |= 1L << bit;
+            }
+            convertAccessors(getter, setter, presence, field, JExpr.lit(1L).shl(JExpr.lit(bit)));
+            bit++;
+        }
+        if (0L != defaults) {
+            presence.init(JExpr.lit(defaults));
+        }
+        return jclass;
+    }
+
+    private boolean isConvertible(JType type) {
+        if (type.isPrimitive() || type.unboxify().equals(type)) {
+            return false;
+        }
+        switch (CodecProperty.ScalarType.of(type)) {
+            case BOOLEAN:
+            case INTEGER:
+            case LONG:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void convertAccessors(
+            JMethod getter,
+            JMethod setter,
+            JFieldVar presence,
+            JFieldVar field,
+            JExpression bit
+    ) {
+        JFieldRef presenceRef = JExpr._this().ref(presence);
+        JFieldRef fieldRef = JExpr._this().ref(field);
+
+        JBlock getterBody = getter.body();
+        getterBody.pos(0);
+        getterBody._if(presenceRef.band(bit).eq(JExpr.lit(0L)))._then()._return(JExpr._null());
+        getterBody.pos(getterBody.getContents().size());
+
+        JVar value = setter.params().get(0);
+        JBlock setterBody = setter.body();
+        setterBody.pos(0);
+        JBlock unset = setterBody._if(value.eq(JExpr._null()))._then();
+        unset.assign(presenceRef, presenceRef.band(JOp.complement(bit)));
+        unset.assign(fieldRef, defaultValue(field.type()));
+        unset._return();
+        setterBody.assign(presenceRef, presenceRef.bor(bit));
+        setterBody.pos(setterBody.getContents().size());
+    }
+
+    private JExpression defaultValue(JType primitive) {
+        switch (CodecProperty.ScalarType.of(primitive)) {
+            case BOOLEAN:
+                return JExpr.FALSE;
+            case LONG:
+                return JExpr.lit(0L);
+            case DOUBLE:
+                return JExpr.lit(0.0D);
+            default:
+                return JExpr.lit(0);
+        }
+    }
+}
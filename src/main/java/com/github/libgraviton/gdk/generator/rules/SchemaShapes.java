@@ -0,0 +1,116 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Calculates structural hashes of (sub-)schemas. Two schemas have the same hash if they only differ in formatting or
+ * in the order of their keywords. The order of the entries of "properties" is significant, since it determines the
+ * order of the generated fields.
+ */
+public final class SchemaShapes {
+
+    /**
+     * The number of hex characters of a shape hash. 64 bits keep collisions unlikely even across thousands of shared
+     * classes, the remaining ones are detected by comparing the canonical forms (see GravitonObjectRule).
+     */
+    public static final int HASH_LENGTH = 16;
+
+    private SchemaShapes() {
+    }
+
+    /**
+     * Calculates the structural hash of a schema.
+     *
+     * @param schema The schema.
+     *
+     * @return The first HASH_LENGTH hex characters of the SHA-256 hash of the canonical form of the schema.
+     */
+    public static String hash(JsonNode schema) {
+        return hashCanonicalForm(canonicalForm(schema));
+    }
+
+    /**
+     * Determines the canonical form of a schema, which structurally identical schemas share.
+     *
+     * @param schema The schema.
+     *
+     * @return The canonical form.
+     */
+    public static String canonicalForm(JsonNode schema) {
+        StringBuilder canonical = new StringBuilder();
+        appendCanonical(schema, false, canonical);
+        return canonical.toString();
+    }
+
+    /**
+     * Calculates the structural hash of a schema from its canonical form.
+     *
+     * @param canonicalForm The canonical form of the schema, see {@link #canonicalForm(JsonNode)}.
+     *
+     * @return The first HASH_LENGTH hex characters of the SHA-256 hash of the canonical form.
+     */
+    public static String hashCanonicalForm(String canonicalForm) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(canonicalForm.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(HASH_LENGTH);
+            for (int i = 0; i < HASH_LENGTH / 2; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Appends the canonical form of a node: objects with sorted keys (unless the key order is significant), all other
+     * nodes in their compact JSON form.
+     *
+     * @param node The node.
+     * @param keepOrder Whether the order of the object keys is kept.
+     * @param canonical The canonical form is appended to this builder.
+     */
+    private static void appendCanonical(JsonNode node, boolean keepOrder, StringBuilder canonical) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>(node.size());
+            for (Iterator<String> fieldNames = node.fieldNames(); fieldNames.hasNext();) {
+                names.add(fieldNames.next());
+            }
+            if (!keepOrder) {
+                Collections.sort(names);
+            }
+            canonical.append('{');
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    canonical.append(',');
+                }
+                String name = names.get(i);
+                canonical.append(new TextNode(name).toString()).append(':');
+                // the keys of "properties" are property names, not keywords
+                appendCanonical(node.get(name), !keepOrder && "properties".equals(name), canonical);
+            }
+            canonical.append('}');
+        } else if (node.isArray()) {
+            canonical.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    canonical.append(',');
+                }
+                appendCanonical(node.get(i), false, canonical);
+            }
+            canonical.append(']');
+        } else {
+            canonical.append(node.toString());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.jsonschema2pojo.util.NameHelper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Generates a flyweight view of a generated class. A view reads the properties of a JSON document lazily from a byte
+ * buffer, at the offsets recorded by a DocumentIndex. A view instance is meant to be reused: wrapping the next
+ * document only records the offsets of its properties, values are decoded when their getter is called.
+ *
+ * The getters are named like the getters of the class. Strings, numbers and booleans are decoded and returned boxed,
+ * null if the property is missing. Properties of a generated class with a view are returned as that view, wrapping
+ * a view instance passed by the caller. All other properties (arrays, enums, ...) are returned as raw JSON by a
+ * getter with the suffix 'Json'.
+ *
+ * The views are generated into the 'view' sub-package of the class, named after the class with the suffix 'View'.
+ */
+public class ViewRule implements Rule<JDefinedClass, JDefinedClass> {
+
+    /**
+     * The sub-package of the generated class, the view is generated in.
+     */
+    public static final String VIEW_PACKAGE = "view";
+
+    public static final String VIEW_SUFFIX = "View";
+
+    private static final String RAW_SUFFIX = "Json";
+
+    private final RuleFactory ruleFactory;
+
+    /**
+     * The fully qualified name of the DocumentIndex class.
+     */
+    private final String indexClassName;
+
+    protected ViewRule(RuleFactory ruleFactory, String indexClassName) {
+        this.ruleFactory = ruleFactory;
+        this.indexClassName = indexClassName;
+    }
+
+    /**
+     * Generates the view of a class, once its properties are generated.
+     *
+     * @param nodeName the name of the object
+     * @param node the schema of the object
+     * @param parent the parent node
+     * @param jclass the fully populated class
+     * @return the class, unchanged
+     */
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        JCodeModel codeModel = jclass.owner();
+        JDefinedClass view;
+        try {
+            view = jclass._package().subPackage(VIEW_PACKAGE)._class(
+                    JMod.PUBLIC | JMod.FINAL,
+                    jclass.name() + VIEW_SUFFIX
+            );
+        } catch (JClassAlreadyExistsException e) {
+            // the view of a shared class is only generated once
+            ruleFactory.getLogger().debug("View of " + jclass.fullName() + " already exists.");
+            return jclass;
+        }
+        view.javadoc().add("Read-only flyweight view of a {@link " + jclass.fullName() + "} document.");
+
+        JClass indexClass = codeModel.directClass(indexClassName);
+        JArray fieldNames = JExpr.newArray(codeModel.BYTE.array());
+        JFieldVar fieldNamesField = view.field(
+                JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                codeModel.BYTE.array().array(),
+                "FIELD_NAMES",
+                fieldNames
+        );
+        JFieldVar index = view.field(
+                JMod.PRIVATE | JMod.FINAL,
+                indexClass,
+                "index",
+                JExpr._new(indexClass).arg(fieldNamesField)
+        );
+        createWrap(view, index);
+
+        JsonNode propertiesNode = node.get("properties");
+        if (null == propertiesNode) {
+            return jclass;
+        }
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+        int field = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> properties = propertiesNode.fields(); properties.hasNext();) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            String jsonName = property.getKey();
+            fieldNames.add(JExpr.lit(jsonName).invoke("getBytes")
+                    .arg(codeModel.ref(StandardCharsets.class).staticRef("UTF_8")));
+
+            JFieldVar pojoField = jclass.fields().get(nameHelper.getPropertyName(jsonName, property.getValue()));
+            JType type = null == pojoField
+                    ? codeModel.ref(Object.class)
+                    : CodecProperty.accessorType(nameHelper, jclass, jsonName, pojoField, property.getValue());
+            String getterName = nameHelper.getGetterName(jsonName, type, property.getValue());
+            createGetter(view, index, getterName, type, field);
+            field++;
+        }
+        return jclass;
+    }
+
+    private void createWrap(JDefinedClass view, JFieldVar index) {
+        JCodeModel codeModel = view.owner();
+
+        JMethod wrapRange = view.method(JMod.PUBLIC, view, "wrap");
+        wrapRange.javadoc().add("Points this view to the JSON document starting at an offset of a buffer.");
+        JVar buffer = wrapRange.param(ByteBuffer.class, "buffer");
+        JVar offset = wrapRange.param(codeModel.INT, "offset");
+        JVar limit = wrapRange.param(codeModel.INT, "limit");
+        wrapRange.body().add(index.invoke("index").arg(buffer).arg(offset).arg(limit));
+        wrapRange.body()._return(JExpr._this());
+
+        JMethod wrap = view.method(JMod.PUBLIC, view, "wrap");
+        wrap.javadoc().add("Points this view to the JSON document between the position and the limit of a buffer.");
+        JVar wholeBuffer = wrap.param(ByteBuffer.class, "buffer");
+        wrap.body()._return(JExpr.invoke(wrapRange)
+                .arg(wholeBuffer)
+                .arg(wholeBuffer.invoke("position"))
+                .arg(wholeBuffer.invoke("limit")));
+
+        JMethod documentEnd = view.method(JMod.PUBLIC, codeModel.INT, "getDocumentEnd");
+        documentEnd.javadoc().add("Gets the offset right after the wrapped document, where a following one starts.");
+        documentEnd.body()._return(index.invoke("getDocumentEnd"));
+    }
+
+    private void createGetter(JDefinedClass view, JFieldVar index, String getterName, JType type, int field) {
+        JCodeModel codeModel = view.owner();
+        JExpression fieldLiteral = JExpr.lit(field);
+
+        String decodeMethod;
+        switch (CodecProperty.ScalarType.of(type)) {
+            case STRING:
+                decodeMethod = "getString";
+                break;
+            case BOOLEAN:
+                decodeMethod = "getBoolean";
+                break;
+            case INTEGER:
+                decodeMethod = "getInteger";
+                break;
+            case LONG:
+                decodeMethod = "getLong";
+                break;
+            case DOUBLE:
+                decodeMethod = "getDouble";
+                break;
+            default:
+                decodeMethod = null;
+        }
+        if (null != decodeMethod) {
+            JMethod getter = view.method(JMod.PUBLIC, type.boxify(), getterName);
+            getter.body()._return(index.invoke(decodeMethod).arg(fieldLiteral));
+            return;
+        }
+
+        JClass nestedView = findView(type);
+        if (null != nestedView) {
+            JMethod getter = view.method(JMod.PUBLIC, nestedView, getterName);
+            getter.javadoc().add("Points a given view to the value of the property.");
+            getter.javadoc().addReturn().add("The given view or null if the property is null or missing.");
+            JVar target = getter.param(nestedView, "view");
+            getter.body()._return(JOp.cond(
+                    index.invoke("isNull").arg(fieldLiteral),
+                    JExpr._null(),
+                    target.invoke("wrap")
+                            .arg(index.invoke("getBuffer"))
+                            .arg(index.invoke("getStart").arg(fieldLiteral))
+                            .arg(index.invoke("getEnd").arg(fieldLiteral))
+            ));
+            return;
+        }
+
+        JMethod getter = view.method(JMod.PUBLIC, codeModel.ref(ByteBuffer.class), getterName + RAW_SUFFIX);
+        getter.javadoc().addReturn().add("The raw JSON of the property or null if the property is missing.");
+        getter.body()._return(index.invoke("getRaw").arg(fieldLiteral));
+    }
+
+    /**
+     * Finds the view of a type.
+     *
+     * @param type The type of a property.
+     *
+     * @return The view class or null if the type is no generated class with a view.
+     */
+    private JClass findView(JType type) {
+        if (!(type instanceof JDefinedClass) || ClassType.CLASS != ((JDefinedClass) type).getClassType()) {
+            return null;
+        }
+        JDefinedClass definedClass = (JDefinedClass) type;
+        return definedClass._package().subPackage(VIEW_PACKAGE)._getClass(definedClass.name() + VIEW_SUFFIX);
+    }
+}
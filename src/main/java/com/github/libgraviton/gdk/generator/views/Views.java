@@ -0,0 +1,79 @@
+package com.github.libgraviton.gdk.generator.views;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Provides the runtime support of the generated view classes. The views read the properties of a JSON document
+ * through a DocumentIndex, whose source is provided by {@link #getSources()} and needs to be written along with the
+ * generated classes.
+ */
+public class Views {
+
+    /**
+     * The key under which the view support sources are recorded in the generation manifest.
+     */
+    public static final String MANIFEST_KEY = "gdk:views";
+
+    /**
+     * The simple name of the document index class.
+     */
+    public static final String INDEX_CLASS_NAME = "DocumentIndex";
+
+    private static final String PACKAGE_PLACEHOLDER = "${package}";
+
+    /**
+     * The package of the support classes.
+     */
+    private final String packageName;
+
+    /**
+     * Constructor
+     *
+     * @param packageName The package of the support classes.
+     */
+    public Views(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Gets the fully qualified name of the document index class.
+     *
+     * @return The class name.
+     */
+    public String getIndexClassName() {
+        return packageName.isEmpty() ? INDEX_CLASS_NAME : packageName + '.' + INDEX_CLASS_NAME;
+    }
+
+    /**
+     * Gets the sources of the support classes.
+     *
+     * @return The content of the source files by their path, relative to the output root and separated by '/'.
+     *
+     * @throws IOException If a source template cannot be read.
+     */
+    public Map<String, byte[]> getSources() throws IOException {
+        String directory = packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/';
+        String source = readTemplate(INDEX_CLASS_NAME + ".java.template");
+        if (packageName.isEmpty()) {
+            source = source.replace("package " + PACKAGE_PLACEHOLDER + ";\n\n", "");
+        }
+        source = source.replace(PACKAGE_PLACEHOLDER, packageName);
+        return Collections.singletonMap(
+                directory + INDEX_CLASS_NAME + ".java",
+                source.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private String readTemplate(String name) throws IOException {
+        try (InputStream in = Views.class.getResourceAsStream(name)) {
+            if (null == in) {
+                throw new IOException("View template '" + name + "' not found.");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
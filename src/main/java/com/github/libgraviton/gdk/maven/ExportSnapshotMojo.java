@@ -0,0 +1,92 @@
+package com.github.libgraviton.gdk.maven;
+
+import com.github.libgraviton.gdk.generator.EndpointPatternFilter;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.GrvProfileInstructionLoader;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.ProfileCache;
+import com.github.libgraviton.gdk.generator.instructionloader.snapshot.SnapshotWriter;
+import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.exception.UnableToLoadEndpointAssociationsException;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Exports the service document and all profiles of a Graviton instance to a snapshot file, which can be used by the
+ * 'generate' goal instead of a live Graviton (see 'snapshotFile'). The endpoint patterns and the fetch concurrency
+ * work like the ones of the 'generate' goal.
+ */
+@Mojo(name = "export-snapshot", threadSafe = true)
+public class ExportSnapshotMojo extends AbstractMojo {
+
+    @Parameter(property = "gravitonUrl", required = true)
+    private String gravitonUrl;
+
+    @Parameter(property = "username", required = false)
+    private String username;
+
+    @Parameter(property = "password", required = false)
+    private String password;
+
+    @Parameter(required = false)
+    private List<String> endpointIncludePatterns;
+
+    @Parameter(required = false)
+    private List<String> endpointExcludePatterns;
+
+    @Parameter(defaultValue = "1")
+    private int fetchConcurrency;
+
+    @Parameter(defaultValue = "true")
+    private boolean useProfileCache;
+
+    @Parameter(defaultValue = "${project.build.directory}/gdk-cache")
+    private File profileCacheDirectory;
+
+    @Parameter(
+            property = "snapshotFile",
+            defaultValue = "${project.basedir}/src/main/graviton/snapshot.jsonl",
+            required = true
+    )
+    private File snapshotFile;
+
+    public void execute() throws MojoExecutionException
+    {
+        try {
+            GravitonApi gravitonApi = GravitonApiFactory.create(
+                    gravitonUrl,
+                    username,
+                    password,
+                    new GeneratedEndpointManager(GeneratedEndpointManager.Mode.CREATE)
+            );
+
+            ProfileCache profileCache = null;
+            if (useProfileCache && null != profileCacheDirectory) {
+                profileCache = new ProfileCache(profileCacheDirectory);
+            }
+
+            GrvProfileInstructionLoader source = new GrvProfileInstructionLoader(
+                    gravitonApi,
+                    fetchConcurrency,
+                    profileCache
+            );
+            source.setEndpointFilter(new EndpointPatternFilter(endpointIncludePatterns, endpointExcludePatterns));
+
+            int profileCount = new SnapshotWriter().write(source, gravitonApi.getBaseUrl(), snapshotFile);
+            getLog().info("Exported " + profileCount + " profiles to '" + snapshotFile + "'.");
+        } catch (CommunicationException | IOException e) {
+            throw new MojoExecutionException("Snapshot export failed.", e);
+        } catch (UnableToLoadEndpointAssociationsException e) {
+            throw new MojoExecutionException(
+                    "Endpoint manager tried to load service associations. This should never happen at this point.",
+                    e
+            );
+        }
+    }
+}
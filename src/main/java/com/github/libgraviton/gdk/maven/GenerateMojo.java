@@ -1,33 +1,41 @@
 package com.github.libgraviton.gdk.maven;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.gdk.generator.EndpointFilter;
+import com.github.libgraviton.gdk.generator.EndpointPatternFilter;
 import com.github.libgraviton.gdk.generator.exception.GeneratorException;
-import com.github.libgraviton.workerbase.di.WorkerBaseProvider;
 import com.github.libgraviton.workerbase.gdk.GravitonApi;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.EndpointInclusionStrategy;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.exception.UnableToLoadEndpointAssociationsException;
-import com.github.libgraviton.workerbase.gdk.auth.BasicAuth;
 import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
 import com.github.libgraviton.gdk.generator.Generator;
+import com.github.libgraviton.gdk.generator.GeneratorOptions;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.AbstractGrvProfileInstructionLoader;
 import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.GrvProfileInstructionLoader;
-import com.github.libgraviton.workerbase.gdk.serialization.mapper.RqlObjectMapper;
-import com.github.libgraviton.workerbase.helper.WorkerProperties;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.ProfileCache;
+import com.github.libgraviton.gdk.generator.instructionloader.snapshot.SnapshotInstructionLoader;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.jsonschema2pojo.maven.Jsonschema2PojoMojo;
 
-import java.io.IOException;
-import java.util.Properties;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 @Execute(goal = "generate")
-@Mojo(name = "generate", threadSafe = true, defaultPhase = LifecyclePhase.GENERATE_SOURCES)
+@Mojo(
+        name = "generate",
+        threadSafe = true,
+        defaultPhase = LifecyclePhase.GENERATE_SOURCES,
+        requiresDependencyResolution = ResolutionScope.COMPILE
+)
 public class GenerateMojo extends Jsonschema2PojoMojo {
 
-    @Parameter(required = true)
+    @Parameter(required = false)
     private String gravitonUrl;
 
     @Parameter(required = false)
@@ -42,47 +50,136 @@ public class GenerateMojo extends Jsonschema2PojoMojo {
     @Parameter(required = false)
     private String endpointWhitelistPath;
 
+    @Parameter(required = false)
+    private List<String> endpointIncludePatterns;
+
+    @Parameter(required = false)
+    private List<String> endpointExcludePatterns;
+
+    @Parameter(defaultValue = "1")
+    private int fetchConcurrency;
+
+    @Parameter(defaultValue = "true")
+    private boolean useProfileCache;
+
+    @Parameter(defaultValue = "${project.build.directory}/gdk-cache")
+    private File profileCacheDirectory;
+
+    @Parameter(required = false)
+    private File snapshotFile;
+
+    @Parameter(defaultValue = "true")
+    private boolean incremental;
+
+    @Parameter(defaultValue = "1")
+    private int generationThreads;
+
+    @Parameter(required = false)
+    private File outputArchive;
+
+    @Parameter(required = false)
+    private File classesArchive;
+
+    @Parameter(defaultValue = "0")
+    private long heapBudgetMb;
+
+    @Parameter(defaultValue = "true")
+    private boolean cacheInstructions;
+
+    @Parameter(defaultValue = "false")
+    private boolean deduplicateTypes;
+
+    @Parameter(defaultValue = "false")
+    private boolean useCoreTypes;
+
+    @Parameter(defaultValue = "false")
+    private boolean generateEndpointRegistry;
+
+    @Parameter(defaultValue = "false")
+    private boolean generateCodecs;
+
+    @Parameter(defaultValue = "false")
+    private boolean primitiveProperties;
+
+    @Parameter(defaultValue = "false")
+    private boolean lazyCollections;
+
+    @Parameter(defaultValue = "false")
+    private boolean lazyProperties;
+
+    @Parameter(defaultValue = "false")
+    private boolean generateBinaryCodecs;
+
+    @Parameter(defaultValue = "false")
+    private boolean generateViews;
+
+    @Parameter(defaultValue = "${project.compileClasspathElements}", readonly = true)
+    private List<String> compileClasspathElements;
+
     @Parameter
     private Jsonschema2PojoMojo generatorConfig = new Jsonschema2PojoMojo();
 
     public void execute() throws MojoExecutionException
     {
+        if ((null == gravitonUrl) == (null == snapshotFile)) {
+            throw new MojoExecutionException("Exactly one of 'gravitonUrl' and 'snapshotFile' has to be configured.");
+        }
+
         try {
-            if (!generatorConfig.getTargetDirectory().mkdirs()) {
+            if (!incremental && !generatorConfig.getTargetDirectory().mkdirs()) {
                 getLog().info("Target directory '" + generatorConfig.getTargetDirectory() + "' already exists. Skipping POJO generation.");
                 return;
             }
 
-            Properties props;
-            try {
-                props = WorkerProperties.load();
-            } catch (IOException e) {
-                throw new MojoExecutionException("Unable to load worker properties", e);
-            }
-
-            WorkerProperties.setOverride(
-                    WorkerProperties.GRAVITON_BASE_URL.name(),
-                    gravitonUrl
-            );
-
             GeneratedEndpointManager endpointManager = new GeneratedEndpointManager(GeneratedEndpointManager.Mode.CREATE);
             endpointManager.setEndpointInclusionStrategy(getEndpointInclusionStrategy());
 
-            ObjectMapper objectMapper = WorkerBaseProvider.objectMapper(props);
-            RqlObjectMapper rqlObjectMapper = WorkerBaseProvider.rqlObjectMapper(props);
-
-            GravitonApi gravitonApi = new GravitonApi(
-                    endpointManager,
-                    objectMapper,
-                    rqlObjectMapper
-            );
-            gravitonApi.setAuth(new BasicAuth(username, password));
+            // the Graviton instance is only contacted if no snapshot is used
+            GravitonApi gravitonApi = null;
+            AbstractGrvProfileInstructionLoader instructionLoader;
+            if (null != snapshotFile) {
+                getLog().info("Loading endpoint definitions from snapshot '" + snapshotFile + "'.");
+                instructionLoader = new SnapshotInstructionLoader(snapshotFile, fetchConcurrency);
+            } else {
+                gravitonApi = GravitonApiFactory.create(gravitonUrl, username, password, endpointManager);
+                ProfileCache profileCache = null;
+                if (useProfileCache && null != profileCacheDirectory) {
+                    profileCache = new ProfileCache(profileCacheDirectory);
+                }
+                instructionLoader = new GrvProfileInstructionLoader(gravitonApi, fetchConcurrency, profileCache);
+            }
+            instructionLoader.setCacheInstructions(cacheInstructions);
+            EndpointFilter endpointFilter = endpointManager::shouldIgnoreEndpoint;
+            instructionLoader.setEndpointFilter(endpointFilter.or(
+                    new EndpointPatternFilter(endpointIncludePatterns, endpointExcludePatterns)
+            ));
+
+            GeneratorOptions generatorOptions = new GeneratorOptions();
+            generatorOptions.setIncremental(incremental);
+            generatorOptions.setGenerationThreads(generationThreads);
+            generatorOptions.setOutputArchive(outputArchive);
+            generatorOptions.setClassesArchive(classesArchive);
+            generatorOptions.setHeapBudget(heapBudgetMb * 1024 * 1024);
+            generatorOptions.setDeduplicateTypes(deduplicateTypes);
+            generatorOptions.setUseCoreTypes(useCoreTypes);
+            generatorOptions.setGenerateEndpointRegistry(generateEndpointRegistry);
+            generatorOptions.setGenerateCodecs(generateCodecs);
+            generatorOptions.setPrimitiveProperties(primitiveProperties);
+            generatorOptions.setLazyCollections(lazyCollections);
+            generatorOptions.setLazyProperties(lazyProperties);
+            generatorOptions.setGenerateBinaryCodecs(generateBinaryCodecs);
+            generatorOptions.setGenerateViews(generateViews);
+            if (null != compileClasspathElements) {
+                List<File> compileClasspath = new ArrayList<>();
+                for (String element : compileClasspathElements) {
+                    compileClasspath.add(new File(element));
+                }
+                generatorOptions.setCompileClasspath(compileClasspath);
+            }
 
-            Generator generator = new Generator(
-                    generatorConfig,
-                    gravitonApi,
-                    new GrvProfileInstructionLoader(gravitonApi)
-            );
+            Generator generator = null != gravitonApi
+                    ? new Generator(generatorConfig, generatorOptions, gravitonApi, instructionLoader)
+                    : new Generator(generatorConfig, generatorOptions, endpointManager, instructionLoader);
             generator.generate();
         } catch (GeneratorException | CommunicationException  e) {
             throw new MojoExecutionException("POJO generation failed.", e);
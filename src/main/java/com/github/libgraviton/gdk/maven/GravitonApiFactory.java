@@ -0,0 +1,64 @@
+package com.github.libgraviton.gdk.maven;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.workerbase.di.WorkerBaseProvider;
+import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
+import com.github.libgraviton.workerbase.gdk.auth.BasicAuth;
+import com.github.libgraviton.workerbase.gdk.serialization.mapper.RqlObjectMapper;
+import com.github.libgraviton.workerbase.helper.WorkerProperties;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Creates the GravitonApi instances used by the mojos.
+ */
+class GravitonApiFactory {
+
+    private GravitonApiFactory() {
+    }
+
+    /**
+     * Creates a GravitonApi instance for a given Graviton.
+     *
+     * @param gravitonUrl The base url of the Graviton instance.
+     * @param username The username used for basic auth. May be null.
+     * @param password The password used for basic auth. May be null.
+     * @param endpointManager The endpoint manager of the GravitonApi instance.
+     *
+     * @return The GravitonApi instance.
+     *
+     * @throws MojoExecutionException If the worker properties cannot be loaded.
+     */
+    static GravitonApi create(
+            String gravitonUrl,
+            String username,
+            String password,
+            GeneratedEndpointManager endpointManager
+    ) throws MojoExecutionException {
+        Properties props;
+        try {
+            props = WorkerProperties.load();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to load worker properties", e);
+        }
+
+        WorkerProperties.setOverride(
+                WorkerProperties.GRAVITON_BASE_URL.name(),
+                gravitonUrl
+        );
+
+        ObjectMapper objectMapper = WorkerBaseProvider.objectMapper(props);
+        RqlObjectMapper rqlObjectMapper = WorkerBaseProvider.rqlObjectMapper(props);
+
+        GravitonApi gravitonApi = new GravitonApi(
+                endpointManager,
+                objectMapper,
+                rqlObjectMapper
+        );
+        gravitonApi.setAuth(new BasicAuth(username, password));
+        return gravitonApi;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.libgraviton.gdk.generator;
+
+import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(DataProviderRunner.class)
+public class EndpointPatternFilterTest {
+
+    @DataProvider
+    public static Object[][] patterns() {
+        return new Object[][] {
+                // include patterns, exclude patterns, collection path, expected to be ignored
+                {Collections.emptyList(), Collections.emptyList(), "/core/app/", false},
+                {Arrays.asList("/core/*/"), Collections.emptyList(), "/core/app/", false},
+                {Arrays.asList("/core/*/"), Collections.emptyList(), "/core/app/sub/", true},
+                {Arrays.asList("/core/**"), Collections.emptyList(), "/core/app/sub/", false},
+                {Arrays.asList("/file/", "/core/**"), Collections.emptyList(), "/file/", false},
+                {Arrays.asList("/file/", "/core/**"), Collections.emptyList(), "/event/status/", true},
+                {Collections.emptyList(), Arrays.asList("/event/**"), "/event/status/", true},
+                {Collections.emptyList(), Arrays.asList("/event/**"), "/core/app/", false},
+                {Arrays.asList("/core/**"), Arrays.asList("/core/config/"), "/core/config/", true},
+                {Arrays.asList("regex:/core/(app|config)/"), Collections.emptyList(), "/core/config/", false},
+                {Arrays.asList("regex:/core/(app|config)/"), Collections.emptyList(), "/core/module/", true},
+                {Arrays.asList("/core/ap?/"), Collections.emptyList(), "/core/app/", false},
+                {Arrays.asList("/i18n/language.json"), Collections.emptyList(), "/i18n/languageXjson", true},
+        };
+    }
+
+    @Test
+    @UseDataProvider("patterns")
+    public void testShouldIgnore(
+            List<String> includePatterns,
+            List<String> excludePatterns,
+            String collectionPath,
+            boolean expectedIgnore
+    ) {
+        EndpointPatternFilter filter = new EndpointPatternFilter(includePatterns, excludePatterns);
+        assertEquals(expectedIgnore, filter.shouldIgnore(new Endpoint(collectionPath + "{id}", collectionPath)));
+    }
+
+}
@@ -1,8 +1,16 @@
 package com.github.libgraviton.gdk.generator;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.libgraviton.gdk.generator.exception.GeneratorException;
+import com.github.libgraviton.gdk.generator.rules.GravitonRuleFactory;
 import com.github.libgraviton.workerbase.gdk.GravitonApi;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.Endpoint;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.EndpointManager;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
 import com.github.libgraviton.workerbase.gdk.api.endpoint.exception.UnableToPersistEndpointAssociationsException;
 import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
@@ -14,19 +22,41 @@ import org.json.JSONObject;
 import org.jsonschema2pojo.DefaultGenerationConfig;
 import org.jsonschema2pojo.GenerationConfig;
 import org.jsonschema2pojo.SchemaMapper;
+import org.jsonschema2pojo.rules.RuleFactory;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -43,7 +73,7 @@ public class GeneratorTest {
     private GeneratorInstructionLoader instructionLoader;
 
     @Before
-    public void setup() throws CommunicationException {
+    public void setup() throws Exception {
         // Setup instruction loader mock
         List<GeneratorInstruction> instructions = Arrays.asList(
                 new GeneratorInstruction(
@@ -71,6 +101,7 @@ public class GeneratorTest {
         instructionLoader = mock(GeneratorInstructionLoader.class);
         when(instructionLoader.loadInstructions()).thenReturn(instructions);
         when(instructionLoader.loadInstructions(anyBoolean())).thenReturn(instructions);
+        doCallRealMethod().when(instructionLoader).streamInstructions(any(GeneratorInstructionConsumer.class));
 
         // Setup service manager mock
         serviceManager = mock(GeneratedEndpointManager.class);
@@ -102,11 +133,17 @@ public class GeneratorTest {
             final String configTargetPackage, String firstPackageName, String secondPackageName
     ) throws Exception {
         SchemaMapper schemaMapper = mock(SchemaMapper.class);
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
         GenerationConfig config = new DefaultGenerationConfig() {
             @Override
             public String getTargetPackage() {
                 return configTargetPackage;
             }
+
+            @Override
+            public File getTargetDirectory() {
+                return targetDir;
+            }
         };
 
         Generator generator = new Generator(config, gravitonApi, instructionLoader, schemaMapper);
@@ -153,6 +190,22 @@ public class GeneratorTest {
         assertTrue(new File(new File(targetDir, secondPackageName.replace('.', '/')), "AnotherClass.java").exists());
     }
 
+    @Test
+    public void testGenerationWithoutGravitonApi() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        new Generator(
+                configForTargetDirectory(targetDir),
+                new GeneratorOptions(),
+                serviceManager,
+                instructionLoader
+        ).generate();
+
+        assertTrue(new File(targetDir, "subpackage/SomeClass.java").exists());
+        verify(serviceManager, times(2)).addEndpoint(anyString(), any(Endpoint.class));
+        verify(serviceManager, times(1)).persist(anyString());
+        verifyNoInteractions(gravitonApi);
+    }
+
     @Test
     public void testFailingGeneration() throws Exception {
         thrown.expect(GeneratorException.class);
@@ -162,7 +215,12 @@ public class GeneratorTest {
         when(schemaMapper.generate(any(JCodeModel.class), anyString(), anyString(), anyString()))
                 .thenThrow(new IOException());
 
-        Generator generator = new Generator(new DefaultGenerationConfig(), gravitonApi, instructionLoader, schemaMapper);
+        Generator generator = new Generator(
+                configForTargetDirectory(Files.createTempDirectory("test-generator").toFile()),
+                gravitonApi,
+                instructionLoader,
+                schemaMapper
+        );
         generator.generate();
     }
 
@@ -180,6 +238,717 @@ public class GeneratorTest {
         assertFalse(new File(new File(targetDir, secondPackageName.replace('.', '/')), "AnotherClass.java").exists());
     }
 
+    @Test
+    public void testIncrementalGenerationSkipsUnchangedEndpoints() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GenerationConfig config = configForTargetDirectory(targetDir);
+        GeneratorOptions options = new GeneratorOptions();
+        options.setIncremental(true);
+
+        new Generator(config, options, gravitonApi, instructionLoader).generate();
+        assertTrue(new File(targetDir, "gdk-resources/manifest.json").isFile());
+
+        SchemaMapper schemaMapper = mock(SchemaMapper.class);
+        new Generator(config, options, gravitonApi, instructionLoader, schemaMapper).generate();
+
+        verify(schemaMapper, never()).generate(any(JCodeModel.class), anyString(), anyString(), anyString());
+        verify(serviceManager, times(4)).addEndpoint(anyString(), any(Endpoint.class));
+        assertTrue(new File(targetDir, "subpackage/SomeClass.java").exists());
+        assertTrue(new File(targetDir, "AnotherClass.java").exists());
+    }
+
+    @Test
+    public void testIncrementalGenerationRegeneratesChangedEndpoints() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GenerationConfig config = configForTargetDirectory(targetDir);
+        GeneratorOptions options = new GeneratorOptions();
+        options.setIncremental(true);
+
+        new Generator(config, options, gravitonApi, instructionLoader).generate();
+
+        GeneratorInstructionLoader changedInstructionLoader = mock(GeneratorInstructionLoader.class);
+        when(changedInstructionLoader.loadInstructions()).thenReturn(Arrays.asList(
+                new GeneratorInstruction(
+                        "SomeClass",
+                        "subpackage",
+                        new JSONObject(
+                                "{\"x-matcher-hint\":1,\"type\":\"object\",\"properties\":" +
+                                        "{\"property\":{\"type\":\"integer\"}}}"
+                        ),
+                        new Endpoint("endpoint://some-endpoint")
+                )
+        ));
+        doCallRealMethod().when(changedInstructionLoader).streamInstructions(any(GeneratorInstructionConsumer.class));
+
+        SchemaMapper schemaMapper = mock(SchemaMapper.class);
+        new Generator(config, options, gravitonApi, changedInstructionLoader, schemaMapper).generate();
+
+        verify(schemaMapper, times(1)).generate(
+                any(JCodeModel.class),
+                eq("SomeClass"),
+                eq("subpackage"),
+                contains("\"x-matcher-hint\":1")
+        );
+        // AnotherClass is no longer generated, so its file is removed
+        assertFalse(new File(targetDir, "AnotherClass.java").exists());
+    }
+
+    @Test
+    public void testClassesOfFailedEndpointsAreKept() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GenerationConfig config = configForTargetDirectory(targetDir);
+        new Generator(config, gravitonApi, instructionLoader).generate();
+
+        GeneratorInstructionLoader failingInstructionLoader = mock(GeneratorInstructionLoader.class);
+        when(failingInstructionLoader.loadInstructions()).thenReturn(Collections.singletonList(
+                new GeneratorInstruction(
+                        "SomeClass",
+                        "subpackage",
+                        new JSONObject(
+                                "{\"x-matcher-hint\":1,\"type\":\"object\",\"properties\":" +
+                                        "{\"property\":{\"type\":\"string\"}}}"
+                        ),
+                        new Endpoint("endpoint://some-endpoint")
+                )
+        ));
+        doCallRealMethod().when(failingInstructionLoader).streamInstructions(any(GeneratorInstructionConsumer.class));
+        Endpoint failedEndpoint = new Endpoint("endpoint://another-endpoint");
+        when(failingInstructionLoader.getFailedEndpoints()).thenReturn(Collections.singletonList(failedEndpoint));
+
+        new Generator(config, gravitonApi, failingInstructionLoader).generate();
+
+        // the profile of AnotherClass couldn't be fetched, so its class is kept and registered again
+        assertTrue(new File(targetDir, "AnotherClass.java").exists());
+        verify(serviceManager, times(2)).addEndpoint("AnotherClass", failedEndpoint);
+        JsonNode manifest = new ObjectMapper().readTree(new File(targetDir, "gdk-resources/manifest.json"));
+        assertEquals("AnotherClass", manifest.path("endpoint://another-endpoint").path("className").asText());
+    }
+
+    @DataProvider
+    public static Object[][] heapBudgets() {
+        return new Object[][] {
+                {0L}, // no limit
+                {1L} // exceeded by every endpoint, so only one endpoint is in flight at a time
+        };
+    }
+
+    @Test
+    @UseDataProvider("heapBudgets")
+    public void testParallelGenerationMatchesSequentialGeneration(long heapBudget) throws Exception {
+        final File sequentialDir = Files.createTempDirectory("test-generator").toFile();
+        new Generator(configForTargetDirectory(sequentialDir), gravitonApi, instructionLoader).generate();
+
+        final File parallelDir = Files.createTempDirectory("test-generator").toFile();
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerationThreads(4);
+        options.setHeapBudget(heapBudget);
+        new Generator(configForTargetDirectory(parallelDir), options, gravitonApi, instructionLoader).generate();
+
+        // the report holds the measured durations, which differ between any two runs
+        Path report = Paths.get("gdk-resources", "report.json");
+        List<Path> sequentialFiles = listFiles(sequentialDir);
+        sequentialFiles.remove(report);
+        List<Path> parallelFiles = listFiles(parallelDir);
+        parallelFiles.remove(report);
+        assertEquals(parallelFiles, sequentialFiles);
+        for (Path file : sequentialFiles) {
+            assertArrayEquals(
+                    Files.readAllBytes(sequentialDir.toPath().resolve(file)),
+                    Files.readAllBytes(parallelDir.toPath().resolve(file))
+            );
+        }
+        verify(serviceManager, times(4)).addEndpoint(anyString(), any(Endpoint.class));
+    }
+
+    @Test
+    public void testUnchangedFilesAreNotRewritten() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        new Generator(configForTargetDirectory(targetDir), gravitonApi, instructionLoader).generate();
+
+        File someClass = new File(targetDir, "subpackage/SomeClass.java");
+        File anotherClass = new File(targetDir, "AnotherClass.java");
+        assertTrue(someClass.setLastModified(1000L));
+        Files.write(anotherClass.toPath(), "changed".getBytes());
+        assertTrue(anotherClass.setLastModified(1000L));
+
+        new Generator(configForTargetDirectory(targetDir), gravitonApi, instructionLoader).generate();
+
+        assertEquals(1000L, someClass.lastModified());
+        assertNotEquals(1000L, anotherClass.lastModified());
+        assertNotEquals("changed", new String(Files.readAllBytes(anotherClass.toPath())));
+    }
+
+    @Test
+    public void testArchiveOutputIsCompiled() throws Exception {
+        GeneratorOptions options = new GeneratorOptions();
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            File targetDir = options.getOutputArchive().getParentFile();
+            assertFalse(new File(targetDir, "subpackage/SomeClass.java").exists());
+            try (ZipFile sources = new ZipFile(options.getOutputArchive())) {
+                assertNotNull(sources.getEntry("subpackage/SomeClass.java"));
+                assertNotNull(sources.getEntry("AnotherClass.java"));
+            }
+            assertNotNull(classLoader.loadClass("subpackage.SomeClass"));
+            assertNotNull(classLoader.loadClass("AnotherClass"));
+        }
+    }
+
+    @Test
+    public void testGenerationReport() throws Exception {
+        final File targetDir = successfulGeneration("");
+
+        JsonNode report = new ObjectMapper().readTree(new File(targetDir, "gdk-resources/report.json"));
+        assertEquals(2, report.get("phases").get("schemaMapperGenerate").get("count").asInt());
+        assertEquals(2, report.get("phases").get("codeModelBuild").get("count").asInt());
+        assertEquals(2, report.get("endpoints").size());
+        assertEquals(2, report.get("slowestEndpoints").size());
+        for (JsonNode endpoint : report.get("endpoints")) {
+            assertEquals(1, endpoint.get("classes").asInt());
+            assertTrue(endpoint.get("sourceBytes").asLong() > 0);
+        }
+    }
+
+    @Test
+    public void testStructurallyIdenticalTypesAreShared() throws Exception {
+        String address = "{\"type\":\"object\",\"properties\":{\"street\":{\"type\":\"string\"}," +
+                "\"city\":{\"type\":\"string\"}}}";
+        // same shape, different formatting and keyword order
+        String reorderedAddress = "{\"properties\":{\"street\":{\"type\":\"string\"}," +
+                "\"city\":{\"type\":\"string\"}}, \"type\":\"object\"}";
+        List<GeneratorInstruction> instructions = Arrays.asList(
+                new GeneratorInstruction(
+                        "Customer",
+                        "customer",
+                        new JSONObject("{\"type\":\"object\",\"properties\":{\"address\":" + address +
+                                ",\"addresses\":" + reorderedAddress + "}}"),
+                        new Endpoint("endpoint://customer")
+                ),
+                new GeneratorInstruction(
+                        "Supplier",
+                        "supplier",
+                        new JSONObject("{\"type\":\"object\",\"properties\":{\"address\":" + reorderedAddress +
+                                ",\"billing\":{\"type\":\"object\",\"properties\":{\"address\":" + address + "}}}}"),
+                        new Endpoint("endpoint://supplier")
+                )
+        );
+        when(instructionLoader.loadInstructions()).thenReturn(instructions);
+
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GenerationConfig config = new DefaultGenerationConfig() {
+            @Override
+            public String getTargetPackage() {
+                return "";
+            }
+
+            @Override
+            public File getTargetDirectory() {
+                return targetDir;
+            }
+
+            @Override
+            public Class<? extends RuleFactory> getCustomRuleFactory() {
+                return GravitonRuleFactory.class;
+            }
+        };
+        GeneratorOptions options = new GeneratorOptions();
+        options.setDeduplicateTypes(true);
+        new Generator(config, options, gravitonApi, instructionLoader).generate();
+
+        List<Path> sharedFiles = listFiles(new File(targetDir, "shared"));
+        assertEquals(2, sharedFiles.size());
+        String customerSource = readSource(targetDir, "customer/Customer.java");
+        String addressClass = sharedFiles.stream()
+                .map(Path::toString)
+                .map(file -> file.substring(0, file.length() - ".java".length()))
+                .filter(sharedClass -> customerSource.contains(sharedClass + " address;"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertTrue(addressClass.startsWith("Object"));
+        // the class is named after the shape only, so differently named properties share it as well
+        assertTrue(customerSource.contains(addressClass + " addresses;"));
+        assertTrue(customerSource.contains("shared." + addressClass));
+        assertTrue(readSource(targetDir, "supplier/Supplier.java").contains("shared." + addressClass));
+        assertFalse(new File(targetDir, "customer/Address.java").exists());
+        assertFalse(new File(targetDir, "supplier/SupplierBillingAddress.java").exists());
+    }
+
+    @Test
+    public void testCoreTypesAreMappedAndCompiled() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "core.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"name\":{\"type\":\"object\",\"properties\":{\"en\":{\"type\":\"string\"}}}," +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"$ref\":{\"type\":\"string\"," +
+                        "\"format\":\"extref\"}}}}}"),
+                new Endpoint("endpoint://core/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setUseCoreTypes(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            try (ZipFile sources = new ZipFile(options.getOutputArchive())) {
+                assertNotNull(sources.getEntry("core/Translatable.java"));
+                assertNotNull(sources.getEntry("core/ExtReference.java"));
+                // no class is generated for the translatable and the extref field
+                assertEquals(
+                        Collections.singletonList("core/app/App.java"),
+                        sources.stream()
+                                .map(ZipEntry::getName)
+                                .filter(name -> name.startsWith("core/app/") && !name.endsWith("/"))
+                                .collect(Collectors.toList())
+                );
+            }
+            assertNotNull(classLoader.loadClass("core.Translatable"));
+
+            Class<?> appClass = classLoader.loadClass("core.app.App");
+            ObjectMapper objectMapper = new ObjectMapper();
+            String json = "{\"name\":{\"en\":\"App\"},\"owner\":{\"$ref\":\"http://graviton/core/user/a\"}}";
+            Object app = objectMapper.readValue(json, appClass);
+            Object owner = appClass.getMethod("getOwner").invoke(app);
+            assertEquals("a", owner.getClass().getMethod("getId").invoke(owner));
+            String written = objectMapper.writeValueAsString(app);
+            assertEquals(objectMapper.readTree(json), objectMapper.readTree(written));
+            assertEquals(app, objectMapper.readValue(written, appClass));
+        }
+    }
+
+    @Test
+    public void testEndpointRegistry() throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerateEndpointRegistry(true);
+        new Generator(configForTargetDirectory(targetDir), options, gravitonApi, instructionLoader).generate();
+
+        String registry = readSource(targetDir, "GeneratedEndpointRegistry.java");
+        assertTrue(registry.contains("extends EndpointManager"));
+        assertTrue(registry.contains("\"AnotherClass\""));
+        assertTrue(registry.contains("\"subpackage.SomeClass\""));
+        assertTrue(registry.indexOf("\"AnotherClass\"") < registry.indexOf("\"subpackage.SomeClass\""));
+        assertEquals(
+                "GeneratedEndpointRegistry",
+                readSource(
+                        targetDir,
+                        "gdk-resources/META-INF/services/" + EndpointManager.class.getName()
+                ).trim()
+        );
+    }
+
+    @Test
+    public void testGeneratedCodecsRoundTrip() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "codec.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"count\":{\"type\":\"integer\"}," +
+                        "\"active\":{\"type\":\"boolean\"}," +
+                        "\"score\":{\"type\":\"number\"}," +
+                        "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}," +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}}," +
+                        "\"meta\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}}}}"),
+                new Endpoint("endpoint://codec/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerateCodecs(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            try (ZipFile sources = new ZipFile(options.getOutputArchive())) {
+                assertNotNull(sources.getEntry("codec/app/jackson/AppSerializer.java"));
+                assertNotNull(sources.getEntry("codec/app/jackson/AppDeserializer.java"));
+                assertNotNull(sources.getEntry("codec/app/jackson/AppMetaDeserializer.java"));
+                assertNotNull(sources.getEntry("GeneratedCodecModule.java"));
+            }
+            assertEquals(
+                    "GeneratedCodecModule",
+                    readSource(
+                            options.getOutputArchive().getParentFile(),
+                            "gdk-resources/META-INF/services/" + Module.class.getName()
+                    ).trim()
+            );
+
+            Class<?> appClass = classLoader.loadClass("codec.app.App");
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(
+                    (Module) classLoader.loadClass("GeneratedCodecModule").getConstructor().newInstance()
+            );
+            JsonSerializer<Object> serializer = objectMapper.getSerializerProviderInstance()
+                    .findValueSerializer(appClass);
+            assertEquals("AppSerializer", serializer.getClass().getSimpleName());
+
+            // the additional properties of meta are typed
+            assertEquals(
+                    "AppMetaSerializer",
+                    objectMapper.getSerializerProviderInstance()
+                            .findValueSerializer(classLoader.loadClass("codec.app.AppMeta"))
+                            .getClass()
+                            .getSimpleName()
+            );
+            String json = "{\"id\":\"a\",\"count\":3,\"active\":true,\"score\":1.5,\"tags\":[\"x\",\"y\"]," +
+                    "\"owner\":{\"name\":\"n\"},\"meta\":{\"k\":\"v\"},\"extra\":{\"nested\":[1,2]}}";
+            Object app = objectMapper.readValue(json, appClass);
+            assertEquals(objectMapper.readTree(json), objectMapper.readTree(objectMapper.writeValueAsString(app)));
+        }
+    }
+
+    @Test
+    public void testLazyPropertiesPassThroughUnchangedDocuments() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "lazy.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"count\":{\"type\":\"integer\"}," +
+                        "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}," +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}}}}"),
+                new Endpoint("endpoint://lazy/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setLazyProperties(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            Class<?> appClass = classLoader.loadClass("lazy.app.App");
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(
+                    (Module) classLoader.loadClass("GeneratedCodecModule").getConstructor().newInstance()
+            );
+
+            // the properties are written in a different order than the schema ones
+            String json = "{\"owner\":{\"name\":\"n\"},\"extra\":[1,2],\"id\":\"a\",\"tags\":[\"x\"],\"count\":3}";
+            Object app = objectMapper.readValue(json, appClass);
+            assertNotNull(appClass.getMethod("getLazyJson").invoke(app));
+            assertEquals("a", appClass.getMethod("getId").invoke(app));
+            assertEquals(json, objectMapper.writeValueAsString(app));
+
+            appClass.getMethod("setCount", Integer.class).invoke(app, 4);
+            assertNull(appClass.getMethod("getLazyJson").invoke(app));
+            assertEquals(Collections.singletonList("x"), appClass.getMethod("getTags").invoke(app));
+            assertEquals(
+                    objectMapper.readTree(json.replace("3}", "4}")),
+                    objectMapper.readTree(objectMapper.writeValueAsString(app))
+            );
+        }
+    }
+
+    @Test
+    public void testLazyTypedAdditionalPropertiesAreDecodedAndWritten() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "lazy.typed",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"meta\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}}}}"),
+                new Endpoint("endpoint://lazy/typed")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setLazyProperties(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            Class<?> appClass = classLoader.loadClass("lazy.typed.App");
+            Class<?> metaClass = classLoader.loadClass("lazy.typed.AppMeta");
+            assertNotNull(metaClass.getMethod("getLazyJson"));
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(
+                    (Module) classLoader.loadClass("GeneratedCodecModule").getConstructor().newInstance()
+            );
+
+            Object app = objectMapper.readValue("{\"id\":\"a\",\"meta\":{\"k\":\"v\"}}", appClass);
+            Object meta = appClass.getMethod("getMeta").invoke(app);
+            assertEquals(
+                    Collections.singletonMap("k", "v"),
+                    metaClass.getMethod("getAdditionalProperties").invoke(meta)
+            );
+
+            metaClass.getMethod("setAdditionalProperty", String.class, String.class).invoke(meta, "k2", "v2");
+            assertEquals(
+                    objectMapper.readTree("{\"id\":\"a\",\"meta\":{\"k\":\"v\",\"k2\":\"v2\"}}"),
+                    objectMapper.readTree(objectMapper.writeValueAsString(app))
+            );
+        }
+    }
+
+    @Test
+    public void testLazyCollectionsAreAllocatedOnWrite() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "collections.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}," +
+                        "\"codes\":{\"type\":\"array\",\"uniqueItems\":true,\"items\":{\"type\":\"integer\"}}," +
+                        "\"meta\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}}}}"),
+                new Endpoint("endpoint://collections/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setLazyCollections(true);
+        options.setGenerateCodecs(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            Class<?> appClass = classLoader.loadClass("collections.app.App");
+            Object emptyApp = appClass.getConstructor().newInstance();
+            assertSame(Collections.emptyList(), appClass.getMethod("getTags").invoke(emptyApp));
+            assertSame(Collections.emptySet(), appClass.getMethod("getCodes").invoke(emptyApp));
+            assertSame(Collections.emptyMap(), appClass.getMethod("getAdditionalProperties").invoke(emptyApp));
+
+            appClass.getMethod("setAdditionalProperty", String.class, Object.class).invoke(emptyApp, "extra", 1);
+            assertEquals(
+                    Collections.singletonMap("extra", 1),
+                    appClass.getMethod("getAdditionalProperties").invoke(emptyApp)
+            );
+
+            Class<?> metaClass = classLoader.loadClass("collections.app.AppMeta");
+            Object emptyMeta = metaClass.getConstructor().newInstance();
+            assertSame(Collections.emptyMap(), metaClass.getMethod("getAdditionalProperties").invoke(emptyMeta));
+            metaClass.getMethod("setAdditionalProperty", String.class, String.class).invoke(emptyMeta, "k", "v");
+            assertEquals(
+                    Collections.singletonMap("k", "v"),
+                    metaClass.getMethod("getAdditionalProperties").invoke(emptyMeta)
+            );
+
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(
+                    (Module) classLoader.loadClass("GeneratedCodecModule").getConstructor().newInstance()
+            );
+            String json = "{\"id\":\"a\",\"tags\":[\"x\",\"y\"],\"codes\":[1,2],\"extra\":true}";
+            Object app = objectMapper.readValue(json, appClass);
+            assertEquals(Arrays.asList("x", "y"), appClass.getMethod("getTags").invoke(app));
+            assertEquals(new HashSet<>(Arrays.asList(1, 2)), appClass.getMethod("getCodes").invoke(app));
+            assertEquals(objectMapper.readTree(json), objectMapper.readTree(objectMapper.writeValueAsString(app)));
+
+            Object emptyTagsApp = objectMapper.readValue("{\"id\":\"b\",\"tags\":[]}", appClass);
+            assertSame(Collections.emptyList(), appClass.getMethod("getTags").invoke(emptyTagsApp));
+        }
+    }
+
+    @Test
+    public void testPrimitivePropertiesTrackPresence() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "primitive.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"count\":{\"type\":\"integer\"}," +
+                        "\"active\":{\"type\":\"boolean\"}," +
+                        "\"score\":{\"type\":\"number\",\"default\":1.5}}}"),
+                new Endpoint("endpoint://primitive/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setPrimitiveProperties(true);
+        options.setGenerateCodecs(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            Class<?> appClass = classLoader.loadClass("primitive.app.App");
+            assertSame(int.class, appClass.getDeclaredField("count").getType());
+            assertSame(boolean.class, appClass.getDeclaredField("active").getType());
+            assertSame(double.class, appClass.getDeclaredField("score").getType());
+            assertSame(long.class, appClass.getDeclaredField("presence").getType());
+
+            Object app = appClass.getConstructor().newInstance();
+            assertNull(appClass.getMethod("getCount").invoke(app));
+            assertNull(appClass.getMethod("getActive").invoke(app));
+            assertEquals(1.5, appClass.getMethod("getScore").invoke(app));
+
+            Method setCount = appClass.getMethod("setCount", Integer.class);
+            setCount.invoke(app, 0);
+            assertEquals(0, appClass.getMethod("getCount").invoke(app));
+            assertNotEquals(appClass.getConstructor().newInstance(), app);
+            setCount.invoke(app, (Object) null);
+            assertNull(appClass.getMethod("getCount").invoke(app));
+            assertEquals(appClass.getConstructor().newInstance(), app);
+
+            String json = "{\"id\":\"a\",\"count\":0,\"active\":false,\"score\":2.5}";
+            for (ObjectMapper objectMapper : Arrays.asList(new ObjectMapper(), new ObjectMapper().registerModule(
+                    (Module) classLoader.loadClass("GeneratedCodecModule").getConstructor().newInstance()
+            ))) {
+                Object read = objectMapper.readValue(json, appClass);
+                assertEquals(Boolean.FALSE, appClass.getMethod("getActive").invoke(read));
+                assertEquals(objectMapper.readTree(json), objectMapper.readTree(objectMapper.writeValueAsString(read)));
+                Object unset = objectMapper.readValue("{\"id\":\"b\",\"score\":null}", appClass);
+                assertEquals("{\"id\":\"b\"}", objectMapper.writeValueAsString(unset));
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedBinaryCodecsRoundTrip() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "binary.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"count\":{\"type\":\"integer\"}," +
+                        "\"active\":{\"type\":\"boolean\"}," +
+                        "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}," +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}}," +
+                        "\"links\":{\"type\":\"array\",\"items\":{\"type\":\"object\"," +
+                        "\"properties\":{\"href\":{\"type\":\"string\"}}}}," +
+                        "\"meta\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}}}}"),
+                new Endpoint("endpoint://binary/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerateBinaryCodecs(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            try (ZipFile sources = new ZipFile(options.getOutputArchive())) {
+                assertNotNull(sources.getEntry("binary/app/binary/AppBinaryCodec.java"));
+                assertNotNull(sources.getEntry("GeneratedBinaryCodecs.java"));
+                // the additional properties are read without an unchecked cast
+                String metaCodec = readEntry(sources, "binary/app/binary/AppMetaBinaryCodec.java");
+                assertTrue(metaCodec.contains("Map<String, String> additionalProperties = parser.readValueAs("));
+            }
+
+            Class<?> appClass = classLoader.loadClass("binary.app.App");
+            Class<?> helperClass = classLoader.loadClass("GeneratedBinaryCodecs");
+            // the codecs work on any format, the plain JSON format makes the encoded form readable
+            ObjectMapper objectMapper = new ObjectMapper();
+            Object helper = helperClass.getConstructor(ObjectMapper.class).newInstance(objectMapper);
+
+            String json = "{\"id\":\"a\",\"count\":3,\"active\":true,\"tags\":[\"x\",\"y\"]," +
+                    "\"owner\":{\"name\":\"n\"},\"links\":[{\"href\":\"h1\"},{\"href\":\"h2\"}]," +
+                    "\"meta\":{\"k\":\"v\"},\"extra\":{\"nested\":[1,2]}}";
+            Object app = objectMapper.readValue(json, appClass);
+            byte[] bytes = (byte[]) helperClass.getMethod("toBytes", Object.class).invoke(helper, app);
+            String encoded = new String(bytes, StandardCharsets.UTF_8);
+            assertTrue(encoded.startsWith("[{\"extra\""));
+            assertFalse(encoded.contains("\"owner\""));
+
+            Object decoded = helperClass.getMethod("fromBytes", byte[].class, Class.class)
+                    .invoke(helper, bytes, appClass);
+            assertEquals(objectMapper.readTree(json), objectMapper.valueToTree(decoded));
+        }
+    }
+
+    @Test
+    public void testGeneratedViewsReadDocuments() throws Exception {
+        when(instructionLoader.loadInstructions()).thenReturn(Collections.singletonList(new GeneratorInstruction(
+                "App",
+                "view.app",
+                new JSONObject("{\"type\":\"object\",\"properties\":{" +
+                        "\"id\":{\"type\":\"string\"}," +
+                        "\"count\":{\"type\":\"integer\"}," +
+                        "\"active\":{\"type\":\"boolean\"}," +
+                        "\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}," +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}}}}"),
+                new Endpoint("endpoint://view/app")
+        )));
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerateViews(true);
+
+        try (URLClassLoader classLoader = generateCompileAndLoad(options)) {
+            try (ZipFile sources = new ZipFile(options.getOutputArchive())) {
+                assertNotNull(sources.getEntry("view/DocumentIndex.java"));
+                assertNotNull(sources.getEntry("view/app/view/AppView.java"));
+            }
+
+            Class<?> viewClass = classLoader.loadClass("view.app.view.AppView");
+            Object view = viewClass.getConstructor().newInstance();
+            byte[] documents = ("{\"owner\":{\"name\":\"n\\u00e4\"},\"id\":\"a\",\"count\":-3,\"tags\":[\"x\"]}\n" +
+                    "{\"id\":\"b\",\"active\":true,\"count\":null}").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(documents.length).put(documents);
+            buffer.flip();
+
+            viewClass.getMethod("wrap", ByteBuffer.class).invoke(view, buffer);
+            assertEquals("a", viewClass.getMethod("getId").invoke(view));
+            assertEquals(-3, viewClass.getMethod("getCount").invoke(view));
+            assertNull(viewClass.getMethod("getActive").invoke(view));
+            ByteBuffer tags = (ByteBuffer) viewClass.getMethod("getTagsJson").invoke(view);
+            assertEquals("[\"x\"]", StandardCharsets.UTF_8.decode(tags).toString());
+
+            Method getOwner = Arrays.stream(viewClass.getMethods())
+                    .filter(method -> "getOwner".equals(method.getName()))
+                    .findFirst()
+                    .get();
+            Object ownerView = getOwner.getParameterTypes()[0].getConstructor().newInstance();
+            assertSame(ownerView, getOwner.invoke(view, ownerView));
+            assertEquals("n\u00e4", ownerView.getClass().getMethod("getName").invoke(ownerView));
+
+            int documentEnd = (int) viewClass.getMethod("getDocumentEnd").invoke(view);
+            viewClass.getMethod("wrap", ByteBuffer.class, int.class, int.class)
+                    .invoke(view, buffer, documentEnd, buffer.limit());
+            assertEquals("b", viewClass.getMethod("getId").invoke(view));
+            assertEquals(true, viewClass.getMethod("getActive").invoke(view));
+            assertNull(viewClass.getMethod("getCount").invoke(view));
+            assertNull(getOwner.invoke(view, ownerView));
+        }
+    }
+
+    /**
+     * Generates the classes of the instructions into an archive, compiles them and loads them. The configuration
+     * omits the generated annotation and uses the GravitonRuleFactory, the archives are written into a temporary
+     * directory and compiled against Jackson.
+     *
+     * @param options The options of the behavior under test. The archives and the compile classpath are set here.
+     *
+     * @return A class loader for the compiled classes, to be closed by the caller.
+     */
+    private URLClassLoader generateCompileAndLoad(GeneratorOptions options) throws Exception {
+        final File targetDir = Files.createTempDirectory("test-generator").toFile();
+        GenerationConfig config = new DefaultGenerationConfig() {
+            @Override
+            public File getTargetDirectory() {
+                return targetDir;
+            }
+
+            @Override
+            public boolean isIncludeGeneratedAnnotation() {
+                return false;
+            }
+
+            @Override
+            public Class<? extends RuleFactory> getCustomRuleFactory() {
+                return GravitonRuleFactory.class;
+            }
+        };
+        options.setOutputArchive(new File(targetDir, "sources.jar"));
+        options.setClassesArchive(new File(targetDir, "classes.jar"));
+        options.setCompileClasspath(Arrays.asList(
+                new File(JsonProperty.class.getProtectionDomain().getCodeSource().getLocation().toURI()),
+                new File(JsonParser.class.getProtectionDomain().getCodeSource().getLocation().toURI()),
+                new File(ObjectMapper.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+        ));
+
+        new Generator(config, options, gravitonApi, instructionLoader).generate();
+
+        return new URLClassLoader(new URL[] {options.getClassesArchive().toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private String readEntry(ZipFile archive, String name) throws IOException {
+        ZipEntry entry = archive.getEntry(name);
+        assertNotNull(name, entry);
+        try (InputStream in = archive.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String readSource(File targetDir, String file) throws IOException {
+        return new String(Files.readAllBytes(new File(targetDir, file).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private List<Path> listFiles(File directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .map(file -> directory.toPath().relativize(file))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private GenerationConfig configForTargetDirectory(final File targetDir) {
+        return new DefaultGenerationConfig() {
+            @Override
+            public String getTargetPackage() {
+                return "";
+            }
+
+            @Override
+            public File getTargetDirectory() {
+                return targetDir;
+            }
+        };
+    }
+
     private File successfulGeneration(final String configTargetPackage) throws IOException, GeneratorException, CommunicationException {
 
         final File targetDir = Files.createTempDirectory("test-generator").toFile();
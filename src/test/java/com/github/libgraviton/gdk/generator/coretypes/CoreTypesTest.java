@@ -0,0 +1,78 @@
+package com.github.libgraviton.gdk.generator.coretypes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoreTypesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testWellKnownShapesAreMapped() throws Exception {
+        JsonNode schema = objectMapper.readTree(
+                "{\"type\":\"object\",\"properties\":{" +
+                        "\"name\":{\"type\":\"object\",\"properties\":{" +
+                        "\"en\":{\"type\":\"string\"},\"de\":{\"type\":[\"string\",\"null\"]}}}," +
+                        "\"app\":{\"type\":\"object\",\"properties\":{" +
+                        "\"$ref\":{\"type\":\"string\",\"format\":\"extref\"}}}," +
+                        "\"links\":{\"type\":\"array\",\"items\":{\"type\":\"object\",\"properties\":{" +
+                        "\"$ref\":{\"type\":\"string\"}}}}," +
+                        "\"address\":{\"type\":\"object\",\"properties\":{" +
+                        "\"street\":{\"type\":\"string\"},\"en\":{\"type\":\"string\"}}}" +
+                        "}}"
+        );
+
+        assertEquals(3, new CoreTypes("some.core").apply(schema));
+
+        JsonNode properties = schema.get("properties");
+        assertEquals("some.core.Translatable", properties.get("name").get("existingJavaType").asText());
+        assertEquals("some.core.ExtReference", properties.get("app").get("existingJavaType").asText());
+        assertEquals(
+                "some.core.ExtReference",
+                properties.get("links").get("items").get("existingJavaType").asText()
+        );
+        assertFalse(properties.get("address").has("existingJavaType"));
+        assertFalse(schema.has("existingJavaType"));
+    }
+
+    @Test
+    public void testTranslatablesNeedMarkerOrDefaultLanguage() throws Exception {
+        JsonNode schema = objectMapper.readTree(
+                "{\"type\":\"object\",\"properties\":{" +
+                        "\"owner\":{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"string\"}}}," +
+                        "\"code\":{\"type\":\"object\",\"properties\":{" +
+                        "\"en\":{\"type\":\"string\"},\"id\":{\"type\":\"string\"}}}," +
+                        "\"title\":{\"type\":\"object\",\"translatable\":true,\"properties\":{" +
+                        "\"de\":{\"type\":\"string\"},\"no\":{\"type\":\"string\"}}}" +
+                        "}}"
+        );
+
+        assertEquals(1, new CoreTypes("some.core").apply(schema));
+
+        JsonNode properties = schema.get("properties");
+        assertFalse(properties.get("owner").has("existingJavaType"));
+        assertFalse(properties.get("code").has("existingJavaType"));
+        assertEquals("some.core.Translatable", properties.get("title").get("existingJavaType").asText());
+    }
+
+    @Test
+    public void testSources() throws Exception {
+        Map<String, byte[]> sources = new CoreTypes("some.core").getSources();
+
+        assertEquals(CoreType.values().length, sources.size());
+        String translatable = new String(sources.get("some/core/Translatable.java"), StandardCharsets.UTF_8);
+        assertTrue(translatable.startsWith("package some.core;"));
+        assertTrue(sources.containsKey("some/core/ExtReference.java"));
+
+        String unnamed = new String(new CoreTypes("").getSources().get("ExtReference.java"), StandardCharsets.UTF_8);
+        assertTrue(unnamed.startsWith("import "));
+    }
+}
@@ -1,9 +1,10 @@
 package com.github.libgraviton.gdk.generator.instructionloader.grvprofile;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.libgraviton.workerbase.gdk.GravitonApi;
 import com.github.libgraviton.workerbase.gdk.api.Request;
 import com.github.libgraviton.workerbase.gdk.api.Response;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+import com.github.libgraviton.gdk.generator.EndpointPatternFilter;
 import com.github.libgraviton.gdk.generator.GeneratorInstruction;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -18,6 +19,9 @@ import org.mockito.Mock;
 import java.io.File;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -30,8 +34,6 @@ public class GrvProfileInstructionModeTest {
 
     private GrvProfileInstructionLoader instructionLoader;
 
-    private ObjectMapper objectMapper = new ObjectMapper();
-
     @Mock
     private GravitonApi gravitonApi;
 
@@ -51,7 +53,7 @@ public class GrvProfileInstructionModeTest {
         when(gravitonApi.getBaseUrl()).thenReturn("http://gravitonApi");
 
         Response response1 = mock(Response.class);
-        when(response1.getBodyItem(Service.class)).thenReturn(objectMapper.readValue(service, Service.class));
+        when(response1.getBody()).thenReturn(service);
         Request.Builder builder1 = mock(Request.Builder.class);
         when(builder1.execute()).thenReturn(response1);
         when(gravitonApi.get("http://gravitonApi")).thenReturn(builder1);
@@ -151,4 +153,125 @@ public class GrvProfileInstructionModeTest {
         assertTrue(expectedItemUrl == null || instruction.getEndpoint().getItemUrl().contains(new URL(expectedItemUrl).getPath()));
     }
 
+    @Test
+    public void testLoadInstructionsConcurrently() throws Exception {
+        stubProfile("http://some-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.someSchema.json");
+        stubProfile("http://another-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.anotherSchema.json");
+        stubProfile(
+                "http://some-more-service/profile",
+                "serviceSchema/grvProfileInstructionLoaderTest.anotherMoreSchema.json"
+        );
+
+        List<GeneratorInstruction> instructions = new GrvProfileInstructionLoader(gravitonApi, 3).loadInstructions();
+        assertEquals(3, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("AnotherServiceDocument", instructions.get(1).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(2).getClassName());
+    }
+
+    @Test
+    public void testLoadInstructionsConcurrentlySkipsFailedProfiles() throws Exception {
+        stubProfile("http://some-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.someSchema.json");
+        stubProfile(
+                "http://some-more-service/profile",
+                "serviceSchema/grvProfileInstructionLoaderTest.anotherMoreSchema.json"
+        );
+        Request.Builder failingBuilder = mock(Request.Builder.class);
+        when(failingBuilder.execute()).thenThrow(CommunicationException.class);
+        when(gravitonApi.get("http://another-service/profile")).thenReturn(failingBuilder);
+
+        List<GeneratorInstruction> instructions = new GrvProfileInstructionLoader(gravitonApi, 3).loadInstructions();
+        assertEquals(2, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(1).getClassName());
+    }
+
+    @Test
+    public void testFilteredProfilesAreNotFetched() throws Exception {
+        stubProfile("http://some-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.someSchema.json");
+        stubProfile(
+                "http://some-more-service/profile",
+                "serviceSchema/grvProfileInstructionLoaderTest.anotherMoreSchema.json"
+        );
+
+        GrvProfileInstructionLoader loader = new GrvProfileInstructionLoader(gravitonApi, 2);
+        // the endpoint paths don't contain the host, only the collections of some-service and some-more-service end
+        // with a slash
+        loader.setEndpointFilter(new EndpointPatternFilter(Collections.singletonList("**/"), null));
+
+        List<GeneratorInstruction> instructions = loader.loadInstructions();
+        assertEquals(2, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(1).getClassName());
+        verify(gravitonApi, never()).get("http://another-service/profile");
+    }
+
+    @Test
+    public void testStreamInstructions() throws Exception {
+        stubProfile("http://some-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.someSchema.json");
+        stubProfile("http://another-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.anotherSchema.json");
+        stubProfile(
+                "http://some-more-service/profile",
+                "serviceSchema/grvProfileInstructionLoaderTest.anotherMoreSchema.json"
+        );
+
+        List<GeneratorInstruction> instructions = new ArrayList<>();
+        new GrvProfileInstructionLoader(gravitonApi, 2).streamInstructions(instructions::add);
+        assertEquals(3, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("AnotherServiceDocument", instructions.get(1).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(2).getClassName());
+    }
+
+    @Test
+    public void testLoadInstructionsRevalidatesCachedProfiles() throws Exception {
+        String service = FileUtils.readFileToString(
+                new File("src/test/resources/service/grvProfileInstructionLoaderTest.json"), Charset.defaultCharset());
+        Response serviceResponse = mock(Response.class);
+        when(serviceResponse.getCode()).thenReturn(200);
+        // the service document lists more than the services, which is ignored
+        when(serviceResponse.getBody()).thenReturn(service.replaceFirst("\\{", "{\"version\":\"1.0\","));
+        Request.Builder serviceBuilder = mock(Request.Builder.class);
+        when(serviceBuilder.execute()).thenReturn(serviceResponse);
+        when(gravitonApi.get("http://gravitonApi")).thenReturn(serviceBuilder);
+
+        stubProfile("http://another-service/profile", "serviceSchema/grvProfileInstructionLoaderTest.anotherSchema.json");
+        stubProfile(
+                "http://some-more-service/profile",
+                "serviceSchema/grvProfileInstructionLoaderTest.anotherMoreSchema.json"
+        );
+
+        ProfileCache profileCache = new ProfileCache(Files.createTempDirectory("test-profile-cache").toFile());
+        profileCache.put(
+                "http://some-service/profile",
+                FileUtils.readFileToString(
+                        new File("src/test/resources/serviceSchema/grvProfileInstructionLoaderTest.someSchema.json"),
+                        Charset.defaultCharset()
+                ),
+                "\"some-etag\"",
+                null
+        );
+        Response notModified = mock(Response.class);
+        when(notModified.getCode()).thenReturn(304);
+        Request.Builder cachedBuilder = mock(Request.Builder.class);
+        when(cachedBuilder.execute()).thenReturn(notModified);
+        when(gravitonApi.get("http://some-service/profile")).thenReturn(cachedBuilder);
+
+        List<GeneratorInstruction> instructions =
+                new GrvProfileInstructionLoader(gravitonApi, 1, profileCache).loadInstructions();
+        assertEquals(3, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        verify(cachedBuilder).addHeader("If-None-Match", "\"some-etag\"");
+        verify(notModified, never()).getBody();
+    }
+
+    private void stubProfile(String profileUrl, String schemaFile) throws Exception {
+        String schema = FileUtils.readFileToString(new File("src/test/resources/" + schemaFile), Charset.defaultCharset());
+        Response response = mock(Response.class);
+        when(response.getBody()).thenReturn(schema);
+        Request.Builder builder = mock(Request.Builder.class);
+        when(builder.execute()).thenReturn(response);
+        when(gravitonApi.get(profileUrl)).thenReturn(builder);
+    }
+
 }
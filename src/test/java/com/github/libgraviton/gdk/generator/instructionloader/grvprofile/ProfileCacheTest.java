@@ -0,0 +1,87 @@
+package com.github.libgraviton.gdk.generator.instructionloader.grvprofile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProfileCacheTest {
+
+    private File cacheDirectory;
+
+    @Before
+    public void setup() throws Exception {
+        cacheDirectory = new File(Files.createTempDirectory("test-profile-cache").toFile(), "cache");
+    }
+
+    @Test
+    public void testPutAndGet() {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        cache.put("http://some-service/profile", "{\"some\":\"schema\"}", "\"abc\"", "Tue, 15 Nov 1994 12:45:26 GMT");
+
+        ProfileCache.Entry entry = new ProfileCache(cacheDirectory).get("http://some-service/profile");
+        assertEquals("{\"some\":\"schema\"}", entry.getBody());
+        assertEquals("\"abc\"", entry.getETag());
+        assertEquals("Tue, 15 Nov 1994 12:45:26 GMT", entry.getLastModified());
+    }
+
+    @Test
+    public void testPutReplacesEntry() {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        cache.put("http://some-service/profile", "old", "\"1\"", null);
+        cache.put("http://some-service/profile", "new", "\"2\"", null);
+
+        ProfileCache.Entry entry = cache.get("http://some-service/profile");
+        assertEquals("new", entry.getBody());
+        assertEquals("\"2\"", entry.getETag());
+        assertNull(entry.getLastModified());
+    }
+
+    @Test
+    public void testMissingEntry() {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        assertNull(cache.get("http://some-service/profile"));
+    }
+
+    @Test
+    public void testEntryWithoutValidatorIsNotStored() {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        cache.put("http://some-service/profile", "body", null, null);
+        assertNull(cache.get("http://some-service/profile"));
+    }
+
+    @Test
+    public void testFailedPutLeavesNoTempFiles() throws Exception {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        cache.put("http://some-service/profile", "old", "\"1\"", null);
+        File[] metaFiles = cacheDirectory.listFiles((directory, name) -> name.endsWith(".meta"));
+        assertEquals(1, metaFiles.length);
+        // a non-empty directory can't be replaced by the meta file
+        Files.delete(metaFiles[0].toPath());
+        assertTrue(new File(metaFiles[0], "blocker").mkdirs());
+
+        cache.put("http://some-service/profile", "new", "\"2\"", null);
+
+        assertEquals(0, cacheDirectory.listFiles((directory, name) -> name.endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void testBodyNotMatchingMetaIsIgnored() throws Exception {
+        ProfileCache cache = new ProfileCache(cacheDirectory);
+        cache.put("http://some-service/profile", "old", "\"1\"", null);
+
+        // another run replaced the body, but not yet the meta file
+        File[] bodyFiles = cacheDirectory.listFiles((directory, name) -> name.endsWith(".body"));
+        assertEquals(1, bodyFiles.length);
+        Files.write(bodyFiles[0].toPath(), "new".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(cache.get("http://some-service/profile"));
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.libgraviton.gdk.generator.instructionloader.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.AbstractGrvProfileInstructionLoader;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.EndpointDefinition;
+import com.github.libgraviton.workerbase.gdk.exception.CommunicationException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class SnapshotInstructionLoaderTest {
+
+    private AbstractGrvProfileInstructionLoader source;
+
+    private File snapshotFile;
+
+    private String service;
+
+    @Before
+    public void setup() throws Exception {
+        service = FileUtils.readFileToString(
+                new File("src/test/resources/service/grvProfileInstructionLoaderTest.json"), Charset.defaultCharset());
+
+        source = mock(AbstractGrvProfileInstructionLoader.class);
+        when(source.loadServiceDocument()).thenReturn(service);
+        when(source.parseService(anyString())).thenCallRealMethod();
+        when(source.isIncluded(any(EndpointDefinition.class))).thenReturn(true);
+        when(source.getFetchConcurrency()).thenReturn(2);
+        when(source.loadProfile("http://some-service/profile"))
+                .thenReturn(readSchema("grvProfileInstructionLoaderTest.someSchema.json"));
+        when(source.loadProfile("http://another-service/profile"))
+                .thenReturn(readSchema("grvProfileInstructionLoaderTest.anotherSchema.json"));
+        when(source.loadProfile("http://some-more-service/profile"))
+                .thenReturn(readSchema("grvProfileInstructionLoaderTest.anotherMoreSchema.json"));
+
+        snapshotFile = new File(Files.createTempDirectory("test-snapshot").toFile(), "snapshot.jsonl");
+    }
+
+    @Test
+    public void testExportAndLoad() throws Exception {
+        assertEquals(3, new SnapshotWriter().write(source, "http://gravitonApi", snapshotFile));
+
+        List<GeneratorInstruction> instructions = new SnapshotInstructionLoader(snapshotFile).loadInstructions();
+        assertEquals(3, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("whatever.someservice", instructions.get(0).getPackageName());
+        assertTrue(instructions.get(0).getEndpoint().getItemUrl().contains("/{id}"));
+        assertEquals("AnotherServiceDocument", instructions.get(1).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(2).getClassName());
+    }
+
+    @Test
+    public void testExportKeepsRawServiceDocument() throws Exception {
+        new SnapshotWriter().write(source, "http://gravitonApi", snapshotFile);
+
+        JsonNode serviceDocument = new ObjectMapper().readTree(Files.readAllLines(snapshotFile.toPath()).get(0));
+        assertEquals("http://gravitonApi", serviceDocument.get("url").asText());
+        assertEquals(service, serviceDocument.get("body").asText());
+    }
+
+    @Test
+    public void testExportSkipsFailedProfiles() throws Exception {
+        when(source.loadProfile("http://another-service/profile")).thenThrow(CommunicationException.class);
+
+        assertEquals(2, new SnapshotWriter().write(source, "http://gravitonApi", snapshotFile));
+
+        List<GeneratorInstruction> instructions = new SnapshotInstructionLoader(snapshotFile, 2).loadInstructions();
+        assertEquals(2, instructions.size());
+        assertEquals("SomeServiceDocument", instructions.get(0).getClassName());
+        assertEquals("AnotherMoreServiceDocument", instructions.get(1).getClassName());
+    }
+
+    @Test
+    public void testExportSkipsExcludedEndpoints() throws Exception {
+        when(source.isIncluded(argThat(endpointDefinition ->
+                "http://some-service/profile".equals(endpointDefinition.getProfile())
+        ))).thenReturn(false);
+
+        assertEquals(2, new SnapshotWriter().write(source, "http://gravitonApi", snapshotFile));
+
+        verify(source, never()).loadProfile("http://some-service/profile");
+        List<GeneratorInstruction> instructions = new SnapshotInstructionLoader(snapshotFile).loadInstructions();
+        assertEquals(2, instructions.size());
+        assertEquals("AnotherServiceDocument", instructions.get(0).getClassName());
+    }
+
+    @Test
+    public void testLoadWithoutInstructionCache() throws Exception {
+        new SnapshotWriter().write(source, "http://gravitonApi", snapshotFile);
+
+        SnapshotInstructionLoader loader = new SnapshotInstructionLoader(snapshotFile);
+        loader.setCacheInstructions(false);
+        List<GeneratorInstruction> instructions = loader.loadInstructions();
+        assertEquals(3, instructions.size());
+
+        List<GeneratorInstruction> reloadedInstructions = loader.loadInstructions();
+        assertNotSame(instructions, reloadedInstructions);
+        assertEquals(3, reloadedInstructions.size());
+        assertEquals("AnotherMoreServiceDocument", reloadedInstructions.get(2).getClassName());
+    }
+
+    private String readSchema(String fileName) throws Exception {
+        return FileUtils.readFileToString(
+                new File("src/test/resources/serviceSchema/" + fileName), Charset.defaultCharset());
+    }
+
+}
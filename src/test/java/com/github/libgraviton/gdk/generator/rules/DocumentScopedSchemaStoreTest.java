@@ -0,0 +1,60 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jsonschema2pojo.Schema;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class DocumentScopedSchemaStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testFragmentsAreCachedWithinDocument() throws Exception {
+        Schema root = new Schema(null, objectMapper.readTree(
+                "{\"properties\":{\"name\":{\"type\":\"string\"}}}"
+        ), null);
+
+        DocumentScopedSchemaStore store = new DocumentScopedSchemaStore();
+        store.openDocument("some.Document");
+        Schema first = store.create(root, "#/properties/name", "/");
+        Schema second = store.create(root, "#/properties/name", "/");
+        store.closeDocument();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testFragmentsOfDifferentDocumentsDoNotCollide() throws Exception {
+        JsonNode someSchema = objectMapper.readTree("{\"properties\":{\"name\":{\"type\":\"string\"}}}");
+        JsonNode anotherSchema = objectMapper.readTree("{\"properties\":{\"name\":{\"type\":\"integer\"}}}");
+
+        DocumentScopedSchemaStore store = new DocumentScopedSchemaStore();
+        store.openDocument("some.Document");
+        Schema someName = store.create(new Schema(null, someSchema, null), "#/properties/name", "/");
+        store.closeDocument();
+
+        store.openDocument("another.Document");
+        Schema anotherName = store.create(new Schema(null, anotherSchema, null), "#/properties/name", "/");
+        store.closeDocument();
+
+        assertNotSame(someName, anotherName);
+        assertEquals("string", someName.getContent().get("type").asText());
+        assertEquals("integer", anotherName.getContent().get("type").asText());
+    }
+
+    @Test
+    public void testNothingIsCachedOutsideOfDocuments() throws Exception {
+        Schema root = new Schema(null, objectMapper.readTree(
+                "{\"properties\":{\"name\":{\"type\":\"string\"}}}"
+        ), null);
+
+        DocumentScopedSchemaStore store = new DocumentScopedSchemaStore();
+
+        assertNotSame(store.create(root, "#/properties/name", "/"), store.create(root, "#/properties/name", "/"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import org.jsonschema2pojo.DefaultGenerationConfig;
+import org.jsonschema2pojo.SchemaGenerator;
+import org.jsonschema2pojo.SchemaMapper;
+import org.jsonschema2pojo.exception.GenerationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class GravitonObjectRuleTest {
+
+    private static final String ADDRESS = "{\"type\":\"object\",\"properties\":{\"street\":{\"type\":\"string\"}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GravitonRuleFactory ruleFactory;
+
+    private SchemaMapper schemaMapper;
+
+    @Before
+    public void setup() {
+        ruleFactory = new GravitonRuleFactory();
+        ruleFactory.setGenerationConfig(new DefaultGenerationConfig());
+        ruleFactory.setDeduplicateTypes(true);
+        schemaMapper = new SchemaMapper(ruleFactory, new SchemaGenerator());
+    }
+
+    @Test
+    public void testStructurallyIdenticalObjectsShareClass() throws Exception {
+        JCodeModel codeModel = new JCodeModel();
+        schemaMapper.generate(codeModel, "Customer", "", withAddress());
+        JDefinedClass address = sharedAddress(codeModel);
+        assertNotNull(address);
+
+        schemaMapper.generate(codeModel, "Supplier", "", withAddress());
+
+        assertSame(address, codeModel._getClass("Supplier").fields().get("address").type());
+    }
+
+    @Test
+    public void testPropertiesWithIdenticalObjectsShareClass() throws Exception {
+        JCodeModel codeModel = new JCodeModel();
+        schemaMapper.generate(
+                codeModel,
+                "Customer",
+                "",
+                "{\"type\":\"object\",\"properties\":{\"address\":" + ADDRESS + ",\"addresses\":" + ADDRESS + "}}"
+        );
+        JDefinedClass address = sharedAddress(codeModel);
+
+        assertSame(address, codeModel._getClass("Customer").fields().get("address").type());
+        assertSame(address, codeModel._getClass("Customer").fields().get("addresses").type());
+    }
+
+    @Test(expected = GenerationException.class)
+    public void testShapeHashCollisionIsDetected() throws Exception {
+        Map<String, String> sharedClassShapes = new ConcurrentHashMap<>();
+        // pretend that another schema which happens to have the same hash was seen before
+        sharedClassShapes.put(SchemaShapes.hash(objectMapper.readTree(ADDRESS)), "{\"type\":\"object\"}");
+        ruleFactory.setSharedClassShapes(sharedClassShapes);
+
+        schemaMapper.generate(new JCodeModel(), "Customer", "", withAddress());
+    }
+
+    @Test
+    public void testShapesAreSharedBetweenRuleFactories() throws Exception {
+        Map<String, String> sharedClassShapes = new ConcurrentHashMap<>();
+        ruleFactory.setSharedClassShapes(sharedClassShapes);
+        schemaMapper.generate(new JCodeModel(), "Customer", "", withAddress());
+
+        GravitonRuleFactory otherRuleFactory = new GravitonRuleFactory();
+        otherRuleFactory.setGenerationConfig(new DefaultGenerationConfig());
+        otherRuleFactory.setDeduplicateTypes(true);
+        otherRuleFactory.setSharedClassShapes(sharedClassShapes);
+        JCodeModel codeModel = new JCodeModel();
+        new SchemaMapper(otherRuleFactory, new SchemaGenerator()).generate(codeModel, "Supplier", "", withAddress());
+
+        assertEquals(
+                SchemaShapes.canonicalForm(objectMapper.readTree(ADDRESS)),
+                sharedClassShapes.get(SchemaShapes.hash(objectMapper.readTree(ADDRESS)))
+        );
+        assertNotNull(sharedAddress(codeModel));
+    }
+
+    private String withAddress() {
+        return "{\"type\":\"object\",\"properties\":{\"address\":" + ADDRESS + "}}";
+    }
+
+    private JDefinedClass sharedAddress(JCodeModel codeModel) throws Exception {
+        return codeModel._getClass("shared.Object" + SchemaShapes.hash(objectMapper.readTree(ADDRESS)));
+    }
+}
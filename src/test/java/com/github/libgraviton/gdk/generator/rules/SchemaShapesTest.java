@@ -0,0 +1,32 @@
+package com.github.libgraviton.gdk.generator.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SchemaShapesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testKeywordOrderAndFormattingAreIgnored() throws Exception {
+        String hash = SchemaShapes.hash(objectMapper.readTree(
+                "{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"string\",\"format\":\"date-time\"}}}"
+        ));
+
+        assertEquals(SchemaShapes.HASH_LENGTH, hash.length());
+        assertEquals(hash, SchemaShapes.hash(objectMapper.readTree(
+                "{ \"properties\": { \"a\": { \"format\": \"date-time\", \"type\": \"string\" } }, \"type\": \"object\" }"
+        )));
+    }
+
+    @Test
+    public void testPropertyOrderIsSignificant() throws Exception {
+        assertNotEquals(
+                SchemaShapes.hash(objectMapper.readTree("{\"properties\":{\"a\":{},\"b\":{}}}")),
+                SchemaShapes.hash(objectMapper.readTree("{\"properties\":{\"b\":{},\"a\":{}}}"))
+        );
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.libgraviton.gdk.generator.synthetic;
+
+import com.github.libgraviton.gdk.generator.Generator;
+import com.github.libgraviton.gdk.generator.GeneratorOptions;
+import com.github.libgraviton.gdk.generator.instructionloader.snapshot.SnapshotInstructionLoader;
+import com.github.libgraviton.gdk.generator.rules.GravitonRuleFactory;
+import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import org.jsonschema2pojo.DefaultGenerationConfig;
+import org.jsonschema2pojo.GenerationConfig;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Macro benchmark running the whole generator against synthetic Graviton deployments of growing size. Only the
+ * smallest corpus runs by default; set the system property 'gdk.scaleTest' to true to run all sizes
+ * (e.g. mvn test -Dtest=GeneratorScaleTest -Dgdk.scaleTest=true).
+ *
+ * Every run reports the wall time and the peak heap usage to the log and appends it to target/scale-results.csv.
+ */
+@RunWith(DataProviderRunner.class)
+public class GeneratorScaleTest {
+
+    private static final String SCALE_TEST_PROPERTY = "gdk.scaleTest";
+
+    private static final String THREADS_PROPERTY = "gdk.scaleTest.threads";
+
+    private static final String HEAP_BUDGET_PROPERTY = "gdk.scaleTest.heapBudgetMb";
+
+    @DataProvider
+    public static Object[][] corpusSizes() {
+        return new Object[][] {
+                {10},
+                {100},
+                {1000},
+                {10000}
+        };
+    }
+
+    @Test
+    @UseDataProvider("corpusSizes")
+    public void testGenerationScales(int endpoints) throws Exception {
+        assumeTrue(endpoints <= 10 || Boolean.getBoolean(SCALE_TEST_PROPERTY));
+
+        File workDir = Files.createTempDirectory("test-scale").toFile();
+        File snapshotFile = new File(workDir, "snapshot.jsonl");
+        new SyntheticGravitonCorpus().endpoints(endpoints).writeSnapshot(snapshotFile);
+
+        GravitonApi gravitonApi = mock(GravitonApi.class);
+        when(gravitonApi.getEndpointManager()).thenReturn(mock(GeneratedEndpointManager.class, withSettings().stubOnly()));
+
+        GeneratorOptions options = new GeneratorOptions();
+        options.setGenerationThreads(Integer.getInteger(THREADS_PROPERTY, 1));
+        options.setHeapBudget(Long.getLong(HEAP_BUDGET_PROPERTY, 0L) * 1024 * 1024);
+
+        File targetDir = new File(workDir, "generated");
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+
+        new Generator(
+                configForTargetDirectory(targetDir),
+                options,
+                gravitonApi,
+                new SnapshotInstructionLoader(snapshotFile)
+        ).generate();
+
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        long peakHeapBytes = determinePeakHeapUsage();
+        long generatedFiles = countFiles(targetDir);
+
+        assertTrue(generatedFiles >= endpoints / 2);
+
+        String result = String.format(
+                "%d,%d,%d,%d,%d",
+                endpoints,
+                options.getGenerationThreads(),
+                generatedFiles,
+                wallMillis,
+                peakHeapBytes / (1024 * 1024)
+        );
+        System.out.println("Scale run (endpoints,threads,files,wallMillis,peakHeapMb): " + result);
+        appendResult(result);
+    }
+
+    /**
+     * Sums up the peak usage of all heap memory pools since their last reset. The pools reach their peaks at
+     * different times, so this is an upper bound of the actual peak heap usage.
+     */
+    private long determinePeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (MemoryType.HEAP == pool.getType() && null != pool.getPeakUsage()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private long countFiles(File directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private void appendResult(String result) throws IOException {
+        Path resultFile = new File("target", "scale-results.csv").toPath();
+        Files.createDirectories(resultFile.getParent());
+        if (!Files.exists(resultFile)) {
+            Files.write(
+                    resultFile,
+                    "endpoints,threads,files,wallMillis,peakHeapMb\n".getBytes(StandardCharsets.UTF_8)
+            );
+        }
+        Files.write(
+                resultFile,
+                (result + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND
+        );
+    }
+
+    private GenerationConfig configForTargetDirectory(final File targetDir) {
+        return new DefaultGenerationConfig() {
+            @Override
+            public String getTargetPackage() {
+                return "com.example.gdk";
+            }
+
+            @Override
+            public File getTargetDirectory() {
+                return targetDir;
+            }
+
+            @Override
+            public Class<? extends RuleFactory> getCustomRuleFactory() {
+                // the profiles have no id, so their fragments must not be cached across endpoints
+                return GravitonRuleFactory.class;
+            }
+        };
+    }
+}
@@ -0,0 +1,298 @@
+package com.github.libgraviton.gdk.generator.synthetic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server standing in for a Graviton instance. It serves the service document and the profiles of a snapshot
+ * file (see SnapshotWriter), so the instruction loaders can be exercised end to end without any network.
+ *
+ * The urls of the recorded Graviton are rewritten to the url of this server. Latency, bandwidth and a share of failing
+ * requests can be configured before the server is started. Every response carries an ETag and requests with a
+ * matching If-None-Match header are answered with 304 Not Modified.
+ */
+public class GravitonStandInServer implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * All documents by path.
+     */
+    private final Map<String, Document> documents = new HashMap<>();
+
+    /**
+     * The base url of the recorded Graviton instance.
+     */
+    private final String recordedBaseUrl;
+
+    private final String snapshotServicePath;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private long latencyMillis = 0;
+
+    /**
+     * The maximum number of bytes per second sent per response. 0 disables the limit.
+     */
+    private long bandwidthBytesPerSecond = 0;
+
+    /**
+     * The share (0..1) of requests which fail with 503 Service Unavailable.
+     */
+    private double errorRate = 0;
+
+    private Random random = new Random(42L);
+
+    private int threads = 8;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * Constructor. Reads the documents of a given snapshot file.
+     *
+     * @param snapshotFile The snapshot file.
+     *
+     * @throws IOException If the snapshot cannot be read.
+     */
+    public GravitonStandInServer(File snapshotFile) throws IOException {
+        String serviceUrl = null;
+        Map<String, String> bodies = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonNode document = objectMapper.readTree(line);
+                String url = document.get("url").asText();
+                if (null == serviceUrl) {
+                    serviceUrl = url;
+                }
+                bodies.put(url, document.get("body").asText());
+            }
+        }
+        if (null == serviceUrl) {
+            throw new IOException("Snapshot '" + snapshotFile + "' contains no service document.");
+        }
+
+        URI serviceUri = URI.create(serviceUrl);
+        recordedBaseUrl = serviceUri.getScheme() + "://" + serviceUri.getRawAuthority();
+        snapshotServicePath = determinePath(serviceUri);
+        for (Map.Entry<String, String> body : bodies.entrySet()) {
+            documents.put(determinePath(URI.create(body.getKey())), new Document(body.getValue()));
+        }
+    }
+
+    public GravitonStandInServer setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public GravitonStandInServer setBandwidthBytesPerSecond(long bandwidthBytesPerSecond) {
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+        return this;
+    }
+
+    public GravitonStandInServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public GravitonStandInServer setSeed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * @param threads The number of requests handled at the same time.
+     */
+    public GravitonStandInServer setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @return This server.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    public GravitonStandInServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return The base url of this server, e.g. http://127.0.0.1:12345
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return The url of the service document, which is the url the instruction loaders have to be pointed to.
+     */
+    public String getServiceUrl() {
+        return getBaseUrl() + snapshotServicePath;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        if (null != server) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            sleep(latencyMillis);
+
+            if (shouldFail()) {
+                errorCount.incrementAndGet();
+                send(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            Document document = documents.get(determinePath(exchange.getRequestURI()));
+            if (null == document) {
+                send(exchange, HttpURLConnection.HTTP_NOT_FOUND, "{\"message\":\"Not found\"}");
+                return;
+            }
+
+            exchange.getResponseHeaders().set("ETag", document.etag);
+            if (document.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                return;
+            }
+            send(exchange, HttpURLConnection.HTTP_OK, document.body.replace(recordedBaseUrl, getBaseUrl()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized boolean shouldFail() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    /**
+     * Sends a response body in chunks, pausing before the chunks to stay below the configured bandwidth.
+     */
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        long start = System.nanoTime();
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, bytes.length - offset);
+                if (bandwidthBytesPerSecond > 0) {
+                    // a chunk is only sent once the bandwidth allows all bytes up to its end
+                    long expectedNanos = (offset + length) * 1_000_000_000L / bandwidthBytesPerSecond;
+                    sleep((expectedNanos - (System.nanoTime() - start)) / 1_000_000);
+                }
+                // counted first, so a client which received the chunk always sees it counted
+                bytesSent.addAndGet(length);
+                out.write(bytes, offset, length);
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String determinePath(URI uri) {
+        String path = null == uri.getRawPath() || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return null == uri.getRawQuery() ? path : path + "?" + uri.getRawQuery();
+    }
+
+    /**
+     * A served document.
+     */
+    private static class Document {
+
+        private final String body;
+
+        private final String etag;
+
+        private Document(String body) {
+            this.body = body;
+            this.etag = "\"" + hash(body) + "\"";
+        }
+
+        private static String hash(String body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (int i = 0; i < 8; i++) {
+                    hex.append(String.format("%02x", hash[i]));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available.", e);
+            }
+        }
+    }
+}
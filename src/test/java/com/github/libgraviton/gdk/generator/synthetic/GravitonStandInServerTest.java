@@ -0,0 +1,103 @@
+package com.github.libgraviton.gdk.generator.synthetic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GravitonStandInServerTest {
+
+    private File snapshotFile;
+
+    private GravitonStandInServer server;
+
+    @Before
+    public void setup() throws Exception {
+        snapshotFile = new File(Files.createTempDirectory("test-stand-in").toFile(), "snapshot.jsonl");
+        new SyntheticGravitonCorpus().endpoints(3).writeSnapshot(snapshotFile);
+    }
+
+    @After
+    public void tearDown() {
+        if (null != server) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testServesRewrittenServiceDocument() throws Exception {
+        server = new GravitonStandInServer(snapshotFile).start();
+
+        HttpURLConnection connection = open(server.getServiceUrl(), null);
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        String body = read(connection);
+        assertTrue(body.contains(server.getBaseUrl() + "/schema/"));
+        assertFalse(body.contains(SyntheticGravitonCorpus.BASE_URL));
+        assertEquals(404, open(server.getBaseUrl() + "/unknown/", null).getResponseCode());
+    }
+
+    @Test
+    public void testConditionalRequest() throws Exception {
+        server = new GravitonStandInServer(snapshotFile).start();
+
+        HttpURLConnection connection = open(server.getServiceUrl(), null);
+        String etag = connection.getHeaderField("ETag");
+        assertNotNull(etag);
+        read(connection);
+
+        assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, open(server.getServiceUrl(), etag).getResponseCode());
+        assertEquals(HttpURLConnection.HTTP_OK, open(server.getServiceUrl(), "\"outdated\"").getResponseCode());
+        assertEquals(1, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void testInjectedFailures() throws Exception {
+        server = new GravitonStandInServer(snapshotFile).setErrorRate(1).start();
+
+        assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, open(server.getServiceUrl(), null).getResponseCode());
+        assertEquals(1, server.getErrorCount());
+    }
+
+    @Test
+    public void testLatencyAndBandwidth() throws Exception {
+        server = new GravitonStandInServer(snapshotFile)
+                .setLatencyMillis(100)
+                .setBandwidthBytesPerSecond(2048)
+                .start();
+
+        long start = System.nanoTime();
+        HttpURLConnection connection = open(server.getServiceUrl(), null);
+        int size = read(connection).getBytes(StandardCharsets.UTF_8).length;
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // allow some slack for the millisecond rounding of the pauses
+        assertTrue(elapsedMillis >= 100 + size * 1000L / 2048 - 10);
+        assertEquals(size, server.getBytesSent());
+    }
+
+    private HttpURLConnection open(String url, String ifNoneMatch) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (null != ifNoneMatch) {
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        return connection;
+    }
+
+    private String read(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.libgraviton.gdk.generator.synthetic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic Graviton deployment: a service document and one profile per endpoint. The corpus is written
+ * as a snapshot file, so it can be loaded with the SnapshotInstructionLoader without any Graviton instance.
+ *
+ * The corpus is deterministic for a given configuration, since all random decisions are based on a fixed seed.
+ */
+public class SyntheticGravitonCorpus {
+
+    public static final String BASE_URL = "http://synthetic-graviton/";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The number of endpoints.
+     */
+    private int endpoints = 10;
+
+    /**
+     * The nesting depth of objects within a profile. 1 creates flat documents.
+     */
+    private int nestingDepth = 3;
+
+    /**
+     * The number of properties of every object.
+     */
+    private int propertiesPerObject = 8;
+
+    /**
+     * The share (0..1) of non-scalar properties which are arrays of objects instead of nested objects.
+     */
+    private double arrayOfObjectDensity = 0.5;
+
+    /**
+     * The number of bundles, i.e. distinct packages the document classes are spread over.
+     */
+    private int packageSpread = 10;
+
+    /**
+     * The share (0..1) of endpoints whose document class has the same simple name as the class of another endpoint.
+     */
+    private double nameCollisionRate = 0.05;
+
+    private long seed = 42L;
+
+    public SyntheticGravitonCorpus endpoints(int endpoints) {
+        this.endpoints = endpoints;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus nestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus propertiesPerObject(int propertiesPerObject) {
+        this.propertiesPerObject = propertiesPerObject;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus arrayOfObjectDensity(double arrayOfObjectDensity) {
+        this.arrayOfObjectDensity = arrayOfObjectDensity;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus packageSpread(int packageSpread) {
+        this.packageSpread = packageSpread;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus nameCollisionRate(double nameCollisionRate) {
+        this.nameCollisionRate = nameCollisionRate;
+        return this;
+    }
+
+    public SyntheticGravitonCorpus seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Writes the corpus as a snapshot file.
+     *
+     * @param snapshotFile The snapshot file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeSnapshot(File snapshotFile) throws IOException {
+        Random random = new Random(seed);
+        List<String> entityNames = new ArrayList<>();
+
+        ObjectNode service = objectMapper.createObjectNode();
+        ArrayNode services = service.putArray("services");
+        for (int i = 0; i < endpoints; i++) {
+            services.addObject()
+                    .put("$ref", endpointUrl(i))
+                    .put("profile", profileUrl(i));
+        }
+
+        Files.createDirectories(snapshotFile.getAbsoluteFile().getParentFile().toPath());
+        try (BufferedWriter writer = Files.newBufferedWriter(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            writeLine(writer, BASE_URL, service.toString());
+            for (int i = 0; i < endpoints; i++) {
+                String entityName = "Entity" + i;
+                if (!entityNames.isEmpty() && random.nextDouble() < nameCollisionRate) {
+                    entityName = entityNames.get(random.nextInt(entityNames.size()));
+                }
+                entityNames.add(entityName);
+                writeLine(writer, profileUrl(i), createProfile(random, bundle(i), entityName).toString());
+            }
+        }
+    }
+
+    /**
+     * Creates the collection profile of an endpoint.
+     */
+    private ObjectNode createProfile(Random random, String bundle, String entityName) {
+        ObjectNode profile = objectMapper.createObjectNode();
+        profile.put("title", entityName + " - collection");
+        profile.put("type", "array");
+        ObjectNode item = createObject(random, nestingDepth);
+        item.put("title", entityName);
+        item.put("x-documentClass", "GravitonDyn\\" + bundle + "Bundle\\Document\\" + entityName);
+        ((ObjectNode) item.get("properties")).putObject("id")
+                .put("type", "string")
+                .put("description", "Unique identifier");
+        profile.set("items", item);
+        return profile;
+    }
+
+    private ObjectNode createObject(Random random, int depth) {
+        ObjectNode object = objectMapper.createObjectNode();
+        object.put("type", "object");
+        ObjectNode properties = object.putObject("properties");
+        for (int i = 0; i < propertiesPerObject; i++) {
+            // property names repeat on every level, which provokes class name collisions of nested classes
+            String name = "field" + i;
+            if (depth > 1 && 0 == i % 3) {
+                if (random.nextDouble() < arrayOfObjectDensity) {
+                    ObjectNode array = properties.putObject(name + "List");
+                    array.put("type", "array");
+                    array.set("items", createObject(random, depth - 1));
+                } else {
+                    properties.set(name, createObject(random, depth - 1));
+                }
+                continue;
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    properties.putObject(name).put("type", "string").put("description", "Field " + i);
+                    break;
+                case 1:
+                    properties.putObject(name).putArray("type").add("integer").add("null");
+                    break;
+                case 2:
+                    properties.putObject(name).put("type", "boolean");
+                    break;
+                default:
+                    properties.putObject(name).put("type", "string").put("format", "date-time");
+            }
+        }
+        return object;
+    }
+
+    private void writeLine(BufferedWriter writer, String url, String body) throws IOException {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("url", url);
+        line.put("body", body);
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.newLine();
+    }
+
+    private String bundle(int endpoint) {
+        return "Module" + (endpoint % Math.max(1, packageSpread));
+    }
+
+    private String endpointUrl(int endpoint) {
+        return BASE_URL + bundle(endpoint).toLowerCase() + "/entity" + endpoint + "/";
+    }
+
+    private String profileUrl(int endpoint) {
+        return BASE_URL + "schema/" + bundle(endpoint).toLowerCase() + "/entity" + endpoint + "/collection";
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.libgraviton.gdk.maven;
+
+import com.github.libgraviton.gdk.generator.GeneratorInstruction;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.GrvProfileInstructionLoader;
+import com.github.libgraviton.gdk.generator.instructionloader.grvprofile.ProfileCache;
+import com.github.libgraviton.gdk.generator.synthetic.GravitonStandInServer;
+import com.github.libgraviton.gdk.generator.synthetic.SyntheticGravitonCorpus;
+import com.github.libgraviton.workerbase.gdk.GravitonApi;
+import com.github.libgraviton.workerbase.gdk.api.endpoint.GeneratedEndpointManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the GrvProfileInstructionLoader with a real GravitonApi against the local Graviton stand-in.
+ */
+public class GravitonStandInLoaderTest {
+
+    private static final int ENDPOINTS = 20;
+
+    private File workDir;
+
+    private GravitonStandInServer server;
+
+    @Before
+    public void setup() throws Exception {
+        workDir = Files.createTempDirectory("test-stand-in-loader").toFile();
+        File snapshotFile = new File(workDir, "snapshot.jsonl");
+        new SyntheticGravitonCorpus().endpoints(ENDPOINTS).writeSnapshot(snapshotFile);
+        server = new GravitonStandInServer(snapshotFile).setLatencyMillis(5);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testConcurrentFetchWithCache() throws Exception {
+        server.start();
+        ProfileCache profileCache = new ProfileCache(new File(workDir, "cache"));
+
+        List<GeneratorInstruction> instructions =
+                new GrvProfileInstructionLoader(createApi(), 4, profileCache).loadInstructions();
+        assertEquals(ENDPOINTS, instructions.size());
+        assertEquals(ENDPOINTS + 1, server.getRequestCount());
+        assertEquals(0, server.getNotModifiedCount());
+
+        instructions = new GrvProfileInstructionLoader(createApi(), 4, profileCache).loadInstructions();
+        assertEquals(ENDPOINTS, instructions.size());
+        assertEquals(ENDPOINTS + 1, server.getNotModifiedCount());
+    }
+
+    @Test
+    public void testFailingProfilesAreSkipped() throws Exception {
+        // with this seed the service document itself is served successfully
+        server.setErrorRate(0.3).setSeed(42L).start();
+
+        List<GeneratorInstruction> instructions = new GrvProfileInstructionLoader(createApi(), 4).loadInstructions();
+        assertEquals(ENDPOINTS, instructions.size() + server.getErrorCount());
+    }
+
+    private GravitonApi createApi() throws Exception {
+        return GravitonApiFactory.create(server.getServiceUrl(), null, null, mock(GeneratedEndpointManager.class));
+    }
+}